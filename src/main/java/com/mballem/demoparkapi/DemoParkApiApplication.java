@@ -1,13 +1,37 @@
 package com.mballem.demoparkapi;
 
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
 
 @SpringBootApplication
 public class DemoParkApiApplication {
 
-	public static void main(String[] args) {
-		SpringApplication.run(DemoParkApiApplication.class, args);
+	public static void main(String[] args) throws Exception {
+		ConfigurableApplicationContext context = SpringApplication.run(DemoParkApiApplication.class, args);
+		if (context.getEnvironment().getProperty("demopark.inicio.treino-cds", Boolean.class, false)) {
+			treinarCds(context);
+		}
+	}
+
+	// Execução de treino do build de produção (-Pproducao): depois da subida, uma requisição de cada tipo
+	// comum carrega as classes do caminho da requisição, e ao sair a JVM grava todas no arquivo AppCDS
+	private static void treinarCds(ConfigurableApplicationContext context) throws Exception {
+		int porta = ((WebServerApplicationContext) context).getWebServer().getPort();
+		HttpClient client = HttpClient.newHttpClient();
+		String base = "http://localhost:" + porta + "/api/v1/usuarios";
+		client.send(HttpRequest.newBuilder(URI.create(base))
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"treino@email.com\",\"password\":\"123456\"}"))
+				.build(), HttpResponse.BodyHandlers.discarding());
+		client.send(HttpRequest.newBuilder(URI.create(base)).build(), HttpResponse.BodyHandlers.discarding());
+		System.exit(SpringApplication.exit(context));
 	}
 
 }
@@ -0,0 +1,85 @@
+package com.mballem.demoparkapi.config;
+
+import com.mballem.demoparkapi.metrics.ConsultasEndpoint;
+import com.mballem.demoparkapi.metrics.ContagemCarregamentoIntegrator;
+import com.mballem.demoparkapi.metrics.ContagemJdbcListener;
+import com.mballem.demoparkapi.metrics.EstatisticasRequisicaoFilter;
+import com.mballem.demoparkapi.metrics.InspecaoJdbcListener;
+import com.mballem.demoparkapi.metrics.RankingConsultas;
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.MeterRegistry;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.hibernate.jpa.boot.spi.IntegratorProvider;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class MetricsConfig {
+
+    // Habilita @Timed nos métodos do UsuarioService (métrica usuario.service)
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public FilterRegistrationBean<EstatisticasRequisicaoFilter> estatisticasRequisicaoFilter(MeterRegistry meterRegistry,
+            @Value("${demopark.jdbc.n-mais-um.limite-comandos:20}") int limiteComandos) {
+        FilterRegistrationBean<EstatisticasRequisicaoFilter> registro =
+            new FilterRegistrationBean<>(new EstatisticasRequisicaoFilter(meterRegistry, limiteComandos));
+        registro.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registro;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer contagemCarregamentoCustomizer() {
+        return properties -> properties.put("hibernate.integrator_provider",
+            (IntegratorProvider) () -> List.of(new ContagemCarregamentoIntegrator()));
+    }
+
+    @Bean
+    public RankingConsultas rankingConsultas(@Value("${demopark.jdbc.ranking.maximo-consultas:500}") int maximoConsultas,
+                                             @Value("${demopark.jdbc.ranking.janela:5m}") Duration janela) {
+        return new RankingConsultas(maximoConsultas, janela.toNanos(), TimeUnit.NANOSECONDS);
+    }
+
+    @Bean
+    public ConsultasEndpoint consultasEndpoint(RankingConsultas rankingConsultas,
+                                               @Value("${demopark.jdbc.ranking.tamanho:10}") int tamanho) {
+        return new ConsultasEndpoint(rankingConsultas, tamanho);
+    }
+
+    // Envolve o DataSource com o datasource-proxy para contar e medir os comandos JDBC; o pool (Hikari)
+    // continua acessível por unwrap, então as métricas hikaricp.* seguem publicadas
+    @Bean
+    public static BeanPostProcessor contagemJdbcPostProcessor(ObjectProvider<MeterRegistry> meterRegistry,
+                                                              ObjectProvider<RankingConsultas> rankingConsultas,
+                                                              @Value("${demopark.jdbc.consulta-lenta.limite:200ms}") Duration limiteConsultaLenta) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && "dataSource".equals(beanName)) {
+                    return ProxyDataSourceBuilder.create(dataSource)
+                        .name(beanName)
+                        .listener(new ContagemJdbcListener(meterRegistry.getObject()))
+                        .listener(new InspecaoJdbcListener(limiteConsultaLenta.toNanos(), rankingConsultas.getObject()))
+                        .build();
+                }
+                return bean;
+            }
+        };
+    }
+}
@@ -0,0 +1,27 @@
+package com.mballem.demoparkapi.config;
+
+import com.mballem.demoparkapi.web.admissao.AdmissaoInterceptor;
+import com.mballem.demoparkapi.web.admissao.LimiteAdaptativo;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+// Controle de admissão na frente dos controllers da API (pilha servlet; o actuator fica de fora). O feed de eventos
+// também fica de fora: cada conexão dura minutos sem usar banco, e contaria como requisição em voo e lenta
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "demopark.admissao.habilitado", havingValue = "true", matchIfMissing = true)
+@RequiredArgsConstructor
+@Configuration
+public class SpringAdmissaoConfig implements WebMvcConfigurer {
+
+    private final LimiteAdaptativo limiteAdaptativo;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new AdmissaoInterceptor(limiteAdaptativo)).addPathPatterns("/api/**")
+            .excludePathPatterns("/api/v1/usuarios/eventos");
+    }
+}
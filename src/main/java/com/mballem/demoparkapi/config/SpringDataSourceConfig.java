@@ -0,0 +1,69 @@
+package com.mballem.demoparkapi.config;
+
+import com.mballem.demoparkapi.datasource.RoteamentoDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+// Roteamento leitura/escrita: o primário vem de spring.datasource.* e cada URL de demopark.datasource.replicas.urls
+// vira um pool Hikari somente leitura com as mesmas credenciais
+@ConditionalOnProperty(name = "demopark.datasource.roteamento.habilitado", havingValue = "true")
+@EnableConfigurationProperties(DataSourceProperties.class)
+@Configuration
+public class SpringDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSourcePrimario(DataSourceProperties properties) {
+        HikariDataSource primario = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        primario.setPoolName(RoteamentoDataSource.PRIMARIO);
+        return primario;
+    }
+
+    @Bean
+    public RoteamentoDataSource roteamentoDataSource(HikariDataSource dataSourcePrimario, DataSourceProperties properties,
+                                                     MeterRegistry meterRegistry,
+                                                     @Value("${demopark.datasource.replicas.urls}") List<String> urls,
+                                                     @Value("${demopark.datasource.replicas.tamanho-pool:10}") int tamanhoPool,
+                                                     @Value("${demopark.datasource.replicas.timeout-conexao:1s}") Duration timeoutConexao,
+                                                     @Value("${demopark.datasource.roteamento.estrategia:round-robin}") RoteamentoDataSource.Estrategia estrategia,
+                                                     @Value("${demopark.datasource.roteamento.verificacao:5s}") Duration verificacao) {
+        List<HikariDataSource> replicas = new ArrayList<>(urls.size());
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource replica = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .url(urls.get(i).trim())
+                .build();
+            replica.setPoolName("replica-" + (i + 1));
+            replica.setMaximumPoolSize(tamanhoPool);
+            // Timeout curto: com a réplica fora do ar a leitura cai no primário em vez de esperar os 30s padrão
+            replica.setConnectionTimeout(timeoutConexao.toMillis());
+            replica.setReadOnly(true);
+            // As réplicas não são beans, então as métricas hikaricp.* (tag pool) são ligadas aqui
+            replica.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            replicas.add(replica);
+        }
+        return new RoteamentoDataSource(dataSourcePrimario, replicas, estrategia, verificacao, meterRegistry);
+    }
+
+    // JPA, scripts e o datasource-proxy do MetricsConfig usam este bean, pelo nome "dataSource"
+    @Bean
+    @Primary
+    public DataSource dataSource(RoteamentoDataSource roteamentoDataSource) {
+        return new LazyConnectionDataSourceProxy(roteamentoDataSource);
+    }
+}
@@ -1,5 +1,9 @@
 package com.mballem.demoparkapi.config;
 
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanFactoryPostProcessor;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -21,4 +25,28 @@ public class SpringDocOpenApiConfig {
             .contact(new Contact().name("Bruno Selhorst").email("bruno.selhorst@ac.gov.br"))
             );
     }
+
+    // Marca como lazy os beans do springdoc (declarados por classe ou por métodos @Bean das configurações dele):
+    // a varredura dos controllers e o Swagger UI saem da subida e vão para o primeiro acesso à documentação
+    @Bean
+    @ConditionalOnProperty(name = "demopark.springdoc.inicializacao-preguicosa", havingValue = "true")
+    public static BeanFactoryPostProcessor springdocPreguicoso() {
+        return beanFactory -> {
+            for (String nome : beanFactory.getBeanDefinitionNames()) {
+                BeanDefinition definicao = beanFactory.getBeanDefinition(nome);
+                if (doSpringdoc(definicao, beanFactory)) {
+                    definicao.setLazyInit(true);
+                }
+            }
+        };
+    }
+
+    private static boolean doSpringdoc(BeanDefinition definicao, ConfigurableListableBeanFactory beanFactory) {
+        String classe = definicao.getBeanClassName();
+        String fabrica = definicao.getFactoryBeanName();
+        if (classe == null && fabrica != null && beanFactory.containsBeanDefinition(fabrica)) {
+            classe = beanFactory.getBeanDefinition(fabrica).getBeanClassName();
+        }
+        return classe != null && classe.startsWith("org.springdoc.");
+    }
 }
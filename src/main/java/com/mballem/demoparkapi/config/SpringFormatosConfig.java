@@ -0,0 +1,55 @@
+package com.mballem.demoparkapi.config;
+
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.mballem.demoparkapi.web.converter.JacksonProtobufHttpMessageConverter;
+import com.mballem.demoparkapi.web.filter.CompressaoMinimaFilter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+// Formatos de resposta negociados pelo Accept além do JSON: application/cbor, application/x-jackson-smile
+// e application/x-protobuf. Sem Accept (ou com */*) a resposta continua em JSON
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@Configuration
+public class SpringFormatosConfig implements WebMvcConfigurer {
+
+    // CBOR e Smile já seriam registrados pelo Spring MVC com um ObjectMapper padrão; como beans, substituem
+    // esses na mesma posição e usam o builder do Boot, com os módulos e as propriedades spring.jackson.*
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2CborHttpMessageConverter(builder.factory(new CBORFactory()).build());
+    }
+
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        return new MappingJackson2SmileHttpMessageConverter(builder.factory(new SmileFactory()).build());
+    }
+
+    // Protobuf no fim da lista: um conversor extra registrado como bean entraria na frente e passaria a ser o padrão
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new JacksonProtobufHttpMessageConverter());
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "server.compression.enabled", havingValue = "true")
+    public FilterRegistrationBean<CompressaoMinimaFilter> compressaoMinimaFilter(
+            @Value("${server.compression.min-response-size:2KB}") DataSize limite) {
+        FilterRegistrationBean<CompressaoMinimaFilter> registro =
+            new FilterRegistrationBean<>(new CompressaoMinimaFilter(limite.toBytes()));
+        registro.addUrlPatterns("/api/*");
+        return registro;
+    }
+}
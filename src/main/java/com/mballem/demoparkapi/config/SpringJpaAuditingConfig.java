@@ -0,0 +1,19 @@
+package com.mballem.demoparkapi.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
+
+import java.util.Optional;
+
+@EnableJpaAuditing
+@Configuration
+public class SpringJpaAuditingConfig {
+
+    // A API ainda não tem autenticação: criadoPor e modificadoPor recebem um auditor fixo
+    @Bean
+    public AuditorAware<String> auditorAware() {
+        return () -> Optional.of("anonymousUser");
+    }
+}
@@ -0,0 +1,60 @@
+package com.mballem.demoparkapi.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.mballem.demoparkapi.web.converter.Jackson2CborAgregadoEncoder;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.web.reactive.accept.RequestedContentTypeResolverBuilder;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+
+// Pilha reativa (perfil reativo)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@EnableConfigurationProperties(DataSourceProperties.class)
+@Configuration
+public class SpringReativoConfig implements WebFluxConfigurer {
+
+    // Tomcat e Netty estão os dois no classpath e a autoconfiguração escolheria o Tomcat; o Netty atende
+    // todas as conexões com poucas threads de event loop, que é o objetivo dessa pilha
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    // Com um ConnectionFactory do R2DBC a autoconfiguração deixa de criar o DataSource. As migrações do Flyway
+    // e o aquecimento do filtro de usernames (JPA) continuam no JDBC, então o pool é declarado aqui
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    // Smile já vem entre os codecs padrão do WebFlux; CBOR precisa ser registrado. O protobuf fica só na pilha servlet
+    @Bean
+    public CodecCustomizer cborCodecCustomizer(Jackson2ObjectMapperBuilder builder) {
+        return configurer -> {
+            ObjectMapper mapper = builder.factory(new CBORFactory()).build();
+            configurer.customCodecs().register(new Jackson2CborAgregadoEncoder(mapper));
+            configurer.customCodecs().register(new Jackson2CborDecoder(mapper, MediaType.APPLICATION_CBOR));
+        };
+    }
+
+    // Codecs customizados ficam na frente dos padrão, então sem Accept (ou com */*) o CBOR seria escolhido.
+    // O resolvedor fixo só entra quando o cabeçalho não pede um tipo concreto; o */* no fim mantém os
+    // endpoints com outro produces (NDJSON, Prometheus) respondendo sem Accept
+    @Override
+    public void configureContentTypeResolver(RequestedContentTypeResolverBuilder builder) {
+        builder.headerResolver();
+        builder.fixedResolver(MediaType.APPLICATION_JSON, MediaType.ALL);
+    }
+}
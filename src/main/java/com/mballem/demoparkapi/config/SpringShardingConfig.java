@@ -0,0 +1,91 @@
+package com.mballem.demoparkapi.config;
+
+import com.mballem.demoparkapi.datasource.RebalanceamentoShards;
+import com.mballem.demoparkapi.datasource.ShardingDataSource;
+import com.mballem.demoparkapi.datasource.Shards;
+import com.mballem.demoparkapi.datasource.ShardsEndpoint;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.migration.JavaMigration;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+// Sharding dos usuários: o shard 0 vem de spring.datasource.* e guarda também o diretório de usernames, o mapa de
+// baldes e as demais tabelas; cada URL de demopark.usuarios.sharding.urls vira mais um shard, com as mesmas
+// credenciais e as mesmas migrações. Substitui o roteamento para réplicas, que define o mesmo bean dataSource
+@ConditionalOnProperty(name = "demopark.usuarios.sharding.habilitado", havingValue = "true")
+@EnableConfigurationProperties(DataSourceProperties.class)
+@Configuration
+public class SpringShardingConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource dataSourceShard0(DataSourceProperties properties) {
+        HikariDataSource shard = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        shard.setPoolName("shard-0");
+        return shard;
+    }
+
+    @Bean
+    public ShardingDataSource shardingDataSource(HikariDataSource dataSourceShard0, DataSourceProperties properties,
+                                                 MeterRegistry meterRegistry, ObjectProvider<JavaMigration> migracoesJava,
+                                                 @Value("${demopark.usuarios.sharding.urls}") List<String> urls,
+                                                 @Value("${demopark.usuarios.sharding.tamanho-pool:10}") int tamanhoPool,
+                                                 @Value("${spring.flyway.locations:classpath:db/migration/{vendor}}") List<String> locais) {
+        List<HikariDataSource> shards = new ArrayList<>(urls.size() + 1);
+        shards.add(dataSourceShard0);
+        for (String url : urls) {
+            HikariDataSource shard = properties.initializeDataSourceBuilder()
+                .type(HikariDataSource.class)
+                .url(url.trim())
+                .build();
+            shard.setPoolName("shard-" + shards.size());
+            shard.setMaximumPoolSize(tamanhoPool);
+            // Os shards extras não são beans, então as métricas hikaricp.* (tag pool) são ligadas aqui
+            shard.setMetricsTrackerFactory(new MicrometerMetricsTrackerFactory(meterRegistry));
+            // O Flyway da aplicação só migra o shard 0
+            String vendor = DatabaseDriver.fromJdbcUrl(shard.getJdbcUrl()).getId();
+            Flyway.configure()
+                .dataSource(shard)
+                .locations(locais.stream().map(local -> local.trim().replace("{vendor}", vendor)).toArray(String[]::new))
+                .javaMigrations(migracoesJava.orderedStream().toArray(JavaMigration[]::new))
+                .baselineOnMigrate(true)
+                .load()
+                .migrate();
+            shards.add(shard);
+        }
+        return new ShardingDataSource(shards);
+    }
+
+    // JPA, Flyway, scripts e o datasource-proxy do MetricsConfig usam este bean, pelo nome "dataSource"
+    @Bean
+    @Primary
+    public DataSource dataSource(ShardingDataSource shardingDataSource) {
+        return new LazyConnectionDataSourceProxy(shardingDataSource);
+    }
+
+    @Bean
+    public RebalanceamentoShards rebalanceamentoShards(Shards shards) {
+        return new RebalanceamentoShards(shards);
+    }
+
+    @Bean
+    public ShardsEndpoint shardsEndpoint(RebalanceamentoShards rebalanceamentoShards, Shards shards) {
+        return new ShardsEndpoint(rebalanceamentoShards, shards);
+    }
+}
@@ -0,0 +1,84 @@
+package com.mballem.demoparkapi.datasource;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.function.Supplier;
+
+// Leitura das próprias escritas com réplicas assíncronas: por uma janela curta depois de gravar um usuário,
+// as leituras desse usuário vão ao primário mesmo em transação readOnly; as leituras de coleção vão ao
+// primário se qualquer usuário foi gravado na janela. Vale só para as escritas feitas por esta instância
+@Component
+public class LeituraPropria {
+
+    private static final ThreadLocal<Boolean> PRIMARIO = new ThreadLocal<>();
+
+    private final boolean habilitado;
+    private final long janelaNanos;
+    private final Cache<Long, Boolean> escritasRecentes;
+    private volatile long ultimaEscrita;
+
+    public LeituraPropria(@Value("${demopark.datasource.roteamento.habilitado:false}") boolean habilitado,
+                          @Value("${demopark.datasource.roteamento.leitura-propria:2s}") Duration janela) {
+        this.habilitado = habilitado;
+        this.janelaNanos = janela.toNanos();
+        this.escritasRecentes = Caffeine.newBuilder().expireAfterWrite(janela).build();
+        this.ultimaEscrita = System.nanoTime() - janelaNanos;
+    }
+
+    public void registrarEscrita(Long id) {
+        if (habilitado) {
+            escritasRecentes.put(id, Boolean.TRUE);
+            ultimaEscrita = System.nanoTime();
+        }
+    }
+
+    public <T> T ler(Long id, Supplier<T> leitura) {
+        return executar(habilitado && escritasRecentes.getIfPresent(id) != null, leitura);
+    }
+
+    // Leitura de vários ids em uma consulta: vai ao primário se qualquer um deles foi gravado na janela
+    public <T> T lerVarios(Collection<Long> ids, Supplier<T> leitura) {
+        boolean primario = false;
+        if (habilitado) {
+            for (Long id : ids) {
+                if (escritasRecentes.getIfPresent(id) != null) {
+                    primario = true;
+                    break;
+                }
+            }
+        }
+        return executar(primario, leitura);
+    }
+
+    public <T> T lerColecao(Supplier<T> leitura) {
+        return executar(habilitado && System.nanoTime() - ultimaEscrita < janelaNanos, leitura);
+    }
+
+    // Leituras que decidem uma escrita logo em seguida não podem ver uma réplica atrasada
+    public <T> T lerNoPrimario(Supplier<T> leitura) {
+        return executar(habilitado, leitura);
+    }
+
+    // A conexão física só é escolhida no primeiro comando (LazyConnectionDataSourceProxy), então basta
+    // marcar a thread antes da consulta, mesmo dentro de uma transação readOnly já aberta
+    private <T> T executar(boolean primario, Supplier<T> leitura) {
+        if (!primario || PRIMARIO.get() != null) {
+            return leitura.get();
+        }
+        PRIMARIO.set(Boolean.TRUE);
+        try {
+            return leitura.get();
+        } finally {
+            PRIMARIO.remove();
+        }
+    }
+
+    static boolean primarioExigido() {
+        return PRIMARIO.get() != null;
+    }
+}
@@ -0,0 +1,122 @@
+package com.mballem.demoparkapi.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+// Move baldes até cada um dos primeiros "quantidade" shards ficar com BALDES / quantidade baldes (±1) e os demais
+// com nenhum: ao acrescentar a URL de um shard (que sobe vazio e sem baldes) ou para esvaziar os últimos antes de
+// tirá-los. Cada balde é copiado para o destino, troca de dono e só então sai da origem, com as escritas desta
+// instância em espera durante a cópia. As outras instâncias só leem o mapa na subida: rebalanceie com escritas só
+// nesta instância e reinicie as demais em seguida
+@Slf4j
+public class RebalanceamentoShards {
+
+    private static final String COLUNAS = "id, username, password, role, data_criacao, data_modificacao, criado_por, modificado_por, versao";
+    private static final String DO_BALDE = " from usuarios where mod(id, " + Shards.BALDES + ") = ?";
+    private static final int TAMANHO_LOTE = 500;
+
+    private final Shards shards;
+
+    public RebalanceamentoShards(Shards shards) {
+        this.shards = shards;
+    }
+
+    public synchronized Resultado rebalancear(int quantidade) {
+        int total = shards.quantidade();
+        if (quantidade < 1 || quantidade > total) {
+            throw new IllegalArgumentException(String.format("Quantidade de shards deve ficar entre 1 e %d", total));
+        }
+        int[] donos = shards.donosAtuais();
+        int[] alvo = new int[total];
+        for (int shard = 0; shard < quantidade; shard++) {
+            alvo[shard] = Shards.BALDES / quantidade + (shard < Shards.BALDES % quantidade ? 1 : 0);
+        }
+        int[] atuais = new int[total];
+        for (int dono : donos) {
+            atuais[dono]++;
+        }
+        // Só saem os baldes que passam do alvo do dono, e cada um vai para um shard abaixo do alvo
+        Deque<Integer> excedentes = new ArrayDeque<>();
+        for (int balde = 0; balde < Shards.BALDES; balde++) {
+            if (atuais[donos[balde]] > alvo[donos[balde]]) {
+                atuais[donos[balde]]--;
+                excedentes.add(balde);
+            }
+        }
+        int baldesMovidos = 0;
+        long usuariosMovidos = 0;
+        for (int destino = 0; destino < total; destino++) {
+            while (atuais[destino] < alvo[destino]) {
+                int balde = excedentes.remove();
+                usuariosMovidos += mover(balde, donos[balde], destino);
+                atuais[destino]++;
+                baldesMovidos++;
+            }
+        }
+        log.info("Rebalanceamento para {} shards: {} baldes e {} usuários movidos", quantidade, baldesMovidos, usuariosMovidos);
+        return new Resultado(baldesMovidos, usuariosMovidos, distribuicao());
+    }
+
+    public List<DistribuicaoShard> distribuicao() {
+        int[] baldes = new int[shards.quantidade()];
+        for (int dono : shards.donosAtuais()) {
+            baldes[dono]++;
+        }
+        List<DistribuicaoShard> distribuicao = new ArrayList<>(baldes.length);
+        for (int shard = 0; shard < baldes.length; shard++) {
+            Long usuarios = new JdbcTemplate(shards.dataSource().getShard(shard)).queryForObject("select count(*) from usuarios", Long.class);
+            distribuicao.add(new DistribuicaoShard(shard, baldes[shard], usuarios));
+        }
+        return distribuicao;
+    }
+
+    private long mover(int balde, int origem, int destino) {
+        DataSource de = shards.dataSource().getShard(origem);
+        DataSource para = shards.dataSource().getShard(destino);
+        JdbcTemplate jdbcOrigem = new JdbcTemplate(de);
+        JdbcTemplate jdbcDestino = new JdbcTemplate(para);
+        long[] copiados = new long[1];
+        shards.trocarDono(balde, destino, () -> new TransactionTemplate(new DataSourceTransactionManager(para)).executeWithoutResult(status -> {
+            // Sobras de uma movimentação interrompida: o destino ainda não é dono do balde
+            jdbcDestino.update("delete" + DO_BALDE, balde);
+            List<Object[]> lote = new ArrayList<>(TAMANHO_LOTE);
+            jdbcOrigem.query("select " + COLUNAS + DO_BALDE, (RowCallbackHandler) rs -> {
+                Object[] linha = new Object[9];
+                for (int coluna = 0; coluna < linha.length; coluna++) {
+                    linha[coluna] = rs.getObject(coluna + 1);
+                }
+                lote.add(linha);
+                if (lote.size() == TAMANHO_LOTE) {
+                    copiados[0] += inserir(jdbcDestino, lote);
+                }
+            }, balde);
+            copiados[0] += inserir(jdbcDestino, lote);
+        }));
+        jdbcOrigem.update("delete" + DO_BALDE, balde);
+        return copiados[0];
+    }
+
+    private static int inserir(JdbcTemplate jdbcTemplate, List<Object[]> lote) {
+        int quantidade = lote.size();
+        if (quantidade > 0) {
+            jdbcTemplate.batchUpdate("insert into usuarios (" + COLUNAS + ") values (?, ?, ?, ?, ?, ?, ?, ?, ?)", lote);
+            lote.clear();
+        }
+        return quantidade;
+    }
+
+    public record DistribuicaoShard(int shard, int baldes, Long usuarios) {
+    }
+
+    public record Resultado(int baldesMovidos, long usuariosMovidos, List<DistribuicaoShard> distribuicao) {
+    }
+}
@@ -0,0 +1,154 @@
+package com.mballem.demoparkapi.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Transações readOnly vão para uma réplica disponível; escritas, leituras sem transação e leituras das
+// próprias escritas (LeituraPropria) vão para o primário. Deve ficar atrás de um LazyConnectionDataSourceProxy:
+// o JpaTransactionManager pede a conexão antes de a transação ser marcada como readOnly
+@Slf4j
+public class RoteamentoDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    public static final String PRIMARIO = "primario";
+
+    private final HikariDataSource primario;
+    private final List<HikariDataSource> replicas;
+    private final Estrategia estrategia;
+    private final Set<Integer> indisponiveis = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger proxima = new AtomicInteger();
+    private final Map<String, Counter> roteadas = new HashMap<>();
+    private final ScheduledExecutorService verificador;
+
+    public RoteamentoDataSource(HikariDataSource primario, List<HikariDataSource> replicas, Estrategia estrategia,
+                                Duration verificacao, MeterRegistry meterRegistry) {
+        this.primario = primario;
+        this.replicas = replicas;
+        this.estrategia = estrategia;
+
+        Map<Object, Object> destinos = new HashMap<>();
+        destinos.put(PRIMARIO, primario);
+        roteadas.put(PRIMARIO, meterRegistry.counter("datasource.roteamento", "destino", PRIMARIO));
+        for (HikariDataSource replica : replicas) {
+            destinos.put(replica.getPoolName(), replica);
+            roteadas.put(replica.getPoolName(), meterRegistry.counter("datasource.roteamento", "destino", replica.getPoolName()));
+        }
+        setTargetDataSources(destinos);
+        setDefaultTargetDataSource(primario);
+
+        // Uma réplica fora do ar sai da escolha na primeira falha e só volta quando a verificação conseguir conectar
+        this.verificador = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+            Thread thread = new Thread(tarefa, "replicas-verificacao");
+            thread.setDaemon(true);
+            return thread;
+        });
+        verificador.scheduleWithFixedDelay(this::verificarReplicas, verificacao.toMillis(), verificacao.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || LeituraPropria.primarioExigido()) {
+            return PRIMARIO;
+        }
+        int indice = escolherReplica();
+        return indice < 0 ? PRIMARIO : replicas.get(indice).getPoolName();
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        Object chave = determineCurrentLookupKey();
+        if (!PRIMARIO.equals(chave)) {
+            for (int i = 0; i < replicas.size(); i++) {
+                HikariDataSource replica = replicas.get(i);
+                if (replica.getPoolName().equals(chave)) {
+                    try {
+                        Connection conexao = replica.getConnection();
+                        roteadas.get(replica.getPoolName()).increment();
+                        return conexao;
+                    } catch (SQLException ex) {
+                        marcarIndisponivel(i, ex);
+                    }
+                }
+            }
+        }
+        roteadas.get(PRIMARIO).increment();
+        return primario.getConnection();
+    }
+
+    private int escolherReplica() {
+        int quantidade = replicas.size();
+        if (estrategia == Estrategia.MENOS_CONEXOES) {
+            int escolhida = -1;
+            int menorAtivas = Integer.MAX_VALUE;
+            for (int i = 0; i < quantidade; i++) {
+                if (!indisponiveis.contains(i)) {
+                    HikariPoolMXBean pool = replicas.get(i).getHikariPoolMXBean();
+                    int ativas = pool == null ? 0 : pool.getActiveConnections();
+                    if (ativas < menorAtivas) {
+                        menorAtivas = ativas;
+                        escolhida = i;
+                    }
+                }
+            }
+            return escolhida;
+        }
+        int inicio = Math.floorMod(proxima.getAndIncrement(), quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            int indice = (inicio + i) % quantidade;
+            if (!indisponiveis.contains(indice)) {
+                return indice;
+            }
+        }
+        return -1;
+    }
+
+    private void marcarIndisponivel(int indice, Exception ex) {
+        if (indisponiveis.add(indice)) {
+            log.warn("Réplica {} indisponível, leituras seguem no primário: {}", replicas.get(indice).getPoolName(), ex.getMessage());
+        }
+    }
+
+    private void verificarReplicas() {
+        for (int i = 0; i < replicas.size(); i++) {
+            try (Connection conexao = replicas.get(i).getConnection()) {
+                if (conexao.isValid(1)) {
+                    if (indisponiveis.remove(i)) {
+                        log.info("Réplica {} disponível novamente", replicas.get(i).getPoolName());
+                    }
+                } else {
+                    marcarIndisponivel(i, new SQLException("conexão inválida"));
+                }
+            } catch (SQLException | RuntimeException ex) {
+                marcarIndisponivel(i, ex);
+            }
+        }
+    }
+
+    // O primário é um bean próprio e é fechado pelo contexto; as réplicas só existem aqui
+    @Override
+    public void close() {
+        verificador.shutdownNow();
+        replicas.forEach(HikariDataSource::close);
+    }
+
+    public enum Estrategia {
+        ROUND_ROBIN, MENOS_CONEXOES
+    }
+}
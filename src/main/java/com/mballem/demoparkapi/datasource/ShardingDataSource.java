@@ -0,0 +1,46 @@
+package com.mballem.demoparkapi.datasource;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Um pool por shard; a conexão vem do shard marcado na thread (Shards.noShard) ou do shard 0, que também guarda o
+// diretório de usernames, o mapa de baldes e as demais tabelas da aplicação. Deve ficar atrás de um
+// LazyConnectionDataSourceProxy, para a conexão física só ser escolhida no primeiro comando
+public class ShardingDataSource extends AbstractRoutingDataSource implements AutoCloseable {
+
+    private final List<HikariDataSource> shards;
+
+    public ShardingDataSource(List<HikariDataSource> shards) {
+        this.shards = shards;
+        Map<Object, Object> destinos = new HashMap<>();
+        for (int i = 0; i < shards.size(); i++) {
+            destinos.put(i, shards.get(i));
+        }
+        setTargetDataSources(destinos);
+        setDefaultTargetDataSource(shards.get(0));
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        Integer shard = Shards.shardAtual();
+        return shard == null ? 0 : shard;
+    }
+
+    public int quantidade() {
+        return shards.size();
+    }
+
+    public HikariDataSource getShard(int shard) {
+        return shards.get(shard);
+    }
+
+    // O shard 0 é um bean próprio e é fechado pelo contexto; os demais só existem aqui
+    @Override
+    public void close() {
+        shards.subList(1, shards.size()).forEach(HikariDataSource::close);
+    }
+}
@@ -0,0 +1,339 @@
+package com.mballem.demoparkapi.datasource;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.function.ToLongFunction;
+
+// Sharding dos usuários por hash do id. O id é global e leva nos 10 bits de baixo o balde (0 a 1023), um hash da
+// sequência do diretório, então ids seguidos se espalham pelos baldes. Cada balde tem um shard dono (tabela
+// shard_baldes) e o rebalanceamento move baldes inteiros. Sem sharding há um shard só e tudo roda direto na
+// thread de quem chama, sem transação extra
+@Component
+public class Shards implements AutoCloseable {
+
+    public static final int BALDES = 1024;
+    private static final int BITS_BALDE = 10;
+
+    private static final ThreadLocal<Integer> SHARD = new ThreadLocal<>();
+
+    private final ShardingDataSource dataSource;
+    private final TransactionTemplate leitura;
+    private final ExecutorService consultas;
+    // Escritas seguram a leitura; a troca de dono de um balde segura a escrita
+    private final ReentrantReadWriteLock movimentacao = new ReentrantReadWriteLock();
+    private volatile int[] donos;
+
+    public Shards(ObjectProvider<ShardingDataSource> shardingDataSource, PlatformTransactionManager transactionManager,
+                  @Value("${demopark.usuarios.sharding.threads:8}") int threads) {
+        this.dataSource = shardingDataSource.getIfAvailable();
+        // Cada shard em uma transação própria, mesmo dentro de uma readOnly já aberta no shard 0
+        this.leitura = new TransactionTemplate(transactionManager);
+        leitura.setReadOnly(true);
+        leitura.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        if (dataSource == null) {
+            this.consultas = null;
+        } else {
+            AtomicInteger contador = new AtomicInteger();
+            this.consultas = Executors.newFixedThreadPool(threads, tarefa -> {
+                Thread thread = new Thread(tarefa, "shards-consulta-" + contador.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+    }
+
+    public boolean habilitado() {
+        return dataSource != null;
+    }
+
+    public int quantidade() {
+        return dataSource == null ? 1 : dataSource.quantidade();
+    }
+
+    // Shard 0: diretório de usernames e mapa de baldes
+    public DataSource diretorio() {
+        if (dataSource == null) {
+            throw new IllegalStateException("Sharding desabilitado");
+        }
+        return dataSource.getShard(0);
+    }
+
+    public static int balde(long id) {
+        return (int) (id & (BALDES - 1));
+    }
+
+    // Hash de Fibonacci da sequência nos bits do balde
+    public static long id(long sequencia) {
+        return sequencia << BITS_BALDE | (sequencia * 0x9E3779B97F4A7C15L) >>> (Long.SIZE - BITS_BALDE);
+    }
+
+    public int shardDoId(long id) {
+        return dataSource == null ? 0 : donos()[balde(id)];
+    }
+
+    public <T> T noShardDoId(Long id, Supplier<T> operacao) {
+        return noShard(shardDoId(id), operacao);
+    }
+
+    // A conexão física só é escolhida no primeiro comando, então basta marcar a thread antes de abrir a transação
+    public <T> T noShard(int shard, Supplier<T> operacao) {
+        if (dataSource == null) {
+            return operacao.get();
+        }
+        Integer anterior = SHARD.get();
+        SHARD.set(shard);
+        try {
+            return operacao.get();
+        } finally {
+            if (anterior == null) {
+                SHARD.remove();
+            } else {
+                SHARD.set(anterior);
+            }
+        }
+    }
+
+    // Nenhuma escrita desta instância cruza com a troca de dono de um balde
+    public <T> T escrever(Supplier<T> escrita) {
+        if (dataSource == null) {
+            return escrita.get();
+        }
+        movimentacao.readLock().lock();
+        try {
+            return escrita.get();
+        } finally {
+            movimentacao.readLock().unlock();
+        }
+    }
+
+    // Itens por shard dono, em ordem de shard
+    public <T> Map<Integer, List<T>> agrupar(Collection<T> itens, ToLongFunction<T> id) {
+        Map<Integer, List<T>> grupos = new TreeMap<>();
+        for (T item : itens) {
+            grupos.computeIfAbsent(shardDoId(id.applyAsLong(item)), shard -> new ArrayList<>()).add(item);
+        }
+        return grupos;
+    }
+
+    // Scatter-gather: a mesma leitura em todos os shards ao mesmo tempo, cada uma em uma transação readOnly própria.
+    // Os resultados voltam na ordem dos shards
+    public <T> List<T> lerTodos(Supplier<T> leituraShard) {
+        if (dataSource == null) {
+            return Collections.singletonList(leituraShard.get());
+        }
+        List<Integer> todos = new ArrayList<>(quantidade());
+        for (int shard = 0; shard < quantidade(); shard++) {
+            todos.add(shard);
+        }
+        return emParalelo(todos, shard -> leituraShard.get());
+    }
+
+    // Uma leitura por shard com os ids que ele guarda, em paralelo
+    public <R> List<R> lerAgrupados(Collection<Long> ids, Function<List<Long>, R> leituraShard) {
+        if (dataSource == null) {
+            return Collections.singletonList(leituraShard.apply(new ArrayList<>(ids)));
+        }
+        Map<Integer, List<Long>> grupos = agrupar(ids, Long::longValue);
+        return emParalelo(grupos.keySet(), shard -> leituraShard.apply(grupos.get(shard)));
+    }
+
+    // Um shard por vez, na thread de quem chama: para percursos que escrevem direto na resposta
+    public void percorrerTodos(IntConsumer percurso) {
+        if (dataSource == null) {
+            percurso.accept(0);
+            return;
+        }
+        for (int shard = 0; shard < quantidade(); shard++) {
+            int atual = shard;
+            noShard(atual, () -> leitura.execute(status -> {
+                percurso.accept(atual);
+                return null;
+            }));
+        }
+    }
+
+    // Junta as listas de lerTodos, cada uma ordenada por id, em uma só lista ordenada de até limite itens. Linhas de
+    // um balde que o shard não possui (cópia de um rebalanceamento ainda não apagada) ficam de fora
+    public <T> List<T> intercalar(List<List<T>> listas, ToLongFunction<T> id, int limite) {
+        return intercalar(listas, Comparator.comparingLong(id), id, limite);
+    }
+
+    // O mesmo, para listas ordenadas por outro critério (username, na pesquisa)
+    public <T> List<T> intercalar(List<List<T>> listas, Comparator<T> ordem, ToLongFunction<T> id, int limite) {
+        if (dataSource == null) {
+            return listas.get(0);
+        }
+        PriorityQueue<Cabeca<T>> fila = new PriorityQueue<>((a, b) -> ordem.compare(a.atual, b.atual));
+        for (int shard = 0; shard < listas.size(); shard++) {
+            Cabeca<T> cabeca = new Cabeca<>(shard, listas.get(shard).iterator(), id);
+            if (cabeca.avancar()) {
+                fila.add(cabeca);
+            }
+        }
+        List<T> resultado = new ArrayList<>();
+        while (resultado.size() < limite && !fila.isEmpty()) {
+            Cabeca<T> cabeca = fila.poll();
+            resultado.add(cabeca.atual);
+            if (cabeca.avancar()) {
+                fila.add(cabeca);
+            }
+        }
+        return resultado;
+    }
+
+    public boolean pertence(long id, int shard) {
+        return shardDoId(id) == shard;
+    }
+
+    @Override
+    public void close() {
+        if (consultas != null) {
+            consultas.shutdownNow();
+        }
+    }
+
+    static Integer shardAtual() {
+        return SHARD.get();
+    }
+
+    ShardingDataSource dataSource() {
+        return dataSource;
+    }
+
+    int[] donosAtuais() {
+        return donos().clone();
+    }
+
+    // A cópia roda com as escritas desta instância paradas; o novo dono vale assim que ela termina
+    void trocarDono(int balde, int destino, Runnable copia) {
+        movimentacao.writeLock().lock();
+        try {
+            copia.run();
+            new JdbcTemplate(diretorio()).update("update shard_baldes set shard = ? where balde = ?", destino, balde);
+            int[] novos = donos().clone();
+            novos[balde] = destino;
+            donos = novos;
+        } finally {
+            movimentacao.writeLock().unlock();
+        }
+    }
+
+    // Lido na primeira consulta, depois das migrações; na primeira subida os baldes são distribuídos em rodízio
+    private int[] donos() {
+        int[] atuais = donos;
+        if (atuais == null) {
+            synchronized (this) {
+                if (donos == null) {
+                    donos = carregarDonos();
+                }
+                atuais = donos;
+            }
+        }
+        return atuais;
+    }
+
+    private int[] carregarDonos() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(diretorio());
+        int[] carregados = lerDonos(jdbcTemplate);
+        if (carregados[0] < 0) {
+            List<Object[]> linhas = new ArrayList<>(BALDES);
+            for (int balde = 0; balde < BALDES; balde++) {
+                linhas.add(new Object[] {balde, balde % quantidade()});
+            }
+            try {
+                new TransactionTemplate(new DataSourceTransactionManager(diretorio())).executeWithoutResult(status ->
+                    jdbcTemplate.batchUpdate("insert into shard_baldes (balde, shard) values (?, ?)", linhas));
+            } catch (DuplicateKeyException ex) {
+                // Outra instância distribuiu os baldes ao mesmo tempo
+            }
+            carregados = lerDonos(jdbcTemplate);
+        }
+        for (int balde = 0; balde < BALDES; balde++) {
+            if (carregados[balde] < 0 || carregados[balde] >= quantidade()) {
+                throw new IllegalStateException(String.format("Balde %d no shard %d, mas há %d shards configurados",
+                    balde, carregados[balde], quantidade()));
+            }
+        }
+        return carregados;
+    }
+
+    private static int[] lerDonos(JdbcTemplate jdbcTemplate) {
+        int[] donos = new int[BALDES];
+        Arrays.fill(donos, -1);
+        jdbcTemplate.query("select balde, shard from shard_baldes", (RowCallbackHandler) rs -> donos[rs.getInt(1)] = rs.getInt(2));
+        return donos;
+    }
+
+    private <R> List<R> emParalelo(Collection<Integer> shards, IntFunction<R> leituraShard) {
+        List<CompletableFuture<R>> futuros = new ArrayList<>(shards.size());
+        for (int shard : shards) {
+            futuros.add(CompletableFuture.supplyAsync(
+                () -> noShard(shard, () -> leitura.execute(status -> leituraShard.apply(shard))), consultas));
+        }
+        List<R> resultados = new ArrayList<>(futuros.size());
+        try {
+            for (CompletableFuture<R> futuro : futuros) {
+                resultados.add(futuro.join());
+            }
+        } catch (CompletionException ex) {
+            throw ex.getCause() instanceof RuntimeException causa ? causa : ex;
+        }
+        return resultados;
+    }
+
+    // Próximo item de um shard, pulando os de baldes que não são dele
+    private final class Cabeca<T> {
+
+        private final int shard;
+        private final Iterator<T> itens;
+        private final ToLongFunction<T> extrator;
+        private T atual;
+
+        Cabeca(int shard, Iterator<T> itens, ToLongFunction<T> extrator) {
+            this.shard = shard;
+            this.itens = itens;
+            this.extrator = extrator;
+        }
+
+        boolean avancar() {
+            while (itens.hasNext()) {
+                T item = itens.next();
+                if (pertence(extrator.applyAsLong(item), shard)) {
+                    atual = item;
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.mballem.demoparkapi.datasource;
+
+import org.springframework.boot.actuate.endpoint.InvalidEndpointRequestException;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.lang.Nullable;
+
+import java.util.List;
+
+// /actuator/shards: baldes e usuários de cada shard; POST rebalanceia entre os primeiros "shards" shards (padrão: todos)
+@Endpoint(id = "shards")
+public class ShardsEndpoint {
+
+    private final RebalanceamentoShards rebalanceamento;
+    private final Shards shards;
+
+    public ShardsEndpoint(RebalanceamentoShards rebalanceamento, Shards shards) {
+        this.rebalanceamento = rebalanceamento;
+        this.shards = shards;
+    }
+
+    @ReadOperation
+    public List<RebalanceamentoShards.DistribuicaoShard> distribuicao() {
+        return rebalanceamento.distribuicao();
+    }
+
+    @WriteOperation
+    public RebalanceamentoShards.Resultado rebalancear(@Nullable Integer shards) {
+        int quantidade = shards != null ? shards : this.shards.quantidade();
+        if (quantidade < 1 || quantidade > this.shards.quantidade()) {
+            throw new InvalidEndpointRequestException("Quantidade de shards inválida: " + quantidade,
+                String.format("Informe entre 1 e %d shards", this.shards.quantidade()));
+        }
+        return rebalanceamento.rebalancear(quantidade);
+    }
+}
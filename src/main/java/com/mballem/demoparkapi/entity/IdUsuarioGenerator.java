@@ -0,0 +1,15 @@
+package com.mballem.demoparkapi.entity;
+
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+
+// Sequência pooled de sempre, mas respeita um id já atribuído: com sharding o id vem do diretório de usernames e
+// já traz o balde que escolhe o shard
+public class IdUsuarioGenerator extends SequenceStyleGenerator {
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        Long atribuido = ((Usuario) object).getId();
+        return atribuido != null ? atribuido : super.generate(session, object);
+    }
+}
@@ -4,6 +4,14 @@ import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.springframework.data.annotation.CreatedBy;
+import org.springframework.data.annotation.CreatedDate;
+import org.springframework.data.annotation.LastModifiedBy;
+import org.springframework.data.annotation.LastModifiedDate;
+import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import java.io.Serializable;
 import java.time.LocalDateTime;
@@ -12,9 +20,17 @@ import java.util.Objects;
 @Getter @Setter @NoArgsConstructor
 @Entity
 @Table(name = "usuarios")
+@EntityListeners(AuditingEntityListener.class)
 public class Usuario implements Serializable {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    // Sequência com otimizador pooled: reserva 50 ids por ida ao banco e permite batch de inserts no JDBC.
+    // Com sharding o id é atribuído antes do insert (IdUsuarioGenerator)
+    @GeneratedValue(generator = "usuarios_seq")
+    @GenericGenerator(name = "usuarios_seq", strategy = "com.mballem.demoparkapi.entity.IdUsuarioGenerator", parameters = {
+        @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "usuarios_seq"),
+        @Parameter(name = SequenceStyleGenerator.INITIAL_PARAM, value = "1"),
+        @Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "50")
+    })
     @Column(name = "id")
     private Long id;
     @Column(name = "username", nullable = false, unique = true, length = 100)
@@ -25,14 +41,22 @@ public class Usuario implements Serializable {
     @Column(name = "role", nullable = false, length = 25)
     private Role role = Role.ROLE_CLIENTE;
 
+    @CreatedDate
     @Column(name = "data_criacao")
     private LocalDateTime dataCriacao;
+    @LastModifiedDate
     @Column(name = "data_modificacao")
     private LocalDateTime dataModificacao;
+    @CreatedBy
     @Column(name = "criado_por")
     private String criadoPor;
+    @LastModifiedBy
     @Column(name = "modificado_por")
     private String modificadoPor;
+    // Incrementada a cada update; junto com o id forma o ETag (fraco) do recurso
+    @Version
+    @Column(name = "versao", nullable = false)
+    private Long versao;
 
     public enum Role {
         ROLE_ADMIN, ROLE_CLIENTE
@@ -0,0 +1,7 @@
+package com.mballem.demoparkapi.exception;
+
+public class BatchSizeExceededException extends DomainException {
+    public BatchSizeExceededException(String message){
+        super(message);
+    }
+}
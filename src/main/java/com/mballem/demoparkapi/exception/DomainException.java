@@ -0,0 +1,9 @@
+package com.mballem.demoparkapi.exception;
+
+// Base das exceções de regra de negócio que viram respostas 4xx/503. Não captura a pilha nem aceita
+// supressões: o handler só usa a mensagem, e preencher a pilha a cada 404 ou 409 é CPU desperdiçada
+public abstract class DomainException extends RuntimeException {
+    protected DomainException(String message){
+        super(message, null, false, false);
+    }
+}
@@ -1,6 +1,6 @@
 package com.mballem.demoparkapi.exception;
 
-public class EntityNotFoundException extends RuntimeException {
+public class EntityNotFoundException extends DomainException {
     public EntityNotFoundException(String message){
         super(message);
     }
@@ -0,0 +1,7 @@
+package com.mballem.demoparkapi.exception;
+
+public class IdempotencyKeyReuseException extends DomainException {
+    public IdempotencyKeyReuseException(String message){
+        super(message);
+    }
+}
@@ -0,0 +1,7 @@
+package com.mballem.demoparkapi.exception;
+
+public class InvalidCursorException extends DomainException {
+    public InvalidCursorException(String message){
+        super(message);
+    }
+}
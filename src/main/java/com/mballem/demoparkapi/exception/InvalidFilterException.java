@@ -0,0 +1,7 @@
+package com.mballem.demoparkapi.exception;
+
+public class InvalidFilterException extends DomainException {
+    public InvalidFilterException(String message){
+        super(message);
+    }
+}
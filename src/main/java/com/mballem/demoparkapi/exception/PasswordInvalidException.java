@@ -1,6 +1,6 @@
 package com.mballem.demoparkapi.exception;
 
-public class PasswordInvalidException extends RuntimeException {
+public class PasswordInvalidException extends DomainException {
     public PasswordInvalidException(String message){
         super(message);
     }
@@ -0,0 +1,7 @@
+package com.mballem.demoparkapi.exception;
+
+public class ServiceOverloadedException extends DomainException {
+    public ServiceOverloadedException(String message){
+        super(message);
+    }
+}
@@ -0,0 +1,31 @@
+package com.mballem.demoparkapi.metrics;
+
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+
+import java.util.List;
+
+// /actuator/consultas: consultas normalizadas mais caras do passado recente, por tempo total; DELETE zera o ranking
+@Endpoint(id = "consultas")
+public class ConsultasEndpoint {
+
+    private final RankingConsultas ranking;
+    private final int quantidadePadrao;
+
+    public ConsultasEndpoint(RankingConsultas ranking, int quantidadePadrao) {
+        this.ranking = ranking;
+        this.quantidadePadrao = quantidadePadrao;
+    }
+
+    @ReadOperation
+    public List<RankingConsultas.ConsultaResumo> maisCaras(@Nullable Integer quantidade) {
+        return ranking.maisCaras(quantidade != null ? quantidade : quantidadePadrao);
+    }
+
+    @DeleteOperation
+    public void limpar() {
+        ranking.limpar();
+    }
+}
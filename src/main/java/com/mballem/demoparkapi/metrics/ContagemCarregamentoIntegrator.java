@@ -0,0 +1,29 @@
+package com.mballem.demoparkapi.metrics;
+
+import org.hibernate.boot.Metadata;
+import org.hibernate.boot.spi.BootstrapContext;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostLoadEventListener;
+import org.hibernate.integrator.spi.Integrator;
+import org.hibernate.service.spi.SessionFactoryServiceRegistry;
+
+// Registra no Hibernate um listener de pós-carga que conta as entidades carregadas na requisição corrente
+public class ContagemCarregamentoIntegrator implements Integrator {
+
+    @Override
+    public void integrate(Metadata metadata, BootstrapContext bootstrapContext, SessionFactoryImplementor sessionFactory) {
+        PostLoadEventListener listener = event -> {
+            EstatisticasRequisicao estatisticas = EstatisticasRequisicao.atual();
+            if (estatisticas != null) {
+                estatisticas.entidadeCarregada();
+            }
+        };
+        sessionFactory.getServiceRegistry().getService(EventListenerRegistry.class).appendListeners(EventType.POST_LOAD, listener);
+    }
+
+    @Override
+    public void disintegrate(SessionFactoryImplementor sessionFactory, SessionFactoryServiceRegistry serviceRegistry) {
+    }
+}
@@ -0,0 +1,43 @@
+package com.mballem.demoparkapi.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.QueryType;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.listener.QueryUtils;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+// Conta cada comando JDBC por tipo (jdbc.statements) e na requisição corrente
+public class ContagemJdbcListener implements QueryExecutionListener {
+
+    private final Map<QueryType, Counter> contadores = new EnumMap<>(QueryType.class);
+
+    public ContagemJdbcListener(MeterRegistry meterRegistry) {
+        for (QueryType tipo : QueryType.values()) {
+            contadores.put(tipo, Counter.builder("jdbc.statements")
+                .description("Comandos JDBC executados")
+                .tag("tipo", tipo.name().toLowerCase())
+                .register(meterRegistry));
+        }
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        EstatisticasRequisicao estatisticas = EstatisticasRequisicao.atual();
+        for (QueryInfo queryInfo : queryInfoList) {
+            contadores.get(QueryUtils.getQueryType(queryInfo.getQuery())).increment();
+            if (estatisticas != null) {
+                estatisticas.comandoJdbc();
+            }
+        }
+    }
+}
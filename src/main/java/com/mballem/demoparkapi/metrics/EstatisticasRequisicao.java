@@ -0,0 +1,45 @@
+package com.mballem.demoparkapi.metrics;
+
+// Contadores da requisição em andamento na thread atual: comandos JDBC executados e entidades carregadas.
+// Só a própria thread lê e escreve, por isso os campos são simples e não há sincronização
+public final class EstatisticasRequisicao {
+
+    private static final ThreadLocal<EstatisticasRequisicao> ATUAL = new ThreadLocal<>();
+
+    private int comandosJdbc;
+    private int entidadesCarregadas;
+
+    private EstatisticasRequisicao() {
+    }
+
+    public static EstatisticasRequisicao iniciar() {
+        EstatisticasRequisicao estatisticas = new EstatisticasRequisicao();
+        ATUAL.set(estatisticas);
+        return estatisticas;
+    }
+
+    public static void encerrar() {
+        ATUAL.remove();
+    }
+
+    // Nulo fora de uma requisição HTTP (tarefas agendadas, aquecimento na subida, streaming assíncrono)
+    public static EstatisticasRequisicao atual() {
+        return ATUAL.get();
+    }
+
+    public void comandoJdbc() {
+        comandosJdbc++;
+    }
+
+    public void entidadeCarregada() {
+        entidadesCarregadas++;
+    }
+
+    public int getComandosJdbc() {
+        return comandosJdbc;
+    }
+
+    public int getEntidadesCarregadas() {
+        return entidadesCarregadas;
+    }
+}
@@ -0,0 +1,80 @@
+package com.mballem.demoparkapi.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+// Publica, por endpoint, quantos comandos JDBC e quantas entidades cada requisição precisou, e avisa
+// quando uma requisição passa do limite de comandos (sinal típico de N+1)
+@Slf4j
+public class EstatisticasRequisicaoFilter extends OncePerRequestFilter {
+
+    private final MeterRegistry meterRegistry;
+    private final int limiteComandos;
+    private final ConcurrentMap<String, Medidores> medidoresPorEndpoint = new ConcurrentHashMap<>();
+
+    public EstatisticasRequisicaoFilter(MeterRegistry meterRegistry, int limiteComandos) {
+        this.meterRegistry = meterRegistry;
+        this.limiteComandos = limiteComandos;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        EstatisticasRequisicao estatisticas = EstatisticasRequisicao.iniciar();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            EstatisticasRequisicao.encerrar();
+            // /stream e /exportacao respondem de forma assíncrona: o JDBC roda em outra thread, fora destes
+            // contadores, e publicar aqui só registraria zeros
+            if (!request.isAsyncStarted()) {
+                publicar(request, estatisticas);
+            }
+        }
+    }
+
+    private void publicar(HttpServletRequest request, EstatisticasRequisicao estatisticas) {
+        Object padrao = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = padrao != null ? padrao.toString() : "UNKNOWN";
+        if (estatisticas.getComandosJdbc() > limiteComandos) {
+            log.warn("Possível N+1: {} {} executou {} comandos JDBC e carregou {} entidades (limite {})",
+                request.getMethod(), request.getRequestURI(), estatisticas.getComandosJdbc(),
+                estatisticas.getEntidadesCarregadas(), limiteComandos);
+        }
+        Medidores medidores = medidoresPorEndpoint.computeIfAbsent(request.getMethod() + " " + uri,
+            chave -> criarMedidores(request.getMethod(), uri));
+        medidores.comandos().record(estatisticas.getComandosJdbc());
+        medidores.entidades().record(estatisticas.getEntidadesCarregadas());
+    }
+
+    // Registrados uma vez por endpoint; as requisições seguintes só gravam nos medidores já criados
+    private Medidores criarMedidores(String metodo, String uri) {
+        return new Medidores(
+            DistributionSummary.builder("http.server.requests.jdbc.statements")
+                .description("Comandos JDBC por requisição")
+                .tags("method", metodo, "uri", uri)
+                .publishPercentileHistogram()
+                .maximumExpectedValue(1000.0)
+                .register(meterRegistry),
+            DistributionSummary.builder("http.server.requests.entities.loaded")
+                .description("Entidades JPA carregadas por requisição")
+                .tags("method", metodo, "uri", uri)
+                .publishPercentileHistogram()
+                .maximumExpectedValue(1000.0)
+                .register(meterRegistry));
+    }
+
+    private record Medidores(DistributionSummary comandos, DistributionSummary entidades) {
+    }
+}
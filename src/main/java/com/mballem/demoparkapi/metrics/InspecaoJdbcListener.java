@@ -0,0 +1,140 @@
+package com.mballem.demoparkapi.metrics;
+
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.proxy.ParameterSetOperation;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+// Substitui o spring.jpa.show-sql: mede cada comando, alimenta o ranking de consultas e só loga os que
+// passam do limite, com o valor dos parâmetros da coluna password trocado por ***
+@Slf4j
+public class InspecaoJdbcListener implements QueryExecutionListener {
+
+    private static final String INICIO = InspecaoJdbcListener.class.getName();
+    private static final String REDIGIDO = "***";
+    private static final int[] NENHUMA = new int[0];
+
+    private static final Pattern INSERT = Pattern.compile("^\\s*insert\\s+into\\s+\\S+\\s*\\(([^)]*)\\)", Pattern.CASE_INSENSITIVE);
+    private static final Pattern LITERAL_TEXTO = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern COMPARACAO_SENHA = Pattern.compile("password\\s*(?:=|<>|!=|like)\\s*$", Pattern.CASE_INSENSITIVE);
+
+    private final long limiteNanos;
+    private final RankingConsultas ranking;
+    private final ConcurrentMap<String, int[]> posicoesSensiveis = new ConcurrentHashMap<>();
+
+    public InspecaoJdbcListener(long limiteNanos, RankingConsultas ranking) {
+        this.limiteNanos = limiteNanos;
+        this.ranking = ranking;
+    }
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        execInfo.addCustomValue(INICIO, System.nanoTime());
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        Long inicio = execInfo.getCustomValue(INICIO, Long.class);
+        if (inicio == null) {
+            return;
+        }
+        long nanos = System.nanoTime() - inicio;
+        for (QueryInfo queryInfo : queryInfoList) {
+            ranking.registrar(queryInfo.getQuery(), nanos);
+        }
+        if (nanos >= limiteNanos && log.isWarnEnabled()) {
+            for (QueryInfo queryInfo : queryInfoList) {
+                log.warn("Consulta lenta ({} ms{}): {} parâmetros={}", nanos / 1_000_000,
+                    execInfo.isBatch() ? ", lote de " + execInfo.getBatchSize() : "",
+                    comando(queryInfo.getQuery()), parametros(queryInfo));
+            }
+        }
+    }
+
+    // Comandos com valores literais (scripts, SQL montado à mão) que tocam a coluna password saem com os textos ocultos
+    private static String comando(String sql) {
+        if (sql.indexOf('\'') < 0 || !sql.toLowerCase(Locale.ROOT).contains("password")) {
+            return sql;
+        }
+        return LITERAL_TEXTO.matcher(sql).replaceAll("'" + REDIGIDO + "'");
+    }
+
+    // Uma lista por conjunto de parâmetros (vários no lote), na ordem dos ? do comando
+    private String parametros(QueryInfo queryInfo) {
+        int[] sensiveis = posicoesSensiveis.computeIfAbsent(queryInfo.getQuery(), InspecaoJdbcListener::posicoesSenha);
+        StringBuilder texto = new StringBuilder("[");
+        for (List<ParameterSetOperation> conjunto : queryInfo.getParametersList()) {
+            if (texto.length() > 1) {
+                texto.append(", ");
+            }
+            texto.append('(');
+            List<ParameterSetOperation> ordenado = conjunto.stream()
+                .filter(operacao -> operacao.getArgs().length > 1 && operacao.getArgs()[0] instanceof Integer)
+                .sorted(Comparator.comparingInt(operacao -> (Integer) operacao.getArgs()[0]))
+                .toList();
+            for (int i = 0; i < ordenado.size(); i++) {
+                Object[] args = ordenado.get(i).getArgs();
+                int posicao = (Integer) args[0];
+                if (i > 0) {
+                    texto.append(", ");
+                }
+                if (sensivel(sensiveis, posicao)) {
+                    texto.append(REDIGIDO);
+                } else {
+                    texto.append(ParameterSetOperation.isSetNullParameterOperation(ordenado.get(i)) ? null : args[1]);
+                }
+            }
+            texto.append(')');
+        }
+        return texto.append(']').toString();
+    }
+
+    private static boolean sensivel(int[] sensiveis, int posicao) {
+        for (int sensivel : sensiveis) {
+            if (sensivel == posicao) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Posições (a partir de 1) dos parâmetros ligados à coluna password: no insert pela lista de colunas,
+    // nos demais comandos pelos ? precedidos de "password =" (set do update e filtros do where)
+    static int[] posicoesSenha(String sql) {
+        if (!sql.toLowerCase(Locale.ROOT).contains("password")) {
+            return NENHUMA;
+        }
+        Matcher insert = INSERT.matcher(sql);
+        if (insert.find()) {
+            String[] colunas = insert.group(1).split(",");
+            for (int i = 0; i < colunas.length; i++) {
+                if (colunas[i].trim().equalsIgnoreCase("password")) {
+                    return new int[] { i + 1 };
+                }
+            }
+            return NENHUMA;
+        }
+        int[] posicoes = new int[0];
+        int parametro = 0;
+        for (int i = 0; i < sql.length(); i++) {
+            if (sql.charAt(i) == '?') {
+                parametro++;
+                if (COMPARACAO_SENHA.matcher(sql.substring(Math.max(0, i - 40), i)).find()) {
+                    posicoes = Arrays.copyOf(posicoes, posicoes.length + 1);
+                    posicoes[posicoes.length - 1] = parametro;
+                }
+            }
+        }
+        return posicoes;
+    }
+}
@@ -0,0 +1,139 @@
+package com.mballem.demoparkapi.metrics;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+// Tempo acumulado por consulta normalizada (literais e listas do IN trocados por ?), em janelas que se
+// renovam: a leitura soma a janela atual e a anterior, então o ranking reflete só o passado recente.
+// O registro é só contadores atômicos; a ordenação acontece na leitura
+public class RankingConsultas {
+
+    static final String OUTRAS = "(outras consultas)";
+
+    private static final Pattern LITERAL_TEXTO = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern LITERAL_NUMERO = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern LISTA_PARAMETROS = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern ESPACOS = Pattern.compile("\\s+");
+
+    private final int maximoConsultas;
+    private final long janelaNanos;
+    private final ConcurrentMap<String, String> normalizadas = new ConcurrentHashMap<>();
+    private final AtomicReference<Janela> atual;
+    private volatile Janela anterior = new Janela(0);
+
+    public RankingConsultas(int maximoConsultas, long janela, TimeUnit unidade) {
+        this.maximoConsultas = maximoConsultas;
+        this.janelaNanos = unidade.toNanos(janela);
+        this.atual = new AtomicReference<>(new Janela(System.nanoTime()));
+    }
+
+    public void registrar(String sql, long nanos) {
+        Janela janela = janelaCorrente();
+        String consulta = normalizadas.get(sql);
+        if (consulta == null) {
+            consulta = normalizar(sql);
+            // Consultas montadas com valores literais nunca se repetem; o cache para de crescer no limite
+            if (normalizadas.size() < maximoConsultas * 4) {
+                normalizadas.put(sql, consulta);
+            }
+        }
+        Estatistica estatistica = janela.consultas.get(consulta);
+        if (estatistica == null) {
+            if (janela.consultas.size() >= maximoConsultas) {
+                consulta = OUTRAS;
+            }
+            estatistica = janela.consultas.computeIfAbsent(consulta, k -> new Estatistica());
+        }
+        estatistica.execucoes.increment();
+        estatistica.nanosTotal.add(nanos);
+        estatistica.nanosMaximo.accumulate(nanos);
+    }
+
+    public List<ConsultaResumo> maisCaras(int quantidade) {
+        Map<String, ConsultaResumo> resumos = new HashMap<>();
+        somar(resumos, anterior);
+        somar(resumos, atual.get());
+        List<ConsultaResumo> ordenados = new ArrayList<>(resumos.values());
+        ordenados.sort(Comparator.comparingDouble(ConsultaResumo::tempoTotalMs).reversed());
+        return ordenados.size() > quantidade ? new ArrayList<>(ordenados.subList(0, quantidade)) : ordenados;
+    }
+
+    public void limpar() {
+        anterior = new Janela(0);
+        atual.set(new Janela(System.nanoTime()));
+    }
+
+    static String normalizar(String sql) {
+        String consulta = LITERAL_TEXTO.matcher(sql).replaceAll("?");
+        consulta = LITERAL_NUMERO.matcher(consulta).replaceAll("?");
+        consulta = LISTA_PARAMETROS.matcher(consulta).replaceAll("(?...)");
+        return ESPACOS.matcher(consulta).replaceAll(" ").trim();
+    }
+
+    private Janela janelaCorrente() {
+        Janela janela = atual.get();
+        long agora = System.nanoTime();
+        if (agora - janela.inicio >= janelaNanos) {
+            Janela nova = new Janela(agora);
+            if (atual.compareAndSet(janela, nova)) {
+                anterior = janela;
+                return nova;
+            }
+            return atual.get();
+        }
+        return janela;
+    }
+
+    private static void somar(Map<String, ConsultaResumo> resumos, Janela janela) {
+        janela.consultas.forEach((consulta, estatistica) -> {
+            long execucoes = estatistica.execucoes.sum();
+            if (execucoes == 0) {
+                return;
+            }
+            ConsultaResumo resumo = new ConsultaResumo(consulta, execucoes,
+                toMillis(estatistica.nanosTotal.sum()), toMillis(estatistica.nanosMaximo.get()));
+            resumos.merge(consulta, resumo, ConsultaResumo::somar);
+        });
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
+    public record ConsultaResumo(String consulta, long execucoes, double tempoTotalMs, double tempoMedioMs, double tempoMaximoMs) {
+
+        private ConsultaResumo(String consulta, long execucoes, double tempoTotalMs, double tempoMaximoMs) {
+            this(consulta, execucoes, tempoTotalMs, tempoTotalMs / execucoes, tempoMaximoMs);
+        }
+
+        private ConsultaResumo somar(ConsultaResumo outro) {
+            return new ConsultaResumo(consulta, execucoes + outro.execucoes,
+                tempoTotalMs + outro.tempoTotalMs, Math.max(tempoMaximoMs, outro.tempoMaximoMs));
+        }
+    }
+
+    private static final class Janela {
+        private final long inicio;
+        private final ConcurrentMap<String, Estatistica> consultas = new ConcurrentHashMap<>();
+
+        private Janela(long inicio) {
+            this.inicio = inicio;
+        }
+    }
+
+    private static final class Estatistica {
+        private final LongAdder execucoes = new LongAdder();
+        private final LongAdder nanosTotal = new LongAdder();
+        private final LongAccumulator nanosMaximo = new LongAccumulator(Math::max, 0);
+    }
+}
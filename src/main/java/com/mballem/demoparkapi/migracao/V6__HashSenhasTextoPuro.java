@@ -0,0 +1,52 @@
+package com.mballem.demoparkapi.migracao;
+
+import com.mballem.demoparkapi.service.PasswordHasher;
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Migração única que troca pelo hash bcrypt as senhas gravadas em texto puro antes do PasswordHasher, em lotes por
+// id. Em Java porque o bcrypt não existe em SQL: o Spring Boot entrega este bean ao Flyway da aplicação e o
+// SpringShardingConfig, ao dos shards extras. Roda antes de a aplicação atender requisições, então o
+// PasswordHasher só precisa conferir hashes
+@Component
+public class V6__HashSenhasTextoPuro extends BaseJavaMigration {
+
+    private static final int LOTE = 500;
+
+    private final PasswordHasher passwordHasher;
+
+    public V6__HashSenhasTextoPuro(PasswordHasher passwordHasher) {
+        this.passwordHasher = passwordHasher;
+    }
+
+    @Override
+    public void migrate(Context context) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new SingleConnectionDataSource(context.getConnection(), true));
+        long ultimoId = 0;
+        while (true) {
+            List<Long> ids = new ArrayList<>(LOTE);
+            List<String> senhas = new ArrayList<>(LOTE);
+            jdbcTemplate.query("select id, password from usuarios where id > ? and password not like '$2%' order by id limit " + LOTE,
+                rs -> {
+                    ids.add(rs.getLong(1));
+                    senhas.add(rs.getString(2));
+                }, ultimoId);
+            if (ids.isEmpty()) {
+                return;
+            }
+            List<String> hashes = passwordHasher.hashTodos(senhas);
+            List<Object[]> atualizacoes = new ArrayList<>(ids.size());
+            for (int i = 0; i < ids.size(); i++) {
+                atualizacoes.add(new Object[] {hashes.get(i), ids.get(i)});
+            }
+            jdbcTemplate.batchUpdate("update usuarios set password = ? where id = ?", atualizacoes);
+            ultimoId = ids.get(ids.size() - 1);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.mballem.demoparkapi.repository;
+
+import com.mballem.demoparkapi.entity.Usuario;
+
+import java.time.LocalDate;
+
+// Linha da contagem agrupada que reconstrói as estatísticas: usuários de um role cadastrados em um dia (nulo sem data)
+public record ContagemUsuarios(Usuario.Role role, LocalDate dia, Long total) {
+}
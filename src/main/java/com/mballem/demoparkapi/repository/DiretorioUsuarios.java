@@ -0,0 +1,51 @@
+package com.mballem.demoparkapi.repository;
+
+import com.mballem.demoparkapi.datasource.Shards;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+// Diretório username -> id do sharding, no shard 0 e fora das transações dos shards. A unique do username vale para
+// todos os shards, e a sequência da tabela dá o id global (Shards.id), que já diz em que shard o usuário mora.
+// Só é usado com sharding
+@Repository
+public class DiretorioUsuarios {
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    public DiretorioUsuarios(Shards shards) {
+        this.jdbcTemplate = shards.habilitado() ? new NamedParameterJdbcTemplate(shards.diretorio()) : null;
+    }
+
+    // DuplicateKeyException quando o username já está em qualquer shard
+    public long reservar(String username) {
+        KeyHolder chave = new GeneratedKeyHolder();
+        jdbcTemplate.getJdbcTemplate().update(conexao -> {
+            PreparedStatement ps = conexao.prepareStatement("insert into usuarios_diretorio (username) values (?)", Statement.RETURN_GENERATED_KEYS);
+            ps.setString(1, username);
+            return ps;
+        }, chave);
+        return Shards.id(chave.getKey().longValue());
+    }
+
+    // Desfaz a reserva de um cadastro que não chegou ao shard
+    public void liberar(String username) {
+        jdbcTemplate.getJdbcTemplate().update("delete from usuarios_diretorio where username = ?", username);
+    }
+
+    public boolean existe(String username) {
+        return !existentes(List.of(username)).isEmpty();
+    }
+
+    public List<String> existentes(Collection<String> usernames) {
+        return jdbcTemplate.queryForList("select username from usuarios_diretorio where username in (:usernames)",
+            Map.of("usernames", usernames), String.class);
+    }
+}
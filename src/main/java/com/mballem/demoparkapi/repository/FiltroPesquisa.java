@@ -0,0 +1,24 @@
+package com.mballem.demoparkapi.repository;
+
+import com.mballem.demoparkapi.entity.Usuario;
+
+import java.time.LocalDateTime;
+
+// Filtros da pesquisa de usuários; nulos são ignorados. O domínio é o trecho do username depois do @, comparado
+// por inteiro, e o intervalo de criação é fechado no início e aberto no fim
+public record FiltroPesquisa(String prefixo, String dominio, Usuario.Role role, LocalDateTime criadoDe, LocalDateTime criadoAte) {
+
+    public static String dominioDe(String username) {
+        return username.substring(username.indexOf('@') + 1);
+    }
+
+    public boolean aceita(Usuario.Role roleUsuario, LocalDateTime dataCriacao) {
+        if (role != null && role != roleUsuario) {
+            return false;
+        }
+        if (criadoDe != null && (dataCriacao == null || dataCriacao.isBefore(criadoDe))) {
+            return false;
+        }
+        return criadoAte == null || (dataCriacao != null && dataCriacao.isBefore(criadoAte));
+    }
+}
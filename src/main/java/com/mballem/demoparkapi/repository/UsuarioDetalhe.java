@@ -0,0 +1,9 @@
+package com.mballem.demoparkapi.repository;
+
+import com.mballem.demoparkapi.entity.Usuario;
+
+import java.time.LocalDateTime;
+
+// Projeção da leitura por id: as colunas da resposta mais versão e data de modificação, usadas no ETag e no Last-Modified
+public record UsuarioDetalhe(Long id, String username, Usuario.Role role, Long versao, LocalDateTime dataModificacao) {
+}
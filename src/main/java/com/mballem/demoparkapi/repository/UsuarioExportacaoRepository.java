@@ -0,0 +1,68 @@
+package com.mballem.demoparkapi.repository;
+
+import com.mballem.demoparkapi.entity.Usuario;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.jdbc.DatabaseDriver;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Percursos da tabela inteira (exportação, stream, aquecimento dos filtros) por JDBC puro: ResultSet somente-avanço,
+// e cada linha entregue ao consumidor assim que lida, sem contexto de persistência nem lista intermediária.
+// No MySQL, sem useCursorFetch na URL, o driver traz o resultado inteiro para a memória com qualquer fetch size
+// positivo; com Integer.MIN_VALUE ele lê linha a linha do socket. Enquanto o ResultSet está aberto a conexão
+// não serve a outro comando, por isso só as consultas deste template usam o modo
+@Repository
+public class UsuarioExportacaoRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UsuarioExportacaoRepository(DataSource dataSource,
+                                       @Value("${spring.datasource.url:}") String url,
+                                       @Value("${demopark.usuarios.exportacao.fetch-size:1000}") int fetchSize) {
+        // Template próprio para o fetch size não valer para as demais consultas
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(DatabaseDriver.fromJdbcUrl(url) == DatabaseDriver.MYSQL ? Integer.MIN_VALUE : fetchSize);
+    }
+
+    // Colunas da listagem em ordem de id, para o stream
+    public void percorrerResumos(Consumer<UsuarioResumo> consumidor) {
+        jdbcTemplate.query("select id, username, role from usuarios order by id", (RowCallbackHandler) rs ->
+            consumidor.accept(new UsuarioResumo(rs.getLong(1), rs.getString(2), Usuario.Role.valueOf(rs.getString(3)))));
+    }
+
+    public void percorrerUsernames(Consumer<String> consumidor) {
+        jdbcTemplate.query("select username from usuarios", (RowCallbackHandler) rs -> consumidor.accept(rs.getString(1)));
+    }
+
+    // Filtros nulos são ignorados; o intervalo de criação é fechado no início e aberto no fim
+    public void percorrer(Usuario.Role role, LocalDateTime criadoDe, LocalDateTime criadoAte, Consumer<UsuarioExportado> consumidor) {
+        StringBuilder sql = new StringBuilder("select id, username, role, data_criacao, data_modificacao from usuarios where 1 = 1");
+        List<Object> parametros = new ArrayList<>(3);
+        if (role != null) {
+            sql.append(" and role = ?");
+            parametros.add(role.name());
+        }
+        if (criadoDe != null) {
+            sql.append(" and data_criacao >= ?");
+            parametros.add(criadoDe);
+        }
+        if (criadoAte != null) {
+            sql.append(" and data_criacao < ?");
+            parametros.add(criadoAte);
+        }
+        sql.append(" order by id");
+        jdbcTemplate.query(sql.toString(), (RowCallbackHandler) rs -> consumidor.accept(new UsuarioExportado(
+            rs.getLong(1),
+            rs.getString(2),
+            Usuario.Role.valueOf(rs.getString(3)),
+            rs.getObject(4, LocalDateTime.class),
+            rs.getObject(5, LocalDateTime.class))), parametros.toArray());
+    }
+}
@@ -0,0 +1,9 @@
+package com.mballem.demoparkapi.repository;
+
+import com.mballem.demoparkapi.entity.Usuario;
+
+import java.time.LocalDateTime;
+
+// Linha da exportação: os dados do usuário sem senha e sem os campos internos de auditoria e versão
+public record UsuarioExportado(Long id, String username, Usuario.Role role, LocalDateTime dataCriacao, LocalDateTime dataModificacao) {
+}
@@ -0,0 +1,62 @@
+package com.mballem.demoparkapi.repository;
+
+import com.mballem.demoparkapi.entity.Usuario;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+
+// Pesquisa por prefixo e domínio do username em ordem de username, paginada por keyset (username maior que o último
+// da página anterior). O prefixo vira um like 'abc%', que usa a unique do username; o domínio usa o índice
+// (dominio, username) e o role sem prefixo nem domínio o (role, username). A data de criação só filtra
+@Repository
+public class UsuarioPesquisaRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public UsuarioPesquisaRepository(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    public List<UsuarioResumo> pesquisar(FiltroPesquisa filtro, String aposUsername, int tamanho) {
+        StringBuilder sql = new StringBuilder("select id, username, role from usuarios where 1 = 1");
+        List<Object> parametros = new ArrayList<>(6);
+        if (filtro.prefixo() != null) {
+            sql.append(" and username like ? escape '!'");
+            parametros.add(filtro.prefixo().replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%");
+        }
+        if (filtro.dominio() != null) {
+            sql.append(" and dominio = ?");
+            parametros.add(filtro.dominio());
+        }
+        if (filtro.role() != null) {
+            sql.append(" and role = ?");
+            parametros.add(filtro.role().name());
+        }
+        if (filtro.criadoDe() != null) {
+            sql.append(" and data_criacao >= ?");
+            parametros.add(filtro.criadoDe());
+        }
+        if (filtro.criadoAte() != null) {
+            sql.append(" and data_criacao < ?");
+            parametros.add(filtro.criadoAte());
+        }
+        if (aposUsername != null) {
+            sql.append(" and username > ?");
+            parametros.add(aposUsername);
+        }
+        sql.append(" order by username");
+        // maxRows no lugar de limit/fetch first, que mudam entre H2 e MySQL
+        return jdbcTemplate.query(conexao -> {
+            PreparedStatement ps = conexao.prepareStatement(sql.toString());
+            ps.setMaxRows(tamanho);
+            for (int i = 0; i < parametros.size(); i++) {
+                ps.setObject(i + 1, parametros.get(i));
+            }
+            return ps;
+        }, (rs, linha) -> new UsuarioResumo(rs.getLong(1), rs.getString(2), Usuario.Role.valueOf(rs.getString(3))));
+    }
+}
@@ -1,7 +1,50 @@
 package com.mballem.demoparkapi.repository;
 
 import com.mballem.demoparkapi.entity.Usuario;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
 
 public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
-}
\ No newline at end of file
+
+    // As leituras que viram resposta usam projeções por construtor: o select traz só as colunas necessárias
+    // e o resultado não é entidade gerenciada, então o Hibernate não guarda snapshot para dirty checking.
+    // readOnly explícito: com o roteamento habilitado, as leituras chamadas fora de transação vão para a réplica
+    @Transactional(readOnly = true)
+    @Query("select new com.mballem.demoparkapi.repository.UsuarioDetalhe(u.id, u.username, u.role, u.versao, u.dataModificacao) from Usuario u where u.id = :id")
+    Optional<UsuarioDetalhe> buscarDetalhe(@Param("id") Long id);
+
+    @Transactional(readOnly = true)
+    @Query("select new com.mballem.demoparkapi.repository.UsuarioDetalhe(u.id, u.username, u.role, u.versao, u.dataModificacao) from Usuario u where u.id in :ids")
+    List<UsuarioDetalhe> buscarDetalhes(@Param("ids") Collection<Long> ids);
+
+    @Transactional(readOnly = true)
+    @Query("select new com.mballem.demoparkapi.repository.UsuarioResumo(u.id, u.username, u.role) from Usuario u order by u.id")
+    List<UsuarioResumo> buscarResumos();
+
+    // Paginação por keyset: usa o índice da chave primária em vez de OFFSET
+    @Transactional(readOnly = true)
+    @Query("select new com.mballem.demoparkapi.repository.UsuarioResumo(u.id, u.username, u.role) from Usuario u where u.id > :id order by u.id")
+    List<UsuarioResumo> buscarResumosApos(@Param("id") Long id, Pageable pageable);
+
+    @Query("select u.username from Usuario u where u.username in :usernames")
+    List<String> findUsernamesIn(@Param("usernames") Collection<String> usernames);
+
+    boolean existsByUsername(String username);
+
+    @Transactional(readOnly = true)
+    @Query("select new com.mballem.demoparkapi.repository.VersaoUsuarios(count(u), coalesce(sum(u.versao), 0), max(u.dataModificacao)) from Usuario u")
+    VersaoUsuarios buscarVersao();
+
+    // Uma só consulta agrupada dá os totais por role e os cadastros por dia
+    @Transactional(readOnly = true)
+    @Query("select new com.mballem.demoparkapi.repository.ContagemUsuarios(u.role, cast(u.dataCriacao as LocalDate), count(u)) "
+        + "from Usuario u group by u.role, cast(u.dataCriacao as LocalDate)")
+    List<ContagemUsuarios> contarPorRoleEDia();
+}
@@ -0,0 +1,183 @@
+package com.mballem.demoparkapi.repository;
+
+import com.mballem.demoparkapi.entity.Usuario;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.Readable;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.domain.AuditorAware;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Locale;
+
+// Acesso aos usuários pela pilha reativa (R2DBC). Mesma tabela e mesmas regras do mapeamento JPA:
+// ids da sequência usuarios_seq em blocos de 50, auditoria preenchida no insert e no update e versão
+// incrementada a cada alteração. As leituras devolvem as mesmas projeções do UsuarioRepository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@Repository
+public class UsuarioRepositoryReativo {
+
+    // Igual ao allocationSize do @SequenceGenerator de Usuario: o bloco [valor - 49, valor] é reservado por quem lê o valor
+    private static final int INCREMENTO_SEQUENCIA = 50;
+    private static final int FETCH_SIZE = 500;
+
+    private final DatabaseClient databaseClient;
+    private final AuditorAware<String> auditorAware;
+    private final boolean mysql;
+
+    private final Object travaIds = new Object();
+    private long proximoId = 1;
+    private long ultimoId = 0;
+
+    public UsuarioRepositoryReativo(DatabaseClient databaseClient, ConnectionFactory connectionFactory, AuditorAware<String> auditorAware) {
+        this.databaseClient = databaseClient;
+        this.auditorAware = auditorAware;
+        this.mysql = connectionFactory.getMetadata().getName().toLowerCase(Locale.ROOT).contains("mysql");
+    }
+
+    public Mono<UsuarioDetalhe> buscarDetalhe(Long id) {
+        return databaseClient.sql("select id, username, role, versao, data_modificacao from usuarios where id = :id")
+            .bind("id", id)
+            .map(row -> new UsuarioDetalhe(row.get("id", Long.class), row.get("username", String.class), role(row),
+                row.get("versao", Long.class), row.get("data_modificacao", LocalDateTime.class)))
+            .one();
+    }
+
+    public Flux<UsuarioDetalhe> buscarDetalhes(Collection<Long> ids) {
+        return databaseClient.sql("select id, username, role, versao, data_modificacao from usuarios where id in (:ids)")
+            .bind("ids", ids)
+            .map(row -> new UsuarioDetalhe(row.get("id", Long.class), row.get("username", String.class), role(row),
+                row.get("versao", Long.class), row.get("data_modificacao", LocalDateTime.class)))
+            .all();
+    }
+
+    // Cursor com fetch size: as linhas chegam conforme a demanda de quem consome o Flux
+    public Flux<UsuarioResumo> buscarResumos() {
+        return databaseClient.sql("select id, username, role from usuarios order by id")
+            .filter((statement, next) -> next.execute(statement.fetchSize(FETCH_SIZE)))
+            .map(UsuarioRepositoryReativo::resumo)
+            .all();
+    }
+
+    // Paginação por keyset: usa o índice da chave primária em vez de OFFSET
+    public Flux<UsuarioResumo> buscarResumosApos(long id, int limite) {
+        return databaseClient.sql("select id, username, role from usuarios where id > :id order by id limit :limite")
+            .bind("id", id)
+            .bind("limite", limite)
+            .map(UsuarioRepositoryReativo::resumo)
+            .all();
+    }
+
+    public Mono<VersaoUsuarios> buscarVersao() {
+        return databaseClient.sql("select count(*) as total, coalesce(sum(versao), 0) as soma, max(data_modificacao) as ultima from usuarios")
+            .map(row -> new VersaoUsuarios(row.get("total", Number.class).longValue(), row.get("soma", Number.class).longValue(),
+                row.get("ultima", LocalDateTime.class)))
+            .one();
+    }
+
+    public Mono<Boolean> existePorUsername(String username) {
+        return databaseClient.sql("select 1 from usuarios where username = :username")
+            .bind("username", username)
+            .map(row -> Boolean.TRUE)
+            .first()
+            .hasElement();
+    }
+
+    public Flux<String> buscarUsernamesEm(Collection<String> usernames) {
+        return databaseClient.sql("select username from usuarios where username in (:usernames)")
+            .bind("usernames", usernames)
+            .map(row -> row.get("username", String.class))
+            .all();
+    }
+
+    public Mono<String> buscarSenha(Long id) {
+        return databaseClient.sql("select password from usuarios where id = :id")
+            .bind("id", id)
+            .map(row -> row.get("password", String.class))
+            .one();
+    }
+
+    public Mono<Usuario> inserir(Usuario usuario) {
+        return proximoId().flatMap(id -> {
+            LocalDateTime agora = LocalDateTime.now();
+            String auditor = auditorAware.getCurrentAuditor().orElse(null);
+            DatabaseClient.GenericExecuteSpec insert = databaseClient.sql("insert into usuarios " +
+                    "(id, username, password, role, data_criacao, data_modificacao, criado_por, modificado_por, versao) " +
+                    "values (:id, :username, :password, :role, :agora, :agora, :auditor, :auditor, 0)")
+                .bind("id", id)
+                .bind("username", usuario.getUsername())
+                .bind("password", usuario.getPassword())
+                .bind("role", usuario.getRole().name())
+                .bind("agora", agora);
+            insert = auditor != null ? insert.bind("auditor", auditor) : insert.bindNull("auditor", String.class);
+            return insert.then().then(Mono.fromSupplier(() -> {
+                usuario.setId(id);
+                usuario.setVersao(0L);
+                usuario.setDataCriacao(agora);
+                usuario.setDataModificacao(agora);
+                usuario.setCriadoPor(auditor);
+                usuario.setModificadoPor(auditor);
+                return usuario;
+            }));
+        });
+    }
+
+    // Troca condicionada ao hash lido antes: zero linhas alteradas significa que outra troca de senha venceu a corrida
+    public Mono<Long> atualizarSenha(Long id, String hashAtual, String novoHash) {
+        String auditor = auditorAware.getCurrentAuditor().orElse(null);
+        DatabaseClient.GenericExecuteSpec update = databaseClient.sql("update usuarios set password = :novo, versao = versao + 1, " +
+                "data_modificacao = :agora, modificado_por = :auditor where id = :id and password = :atual")
+            .bind("novo", novoHash)
+            .bind("agora", LocalDateTime.now())
+            .bind("id", id)
+            .bind("atual", hashAtual);
+        update = auditor != null ? update.bind("auditor", auditor) : update.bindNull("auditor", String.class);
+        return update.fetch().rowsUpdated();
+    }
+
+    private Mono<Long> proximoId() {
+        synchronized (travaIds) {
+            if (proximoId <= ultimoId) {
+                return Mono.just(proximoId++);
+            }
+        }
+        return reservarBloco().map(limite -> {
+            synchronized (travaIds) {
+                // Outra reserva concorrente pode ter chegado antes; o bloco excedente é descartado, nunca repetido
+                if (proximoId > ultimoId) {
+                    proximoId = Math.max(1, limite - INCREMENTO_SEQUENCIA + 1);
+                    ultimoId = limite;
+                }
+                return proximoId++;
+            }
+        });
+    }
+
+    // No MySQL o Hibernate emula a sequência com a tabela usuarios_seq (coluna next_val) e usa o valor anterior ao incremento
+    private Mono<Long> reservarBloco() {
+        if (!mysql) {
+            return databaseClient.sql("select next value for usuarios_seq")
+                .map(row -> row.get(0, Long.class))
+                .one();
+        }
+        return databaseClient.inConnection(conexao -> Mono.from(conexao
+                .createStatement("update usuarios_seq set next_val = last_insert_id(next_val + " + INCREMENTO_SEQUENCIA + ")")
+                .execute())
+            .flatMap(resultado -> Mono.from(resultado.getRowsUpdated()))
+            .then(Mono.from(conexao.createStatement("select last_insert_id()").execute()))
+            .flatMap(resultado -> Mono.from(resultado.map(row -> row.get(0, Long.class))))
+            .map(novo -> novo - INCREMENTO_SEQUENCIA));
+    }
+
+    private static UsuarioResumo resumo(Readable row) {
+        return new UsuarioResumo(row.get("id", Long.class), row.get("username", String.class), role(row));
+    }
+
+    private static Usuario.Role role(Readable row) {
+        return Usuario.Role.valueOf(row.get("role", String.class));
+    }
+}
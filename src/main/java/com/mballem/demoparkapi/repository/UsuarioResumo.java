@@ -0,0 +1,7 @@
+package com.mballem.demoparkapi.repository;
+
+import com.mballem.demoparkapi.entity.Usuario;
+
+// Projeção das listagens: só as colunas da resposta, fora do contexto de persistência (sem password nem auditoria)
+public record UsuarioResumo(Long id, String username, Usuario.Role role) {
+}
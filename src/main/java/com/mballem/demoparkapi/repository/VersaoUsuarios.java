@@ -0,0 +1,7 @@
+package com.mballem.demoparkapi.repository;
+
+import java.time.LocalDateTime;
+
+// Validador da coleção de usuários: muda a cada insert (total), update (soma das versões, data) ou delete (total)
+public record VersaoUsuarios(Long total, Long somaVersoes, LocalDateTime ultimaModificacao) {
+}
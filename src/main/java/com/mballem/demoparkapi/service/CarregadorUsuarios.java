@@ -0,0 +1,128 @@
+package com.mballem.demoparkapi.service;
+
+import com.mballem.demoparkapi.datasource.LeituraPropria;
+import com.mballem.demoparkapi.datasource.Shards;
+import com.mballem.demoparkapi.repository.UsuarioDetalhe;
+import com.mballem.demoparkapi.repository.UsuarioRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+// Carrega do banco as projeções UsuarioDetalhe que faltam no cache. Vários ids saem em consultas IN de até
+// tamanho-consulta ids cada. Com a coalescência habilitada, as buscas por um único id feitas ao mesmo tempo
+// entram em um lote comum: a primeira espera a janela (ou o lote encher) e faz uma só consulta por todas.
+// Com sharding cada id é lido no shard dono do seu balde, e um lote vira uma consulta por shard
+@Component
+public class CarregadorUsuarios {
+
+    private final UsuarioRepository usuarioRepository;
+    private final LeituraPropria leituraPropria;
+    private final Shards shards;
+    private final int tamanhoConsulta;
+    private final boolean coalescencia;
+    private final long janelaNanos;
+
+    // Lote ainda aceitando ids, protegido pelo monitor do objeto
+    private Lote aberto;
+
+    public CarregadorUsuarios(UsuarioRepository usuarioRepository,
+                              LeituraPropria leituraPropria,
+                              Shards shards,
+                              @Value("${demopark.usuarios.busca-ids.tamanho-consulta:100}") int tamanhoConsulta,
+                              @Value("${demopark.usuarios.coalescencia.habilitado:false}") boolean coalescencia,
+                              @Value("${demopark.usuarios.coalescencia.janela:2ms}") Duration janela) {
+        this.usuarioRepository = usuarioRepository;
+        this.leituraPropria = leituraPropria;
+        this.shards = shards;
+        this.tamanhoConsulta = tamanhoConsulta;
+        this.coalescencia = coalescencia;
+        this.janelaNanos = janela.toNanos();
+    }
+
+    public Optional<UsuarioDetalhe> carregar(Long id) {
+        if (!coalescencia) {
+            return leituraPropria.ler(id, () -> shards.noShardDoId(id, () -> usuarioRepository.buscarDetalhe(id)));
+        }
+        Lote lote;
+        CompletableFuture<UsuarioDetalhe> futuro;
+        boolean lider;
+        synchronized (this) {
+            lider = aberto == null;
+            if (lider) {
+                aberto = new Lote();
+            }
+            lote = aberto;
+            futuro = lote.futuros.computeIfAbsent(id, chave -> new CompletableFuture<>());
+            if (lote.futuros.size() >= tamanhoConsulta) {
+                aberto = null;
+                notifyAll();
+            }
+        }
+        if (lider) {
+            executar(lote);
+        }
+        try {
+            return Optional.ofNullable(futuro.join());
+        } catch (CompletionException ex) {
+            throw ex.getCause() instanceof RuntimeException causa ? causa : ex;
+        }
+    }
+
+    // Os ids não encontrados ficam fora do mapa
+    public Map<Long, UsuarioDetalhe> carregar(Collection<? extends Long> ids) {
+        Map<Long, UsuarioDetalhe> encontrados = new HashMap<>(ids.size() * 2);
+        for (Map<Long, UsuarioDetalhe> doShard : shards.lerAgrupados(new ArrayList<>(ids), this::carregarNoShard)) {
+            encontrados.putAll(doShard);
+        }
+        return encontrados;
+    }
+
+    private Map<Long, UsuarioDetalhe> carregarNoShard(List<Long> lista) {
+        Map<Long, UsuarioDetalhe> encontrados = new HashMap<>(lista.size() * 2);
+        for (int inicio = 0; inicio < lista.size(); inicio += tamanhoConsulta) {
+            List<Long> fatia = lista.subList(inicio, Math.min(inicio + tamanhoConsulta, lista.size()));
+            for (UsuarioDetalhe usuario : leituraPropria.lerVarios(fatia, () -> usuarioRepository.buscarDetalhes(fatia))) {
+                encontrados.put(usuario.id(), usuario);
+            }
+        }
+        return encontrados;
+    }
+
+    private void executar(Lote lote) {
+        synchronized (this) {
+            long prazo = System.nanoTime() + janelaNanos;
+            long restante;
+            while (aberto == lote && (restante = prazo - System.nanoTime()) > 0) {
+                try {
+                    wait(restante / 1_000_000, (int) (restante % 1_000_000));
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+            if (aberto == lote) {
+                aberto = null;
+            }
+        }
+        try {
+            Map<Long, UsuarioDetalhe> encontrados = carregar(lote.futuros.keySet());
+            lote.futuros.forEach((id, futuro) -> futuro.complete(encontrados.get(id)));
+        } catch (RuntimeException ex) {
+            lote.futuros.values().forEach(futuro -> futuro.completeExceptionally(ex));
+        }
+    }
+
+    private static final class Lote {
+        // Só alterado enquanto o lote está aberto; o líder lê depois de fechá-lo, sob o mesmo monitor
+        private final Map<Long, CompletableFuture<UsuarioDetalhe>> futuros = new HashMap<>();
+    }
+}
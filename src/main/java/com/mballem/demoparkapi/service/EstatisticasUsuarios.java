@@ -0,0 +1,166 @@
+package com.mballem.demoparkapi.service;
+
+import com.mballem.demoparkapi.datasource.Shards;
+import com.mballem.demoparkapi.entity.Usuario;
+import com.mballem.demoparkapi.repository.ContagemUsuarios;
+import com.mballem.demoparkapi.repository.UsuarioRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+// Totais por role e cadastros por dia mantidos em memória: a leitura não vai ao banco, e cada cadastro soma em
+// LongAdders, sem disputa entre cadastros simultâneos. Na subida e a cada reconciliacao a base é refeita por uma
+// consulta agrupada, que também corrige o que os contadores não viram (outras instâncias, scripts, alterações
+// direto no banco)
+@Slf4j
+@Component
+public class EstatisticasUsuarios implements AutoCloseable {
+
+    private static final Usuario.Role[] ROLES = Usuario.Role.values();
+
+    private final UsuarioRepository usuarioRepository;
+    private final Shards shards;
+    private final ScheduledExecutorService reconciliacao;
+    private volatile Geracao atual = new Geracao(new long[ROLES.length], Collections.emptyNavigableMap(), new Contadores(), null);
+
+    public EstatisticasUsuarios(UsuarioRepository usuarioRepository, Shards shards,
+                                @Value("${demopark.usuarios.estatisticas.reconciliacao:10m}") Duration intervalo) {
+        this.usuarioRepository = usuarioRepository;
+        this.shards = shards;
+        this.reconciliacao = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+            Thread thread = new Thread(tarefa, "estatisticas-reconciliacao");
+            thread.setDaemon(true);
+            return thread;
+        });
+        reconciliacao.scheduleWithFixedDelay(this::reconciliarAgendado, intervalo.toMillis(), intervalo.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void carregar() {
+        reconciliar();
+        log.info("Estatísticas de usuários carregadas: {} usuários", retrato(1).total());
+    }
+
+    // Dentro de uma transação o cadastro só conta depois do commit, como os eventos do feed
+    public void registrarCadastro(Usuario.Role role, LocalDateTime dataCriacao) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    atual.contadores.somar(role, dataCriacao);
+                }
+            });
+        } else {
+            atual.contadores.somar(role, dataCriacao);
+        }
+    }
+
+    // Custo proporcional aos roles e aos dias pedidos, qualquer que seja o tamanho da tabela
+    public Retrato retrato(int dias) {
+        Geracao geracao = atual;
+        Map<Usuario.Role, Long> porRole = new EnumMap<>(Usuario.Role.class);
+        long total = 0;
+        for (Usuario.Role role : ROLES) {
+            long quantidade = geracao.porRole[role.ordinal()] + geracao.contadores.porRole[role.ordinal()].sum();
+            porRole.put(role, quantidade);
+            total += quantidade;
+        }
+        LocalDate desde = LocalDate.now().minusDays(dias - 1L);
+        NavigableMap<LocalDate, Long> porDia = new TreeMap<>(geracao.porDia.tailMap(desde, true));
+        geracao.contadores.porDia.forEach((dia, quantidade) -> {
+            if (!dia.isBefore(desde)) {
+                porDia.merge(dia, quantidade.sum(), Long::sum);
+            }
+        });
+        return new Retrato(total, porRole, porDia, geracao.reconciliadoEm);
+    }
+
+    // Os contadores em uso viram base antes da consulta e os cadastros seguintes vão para contadores novos, que
+    // sobrevivem à troca da base. Um cadastro confirmado entre a troca e o início da consulta conta duas vezes até
+    // a próxima reconciliação
+    public synchronized void reconciliar() {
+        Contadores novos = new Contadores();
+        atual = atual.consolidada(novos);
+        long[] porRole = new long[ROLES.length];
+        NavigableMap<LocalDate, Long> porDia = new TreeMap<>();
+        for (List<ContagemUsuarios> contagens : shards.lerTodos(usuarioRepository::contarPorRoleEDia)) {
+            for (ContagemUsuarios contagem : contagens) {
+                porRole[contagem.role().ordinal()] += contagem.total();
+                if (contagem.dia() != null) {
+                    porDia.merge(contagem.dia(), contagem.total(), Long::sum);
+                }
+            }
+        }
+        atual = new Geracao(porRole, porDia, novos, LocalDateTime.now());
+    }
+
+    @Override
+    public void close() {
+        reconciliacao.shutdownNow();
+    }
+
+    private void reconciliarAgendado() {
+        try {
+            reconciliar();
+        } catch (RuntimeException ex) {
+            log.warn("Falha na reconciliação das estatísticas de usuários; os contadores seguem somando", ex);
+        }
+    }
+
+    public record Retrato(long total, Map<Usuario.Role, Long> porRole, NavigableMap<LocalDate, Long> porDia,
+                          LocalDateTime reconciliadoEm) {
+    }
+
+    // Base imutável da última reconciliação mais os contadores dos cadastros posteriores a ela
+    private record Geracao(long[] porRole, NavigableMap<LocalDate, Long> porDia, Contadores contadores,
+                           LocalDateTime reconciliadoEm) {
+
+        Geracao consolidada(Contadores novos) {
+            long[] somados = porRole.clone();
+            NavigableMap<LocalDate, Long> somadosPorDia = new TreeMap<>(porDia);
+            for (int i = 0; i < somados.length; i++) {
+                somados[i] += contadores.porRole[i].sum();
+            }
+            contadores.porDia.forEach((dia, quantidade) -> somadosPorDia.merge(dia, quantidade.sum(), Long::sum));
+            return new Geracao(somados, somadosPorDia, novos, reconciliadoEm);
+        }
+    }
+
+    private static final class Contadores {
+
+        private final LongAdder[] porRole = new LongAdder[ROLES.length];
+        private final Map<LocalDate, LongAdder> porDia = new ConcurrentHashMap<>();
+
+        Contadores() {
+            for (int i = 0; i < porRole.length; i++) {
+                porRole[i] = new LongAdder();
+            }
+        }
+
+        void somar(Usuario.Role role, LocalDateTime dataCriacao) {
+            porRole[role.ordinal()].increment();
+            if (dataCriacao != null) {
+                porDia.computeIfAbsent(dataCriacao.toLocalDate(), dia -> new LongAdder()).increment();
+            }
+        }
+    }
+}
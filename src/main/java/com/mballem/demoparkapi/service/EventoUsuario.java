@@ -0,0 +1,15 @@
+package com.mballem.demoparkapi.service;
+
+import com.mballem.demoparkapi.repository.UsuarioResumo;
+
+import java.time.Instant;
+
+// Alteração de usuário já confirmada no banco. O id é "geração-sequência": a geração muda a cada subida da
+// aplicação, então um Last-Event-ID de antes de um restart nunca é confundido com a sequência nova.
+// RESSINCRONIZAR não vem do banco (usuario nulo): avisa o inscrito que o histórico pedido não existe mais
+public record EventoUsuario(String id, long sequencia, Tipo tipo, UsuarioResumo usuario, Instant instante) {
+
+    public enum Tipo {
+        USUARIO_CRIADO, SENHA_ALTERADA, RESSINCRONIZAR
+    }
+}
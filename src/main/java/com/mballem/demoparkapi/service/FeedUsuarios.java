@@ -0,0 +1,107 @@
+package com.mballem.demoparkapi.service;
+
+import com.mballem.demoparkapi.repository.UsuarioResumo;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Feed das alterações de usuários: os últimos eventos ficam em um anel de tamanho fixo, para quem reconecta com o
+// último id recebido retomar de onde parou. Publicar e inscrever disputam o mesmo monitor, então o inscrito recebe
+// o histórico e depois os novos eventos sem perder nem repetir nenhum. A entrega roda com o monitor preso: o
+// inscrito só enfileira, e o envio fica por conta dele
+@Component
+public class FeedUsuarios {
+
+    public interface Inscrito {
+
+        void historico(List<EventoUsuario> eventos);
+
+        void novo(EventoUsuario evento);
+    }
+
+    private final String geracao = Long.toString(System.currentTimeMillis(), 36);
+    private final EventoUsuario[] anel;
+    private final Set<Inscrito> inscritos = ConcurrentHashMap.newKeySet();
+
+    // Protegido pelo monitor do objeto
+    private long ultimaSequencia;
+
+    public FeedUsuarios(@Value("${demopark.usuarios.eventos.historico:1000}") int historico) {
+        this.anel = new EventoUsuario[historico];
+    }
+
+    // Dentro de uma transação o evento só sai depois do commit (e não sai no rollback); fora dela a escrita
+    // já foi confirmada pela transação do próprio repositório
+    public void publicar(EventoUsuario.Tipo tipo, UsuarioResumo usuario) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    distribuir(tipo, usuario);
+                }
+            });
+        } else {
+            distribuir(tipo, usuario);
+        }
+    }
+
+    // Sem ultimoId o inscrito recebe só os próximos eventos. Com um id desta geração ainda no anel, recebe antes os
+    // eventos posteriores a ele; com um id velho demais, de outra geração ou inválido, recebe um RESSINCRONIZAR
+    // (recarregar a lista) com o id atual, para retomar dali na próxima reconexão
+    public synchronized void inscrever(String ultimoId, Inscrito inscrito) {
+        if (ultimoId != null && !ultimoId.isBlank()) {
+            inscrito.historico(historicoApos(ultimoId.trim()));
+        }
+        inscritos.add(inscrito);
+    }
+
+    public void cancelar(Inscrito inscrito) {
+        inscritos.remove(inscrito);
+    }
+
+    private synchronized void distribuir(EventoUsuario.Tipo tipo, UsuarioResumo usuario) {
+        long sequencia = ++ultimaSequencia;
+        EventoUsuario evento = new EventoUsuario(id(sequencia), sequencia, tipo, usuario, Instant.now());
+        anel[(int) (sequencia % anel.length)] = evento;
+        for (Inscrito inscrito : inscritos) {
+            inscrito.novo(evento);
+        }
+    }
+
+    private List<EventoUsuario> historicoApos(String ultimoId) {
+        long sequencia = sequencia(ultimoId);
+        if (sequencia < 0 || sequencia > ultimaSequencia || sequencia < ultimaSequencia - anel.length) {
+            return List.of(new EventoUsuario(id(ultimaSequencia), ultimaSequencia, EventoUsuario.Tipo.RESSINCRONIZAR,
+                null, Instant.now()));
+        }
+        List<EventoUsuario> eventos = new ArrayList<>((int) (ultimaSequencia - sequencia));
+        for (long proxima = sequencia + 1; proxima <= ultimaSequencia; proxima++) {
+            eventos.add(anel[(int) (proxima % anel.length)]);
+        }
+        return eventos;
+    }
+
+    private String id(long sequencia) {
+        return geracao + "-" + sequencia;
+    }
+
+    // -1 quando o id não é desta geração ou não tem o formato geração-sequência
+    private long sequencia(String id) {
+        int separador = id.lastIndexOf('-');
+        if (separador < 0 || !id.substring(0, separador).equals(geracao)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(id.substring(separador + 1));
+        } catch (NumberFormatException ex) {
+            return -1;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package com.mballem.demoparkapi.service;
+
+import com.mballem.demoparkapi.datasource.Shards;
+import com.mballem.demoparkapi.entity.Usuario;
+import com.mballem.demoparkapi.repository.FiltroPesquisa;
+import com.mballem.demoparkapi.repository.UsuarioExportacaoRepository;
+import com.mballem.demoparkapi.repository.UsuarioResumo;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Índice em memória da pesquisa por prefixo e domínio (opcional): dois mapas ordenados, por username e por
+// domínio + username, em que um prefixo é uma faixa de chaves. Carregado na subida e refeito a cada recarga, que
+// também traz os cadastros de outras instâncias; os desta instância entram na hora pelo UsuarioService.
+// Com o índice ainda vazio, ou desligado, a pesquisa vai ao banco
+@Slf4j
+@Component
+public class IndiceUsernames implements AutoCloseable {
+
+    // Menor que qualquer caractere de um username: separa o domínio do username na chave do segundo mapa
+    private static final char SEPARADOR = '\u0000';
+
+    private final UsuarioExportacaoRepository usuarioExportacaoRepository;
+    private final Shards shards;
+    private final boolean habilitado;
+    private final ScheduledExecutorService recarga;
+    private volatile Indice atual;
+    // Índice em montagem: os cadastros desse intervalo entram nele também
+    private volatile Indice emMontagem;
+
+    public IndiceUsernames(UsuarioExportacaoRepository usuarioExportacaoRepository, Shards shards,
+                           @Value("${demopark.usuarios.pesquisa.indice-memoria.habilitado:false}") boolean habilitado,
+                           @Value("${demopark.usuarios.pesquisa.indice-memoria.recarga:10m}") Duration intervalo) {
+        this.usuarioExportacaoRepository = usuarioExportacaoRepository;
+        this.shards = shards;
+        this.habilitado = habilitado;
+        if (habilitado) {
+            this.recarga = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+                Thread thread = new Thread(tarefa, "indice-usernames-recarga");
+                thread.setDaemon(true);
+                return thread;
+            });
+            recarga.scheduleWithFixedDelay(this::recarregarAgendado, intervalo.toMillis(), intervalo.toMillis(), TimeUnit.MILLISECONDS);
+        } else {
+            this.recarga = null;
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void carregar() {
+        if (habilitado) {
+            recarregar();
+            log.info("Índice de usernames carregado com {} usuários", atual.porUsername.size());
+        }
+    }
+
+    public boolean disponivel() {
+        return atual != null;
+    }
+
+    // Chamado depois do commit do cadastro. Lê emMontagem antes de atual: se a montagem terminar no meio, o usuário
+    // entra no índice novo, e um cadastro confirmado antes de a montagem começar já vem da leitura do banco
+    public void registrar(Usuario usuario) {
+        if (!habilitado) {
+            return;
+        }
+        Indice novo = emMontagem;
+        Indice corrente = atual;
+        if (corrente != null) {
+            corrente.adicionar(usuario.getId(), usuario.getUsername(), usuario.getRole(), usuario.getDataCriacao());
+        }
+        if (novo != null && novo != corrente) {
+            novo.adicionar(usuario.getId(), usuario.getUsername(), usuario.getRole(), usuario.getDataCriacao());
+        }
+    }
+
+    // Mesma ordem e mesmo keyset do banco: usernames depois de aposUsername, até tamanho itens
+    public List<UsuarioResumo> pesquisar(FiltroPesquisa filtro, String aposUsername, int tamanho) {
+        Indice indice = atual;
+        String prefixo = filtro.prefixo() == null ? "" : filtro.prefixo();
+        NavigableMap<String, Entrada> faixa;
+        String inicio;
+        if (filtro.dominio() != null) {
+            faixa = indice.porDominio;
+            inicio = filtro.dominio() + SEPARADOR;
+        } else {
+            faixa = indice.porUsername;
+            inicio = "";
+        }
+        String fim = depoisDoPrefixo(inicio + prefixo);
+        faixa = fim == null ? faixa.tailMap(inicio + prefixo, true) : faixa.subMap(inicio + prefixo, true, fim, false);
+        if (aposUsername != null) {
+            faixa = faixa.tailMap(inicio + aposUsername, false);
+        }
+        List<UsuarioResumo> encontrados = new ArrayList<>(Math.min(tamanho, 100));
+        for (Entrada entrada : faixa.values()) {
+            if (encontrados.size() == tamanho) {
+                break;
+            }
+            if (filtro.aceita(entrada.role, entrada.dataCriacao)) {
+                encontrados.add(new UsuarioResumo(entrada.id, entrada.username, entrada.role));
+            }
+        }
+        return encontrados;
+    }
+
+    public synchronized void recarregar() {
+        Indice novo = new Indice();
+        emMontagem = novo;
+        try {
+            shards.percorrerTodos(shard -> usuarioExportacaoRepository.percorrer(null, null, null, usuario -> {
+                if (shards.pertence(usuario.id(), shard)) {
+                    novo.adicionar(usuario.id(), usuario.username(), usuario.role(), usuario.dataCriacao());
+                }
+            }));
+            atual = novo;
+        } finally {
+            emMontagem = null;
+        }
+    }
+
+    @Override
+    public void close() {
+        if (recarga != null) {
+            recarga.shutdownNow();
+        }
+    }
+
+    private void recarregarAgendado() {
+        try {
+            recarregar();
+        } catch (RuntimeException ex) {
+            log.warn("Falha na recarga do índice de usernames; o índice anterior continua em uso", ex);
+        }
+    }
+
+    // Menor chave maior que todas as que começam com o prefixo; nula quando não há limite
+    private static String depoisDoPrefixo(String prefixo) {
+        for (int i = prefixo.length() - 1; i >= 0; i--) {
+            char c = prefixo.charAt(i);
+            if (c != Character.MAX_VALUE) {
+                return prefixo.substring(0, i) + (char) (c + 1);
+            }
+        }
+        return null;
+    }
+
+    private record Entrada(Long id, String username, Usuario.Role role, LocalDateTime dataCriacao) {
+    }
+
+    private static final class Indice {
+
+        private final ConcurrentSkipListMap<String, Entrada> porUsername = new ConcurrentSkipListMap<>();
+        private final ConcurrentSkipListMap<String, Entrada> porDominio = new ConcurrentSkipListMap<>();
+
+        void adicionar(Long id, String username, Usuario.Role role, LocalDateTime dataCriacao) {
+            Entrada entrada = new Entrada(id, username, role, dataCriacao);
+            porUsername.put(username, entrada);
+            porDominio.put(FiltroPesquisa.dominioDe(username) + SEPARADOR + username, entrada);
+        }
+    }
+}
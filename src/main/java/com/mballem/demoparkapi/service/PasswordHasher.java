@@ -0,0 +1,147 @@
+package com.mballem.demoparkapi.service;
+
+import com.mballem.demoparkapi.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Hash de senhas com bcrypt em um pool próprio e limitado: no máximo N hashes rodam ao mesmo tempo,
+// o restante espera em uma fila de tamanho fixo e, com a fila cheia, a requisição é recusada com 503
+// em vez de tomar a CPU das threads do Tomcat que atendem os outros endpoints
+@Component
+public class PasswordHasher {
+
+    private final BCryptPasswordEncoder encoder;
+    private final ThreadPoolExecutor executor;
+    private final Duration timeout;
+
+    public PasswordHasher(@Value("${demopark.senha.bcrypt.custo:10}") int custo,
+                          @Value("${demopark.senha.hash.threads:0}") int threads,
+                          @Value("${demopark.senha.hash.fila:64}") int fila,
+                          @Value("${demopark.senha.hash.timeout:5s}") Duration timeout,
+                          MeterRegistry meterRegistry) {
+        int tamanho = threads > 0 ? threads : Math.max(1, Runtime.getRuntime().availableProcessors() / 2);
+        AtomicInteger contador = new AtomicInteger();
+        this.encoder = new BCryptPasswordEncoder(custo);
+        this.timeout = timeout;
+        this.executor = new ThreadPoolExecutor(tamanho, tamanho, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(fila),
+            tarefa -> {
+                Thread thread = new Thread(tarefa, "hash-senha-" + contador.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            },
+            new ThreadPoolExecutor.AbortPolicy());
+        // executor.queued, executor.active, executor.queue.remaining etc. com a tag name=hash-senha
+        ExecutorServiceMetrics.monitor(meterRegistry, executor, "hash-senha");
+    }
+
+    public String hash(String senha) {
+        return aguardar(executar(() -> encoder.encode(senha)));
+    }
+
+    public List<String> hashTodos(List<String> senhas) {
+        // Envia em janelas do tamanho do pool para que um lote grande não encha a fila e faça os cadastros avulsos serem recusados
+        int janela = paralelismo();
+        List<String> hashes = new ArrayList<>(senhas.size());
+        for (int inicio = 0; inicio < senhas.size(); inicio += janela) {
+            List<Future<String>> pendentes = new ArrayList<>(janela);
+            for (String senha : senhas.subList(inicio, Math.min(inicio + janela, senhas.size()))) {
+                pendentes.add(executar(() -> encoder.encode(senha)));
+            }
+            for (Future<String> pendente : pendentes) {
+                hashes.add(aguardar(pendente));
+            }
+        }
+        return hashes;
+    }
+
+    // Só hashes bcrypt conferem: as senhas em texto puro de antes do hash foram convertidas pela migração V6,
+    // e qualquer outro valor gravado é recusado
+    public boolean confere(String senha, String armazenada) {
+        if (armazenada == null) {
+            return false;
+        }
+        return aguardar(executar(() -> encoder.matches(senha, armazenada)));
+    }
+
+    // Variantes sem bloqueio para a pilha reativa: o resultado chega pelo CompletableFuture no pool de hash,
+    // com as mesmas regras de recusa (fila cheia) e tempo máximo
+    public CompletableFuture<String> hashAssincrono(String senha) {
+        return executarAssincrono(() -> encoder.encode(senha));
+    }
+
+    public CompletableFuture<Boolean> confereAssincrono(String senha, String armazenada) {
+        if (armazenada == null) {
+            return CompletableFuture.completedFuture(false);
+        }
+        return executarAssincrono(() -> encoder.matches(senha, armazenada));
+    }
+
+    // Quantos hashes rodam ao mesmo tempo; quem envia em lote não deve ter mais pendentes que isso
+    public int paralelismo() {
+        return executor.getMaximumPoolSize();
+    }
+
+    private <T> CompletableFuture<T> executarAssincrono(Supplier<T> tarefa) {
+        CompletableFuture<T> futuro;
+        try {
+            futuro = CompletableFuture.supplyAsync(tarefa, executor);
+        } catch (RejectedExecutionException ex) {
+            return CompletableFuture.failedFuture(new ServiceOverloadedException("Serviço ocupado, tente novamente em instantes"));
+        }
+        return futuro.orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS).exceptionallyCompose(ex -> {
+            Throwable causa = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+            if (causa instanceof TimeoutException) {
+                return CompletableFuture.failedFuture(new ServiceOverloadedException("Serviço ocupado, tente novamente em instantes"));
+            }
+            return CompletableFuture.failedFuture(causa);
+        });
+    }
+
+    private <T> Future<T> executar(Callable<T> tarefa) {
+        try {
+            return executor.submit(tarefa);
+        } catch (RejectedExecutionException ex) {
+            throw new ServiceOverloadedException("Serviço ocupado, tente novamente em instantes");
+        }
+    }
+
+    private <T> T aguardar(Future<T> futuro) {
+        try {
+            return futuro.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            futuro.cancel(true);
+            throw new ServiceOverloadedException("Serviço ocupado, tente novamente em instantes");
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    @PreDestroy
+    public void encerrar() {
+        executor.shutdown();
+    }
+}
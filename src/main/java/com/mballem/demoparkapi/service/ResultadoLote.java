@@ -0,0 +1,16 @@
+package com.mballem.demoparkapi.service;
+
+import com.mballem.demoparkapi.entity.Usuario;
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+@Getter
+public class ResultadoLote {
+    private final List<Usuario> criados = new ArrayList<>();
+    // Posição do usuário na lista recebida -> motivo da falha
+    private final Map<Integer, String> falhas = new TreeMap<>();
+}
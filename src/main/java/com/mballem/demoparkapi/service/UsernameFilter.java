@@ -0,0 +1,55 @@
+package com.mballem.demoparkapi.service;
+
+import com.google.common.base.Charsets;
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnels;
+import com.mballem.demoparkapi.datasource.Shards;
+import com.mballem.demoparkapi.repository.UsuarioExportacaoRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+// Filtro de Bloom com os usernames cadastrados. Um "não" é definitivo e dispensa a consulta de existência;
+// um "talvez" ainda precisa ir ao banco. Usernames gravados por outras instâncias não entram aqui,
+// por isso a constraint unique da tabela continua sendo a garantia final
+@Slf4j
+@Component
+public class UsernameFilter {
+
+    private final BloomFilter<String> filtro;
+    private final UsuarioExportacaoRepository usuarioExportacaoRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final Shards shards;
+    private volatile boolean pronto;
+
+    public UsernameFilter(@Value("${demopark.usuarios.filtro-username.capacidade:1000000}") int capacidade,
+                          @Value("${demopark.usuarios.filtro-username.falso-positivo:0.01}") double falsoPositivo,
+                          UsuarioExportacaoRepository usuarioExportacaoRepository, TransactionTemplate transactionTemplate,
+                          Shards shards) {
+        this.filtro = BloomFilter.create(Funnels.stringFunnel(Charsets.UTF_8), capacidade, falsoPositivo);
+        this.usuarioExportacaoRepository = usuarioExportacaoRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.shards = shards;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void aquecer() {
+        transactionTemplate.executeWithoutResult(status -> shards.percorrerTodos(shard ->
+            usuarioExportacaoRepository.percorrerUsernames(filtro::put)));
+        pronto = true;
+        log.info("Filtro de usernames carregado com aproximadamente {} registros", filtro.approximateElementCount());
+    }
+
+    // Enquanto o filtro não foi carregado toda consulta é tratada como "talvez"
+    public boolean podeExistir(String username) {
+        return !pronto || filtro.mightContain(username);
+    }
+
+    // Chamado logo após o insert; se a transação for desfeita sobra só um falso positivo, que é inofensivo
+    public void registrar(String username) {
+        filtro.put(username);
+    }
+}
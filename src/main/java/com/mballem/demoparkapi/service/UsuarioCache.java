@@ -0,0 +1,70 @@
+package com.mballem.demoparkapi.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.mballem.demoparkapi.repository.UsuarioDetalhe;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+// Cache de leitura dos usuários por id (Caffeine, despejo W-TinyLFU). Guarda a projeção imutável
+// UsuarioDetalhe, então pode ser devolvida sem cópia e não ocupa memória com senha e auditoria
+@Component
+public class UsuarioCache {
+
+    private final Cache<Long, UsuarioDetalhe> cache;
+
+    public UsuarioCache(@Value("${demopark.usuarios.cache.tamanho-maximo:10000}") long tamanhoMaximo,
+                        @Value("${demopark.usuarios.cache.ttl:10m}") Duration ttl,
+                        MeterRegistry meterRegistry) {
+        this.cache = Caffeine.newBuilder()
+            .maximumSize(tamanhoMaximo)
+            .expireAfterWrite(ttl)
+            .recordStats()
+            .build();
+        // Acertos, falhas e despejos publicados em /actuator/metrics/cache.*
+        CaffeineCacheMetrics.monitor(meterRegistry, cache, "usuarios");
+    }
+
+    public UsuarioDetalhe buscar(Long id, Function<Long, UsuarioDetalhe> carregador) {
+        return cache.get(id, carregador);
+    }
+
+    // Só os ids ausentes do cache chegam ao carregador, todos de uma vez; ids que ele não devolver
+    // (inexistentes) ficam fora do mapa retornado e não são guardados
+    public Map<Long, UsuarioDetalhe> buscarTodos(Collection<Long> ids, Function<Set<? extends Long>, Map<Long, UsuarioDetalhe>> carregador) {
+        return cache.getAll(ids, carregador);
+    }
+
+    // Para quem carrega sem bloquear (pilha reativa): consulta sem carregador e guarda depois que a leitura chegar
+    public UsuarioDetalhe buscarSeExistir(Long id) {
+        return cache.getIfPresent(id);
+    }
+
+    public void guardar(Long id, UsuarioDetalhe usuario) {
+        cache.put(id, usuario);
+    }
+
+    // Remove já e de novo ao fim da transação: uma leitura concorrente feita antes do commit
+    // pode ter recolocado o valor antigo no cache enquanto a transação ainda estava aberta
+    public void invalidar(Long id) {
+        cache.invalidate(id);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    cache.invalidate(id);
+                }
+            });
+        }
+    }
+}
@@ -1,57 +1,361 @@
 package com.mballem.demoparkapi.service;
 
+import com.mballem.demoparkapi.datasource.LeituraPropria;
+import com.mballem.demoparkapi.datasource.Shards;
 import com.mballem.demoparkapi.entity.Usuario;
 import com.mballem.demoparkapi.exception.PasswordInvalidException;
 import com.mballem.demoparkapi.exception.EntityNotFoundException;
 import com.mballem.demoparkapi.exception.UsernameUniqueViolationException;
+import com.mballem.demoparkapi.repository.DiretorioUsuarios;
+import com.mballem.demoparkapi.repository.FiltroPesquisa;
+import com.mballem.demoparkapi.repository.UsuarioDetalhe;
+import com.mballem.demoparkapi.repository.UsuarioExportacaoRepository;
+import com.mballem.demoparkapi.repository.UsuarioExportado;
+import com.mballem.demoparkapi.repository.UsuarioPesquisaRepository;
 import com.mballem.demoparkapi.repository.UsuarioRepository;
+import com.mballem.demoparkapi.repository.UsuarioResumo;
+import com.mballem.demoparkapi.repository.VersaoUsuarios;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
 @RequiredArgsConstructor
 @Service
 public class UsuarioService {
 
+    // Timer publicado com as tags class e method de cada método público
+    private static final String METRICA = "usuario.service";
+
     private final UsuarioRepository usuarioRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final UsuarioCache usuarioCache;
+    private final UsernameFilter usernameFilter;
+    private final PasswordHasher passwordHasher;
+    private final LeituraPropria leituraPropria;
+    private final CarregadorUsuarios carregadorUsuarios;
+    private final UsuarioExportacaoRepository usuarioExportacaoRepository;
+    private final FeedUsuarios feedUsuarios;
+    private final Shards shards;
+    private final DiretorioUsuarios diretorioUsuarios;
+    private final EstatisticasUsuarios estatisticasUsuarios;
+    private final IndiceUsernames indiceUsernames;
+    private final UsuarioPesquisaRepository usuarioPesquisaRepository;
+
+    // Quantidade de usuários gravados por transação no cadastro em lote
+    @Value("${demopark.usuarios.lote.tamanho-transacao:500}")
+    private int tamanhoTransacaoLote;
 
-    @Transactional
+    // Sem @Transactional: o hash da senha é lento e não deve segurar uma conexão do pool;
+    // a consulta de existência e o insert usam cada um a transação do próprio repositório
+    @Timed(METRICA)
     public Usuario salvar(Usuario usuario) {
+        // Rejeita a maioria dos usernames repetidos antes de qualquer escrita; a constraint unique segue como garantia final
+        if (usernameFilter.podeExistir(usuario.getUsername()) && usernameCadastrado(usuario.getUsername())) {
+            throw new UsernameUniqueViolationException(String.format("Username {%s} já cadastrado", usuario.getUsername()));
+        }
+        usuario.setPassword(passwordHasher.hash(usuario.getPassword()));
         try {
-            return usuarioRepository.save(usuario);
-        } catch (org.springframework.dao.DataIntegrityViolationException ex) {
+            // Com id por sequência o insert só ocorreria no commit; o flush traz a violação de unicidade para cá
+            Usuario salvo = shards.habilitado() ? salvarNoShard(usuario) : usuarioRepository.saveAndFlush(usuario);
+            usernameFilter.registrar(salvo.getUsername());
+            usuarioCache.invalidar(salvo.getId());
+            leituraPropria.registrarEscrita(salvo.getId());
+            feedUsuarios.publicar(EventoUsuario.Tipo.USUARIO_CRIADO, resumo(salvo));
+            estatisticasUsuarios.registrarCadastro(salvo.getRole(), salvo.getDataCriacao());
+            indiceUsernames.registrar(salvo);
+            return salvo;
+        } catch (DataIntegrityViolationException ex) {
             throw new UsernameUniqueViolationException(String.format("Username {%s} já cadastrado", usuario.getUsername()));
         }
     }
 
-    @Transactional(readOnly = true)
-    public Usuario buscarPorId(Long id) {
+    // Prefixo e domínio saem do índice em memória quando ele está carregado; só com role ou datas a consulta vai ao
+    // banco, onde o índice (role, username) evita percorrer a tabela. Com sharding cada shard devolve a sua página,
+    // intercalada por username
+    @Timed(METRICA)
+    public List<UsuarioResumo> pesquisar(FiltroPesquisa filtro, String aposUsername, int tamanho) {
+        if (indiceUsernames.disponivel() && (filtro.prefixo() != null || filtro.dominio() != null)) {
+            return indiceUsernames.pesquisar(filtro, aposUsername, tamanho);
+        }
+        return leituraPropria.lerColecao(() -> shards.intercalar(
+            shards.lerTodos(() -> usuarioPesquisaRepository.pesquisar(filtro, aposUsername, tamanho)),
+            Comparator.comparing(UsuarioResumo::username), UsuarioResumo::id, tamanho));
+    }
+
+    // Contadores em memória, sem ir ao banco
+    public EstatisticasUsuarios.Retrato buscarEstatisticas(int dias) {
+        return estatisticasUsuarios.retrato(dias);
+    }
+
+    // Sem @Transactional: um acerto no cache não precisa abrir transação nem pegar conexão do pool.
+    // Devolve a projeção imutável; para alterar o usuário use buscarEntidade dentro de uma transação
+    @Timed(METRICA)
+    public UsuarioDetalhe buscarPorId(Long id) {
+        return usuarioCache.buscar(id, chave -> carregadorUsuarios.carregar(chave).orElseThrow(
+            () -> new EntityNotFoundException(String.format("Usuário id=%s não encontrado", chave))
+        ));
+    }
+
+    // Os ausentes do cache vêm em consultas IN fatiadas; os ids inexistentes ficam fora do mapa, para o chamador
+    // informar cada um sem derrubar a busca inteira
+    @Timed(METRICA)
+    public Map<Long, UsuarioDetalhe> buscarPorIds(Collection<Long> ids) {
+        return usuarioCache.buscarTodos(ids, carregadorUsuarios::carregar);
+    }
+
+    private Usuario buscarEntidade(Long id) {
         return usuarioRepository.findById(id).orElseThrow(
             () -> new EntityNotFoundException(String.format("Usuário id=%s não encontrado", id))
         );
     }
 
-    @Transactional
+    // A conferência da senha atual e o hash da nova rodam fora da transação; a gravação
+    // confere que o hash não mudou nesse intervalo, senão outra troca de senha venceu a corrida
+    @Timed(METRICA)
     public Usuario editarSenha(Long id, String senhaAtual, String novaSenha, String confirmaSenha) {
         if (!novaSenha.equals(confirmaSenha)){
             // throw new RuntimeException("Nova senha não confere com confirmação de senha");
             throw new PasswordInvalidException(String.format("Nova senha não confere com confirmação de senha"));
         }
         
-        Usuario user = buscarPorId(id);
-        if(!user.getPassword().equals(senhaAtual)){
+        String hashAtual = shards.noShardDoId(id, () -> leituraPropria.lerNoPrimario(() -> buscarEntidade(id))).getPassword();
+        if(!passwordHasher.confere(senhaAtual, hashAtual)){
             throw new PasswordInvalidException("Senha atual não confere.");
         }
+        String novoHash = passwordHasher.hash(novaSenha);
 
-        user.setPassword(novaSenha);
-        return user;
+        return shards.escrever(() -> shards.noShardDoId(id, () -> transactionTemplate.execute(status -> {
+            Usuario user = buscarEntidade(id);
+            if (!user.getPassword().equals(hashAtual)) {
+                throw new PasswordInvalidException("Senha atual não confere.");
+            }
+            user.setPassword(novoHash);
+            usuarioCache.invalidar(id);
+            leituraPropria.registrarEscrita(id);
+            feedUsuarios.publicar(EventoUsuario.Tipo.SENHA_ALTERADA, resumo(user));
+            return user;
+        })));
     }
 
+    @Timed(METRICA)
     @Transactional(readOnly = true)
-    public List<Usuario> buscarTodos() {
-        return usuarioRepository.findAll();
+    public List<UsuarioResumo> buscarTodos() {
+        return leituraPropria.lerColecao(() ->
+            shards.intercalar(shards.lerTodos(usuarioRepository::buscarResumos), UsuarioResumo::id, Integer.MAX_VALUE));
+    }
+
+    @Timed(METRICA)
+    @Transactional(readOnly = true)
+    public VersaoUsuarios buscarVersaoTodos() {
+        return leituraPropria.lerColecao(() -> somar(shards.lerTodos(usuarioRepository::buscarVersao)));
+    }
+
+    @Timed(METRICA)
+    @Transactional(readOnly = true)
+    public List<UsuarioResumo> buscarPagina(Long aposId, int tamanho) {
+        // Com sharding cada shard devolve a sua página e a intercalação fica com as primeiras
+        return leituraPropria.lerColecao(() -> shards.intercalar(
+            shards.lerTodos(() -> usuarioRepository.buscarResumosApos(aposId == null ? 0L : aposId, PageRequest.of(0, tamanho))),
+            UsuarioResumo::id, tamanho));
+    }
+
+    // Linhas lidas por JDBC e entregues uma a uma, fora do contexto de persistência, então a memória fica constante com
+    // qualquer tamanho de tabela. Com sharding os shards são percorridos um depois do outro: a ordem por id vale dentro
+    // de cada shard
+    @Timed(METRICA)
+    @Transactional(readOnly = true)
+    public void percorrerTodos(Consumer<UsuarioResumo> consumidor) {
+        leituraPropria.lerColecao(() -> {
+            shards.percorrerTodos(shard -> usuarioExportacaoRepository.percorrerResumos(usuario -> {
+                if (shards.pertence(usuario.id(), shard)) {
+                    consumidor.accept(usuario);
+                }
+            }));
+            return null;
+        });
+    }
+
+    // Mesma garantia de memória constante do percorrerTodos, com filtros e as colunas de auditoria
+    @Timed(METRICA)
+    @Transactional(readOnly = true)
+    public void exportar(Usuario.Role role, LocalDateTime criadoDe, LocalDateTime criadoAte, Consumer<UsuarioExportado> consumidor) {
+        leituraPropria.lerColecao(() -> {
+            shards.percorrerTodos(shard -> usuarioExportacaoRepository.percorrer(role, criadoDe, criadoAte, usuario -> {
+                if (shards.pertence(usuario.id(), shard)) {
+                    consumidor.accept(usuario);
+                }
+            }));
+            return null;
+        });
+    }
+
+    // Cada fatia é gravada em uma transação própria: uma falha não desfaz as fatias já gravadas
+    @Timed(METRICA)
+    public ResultadoLote salvarLote(List<Usuario> usuarios) {
+        ResultadoLote resultado = new ResultadoLote();
+
+        Map<String, Integer> pendentes = new HashMap<>();
+        for (int i = 0; i < usuarios.size(); i++) {
+            String username = usuarios.get(i).getUsername();
+            if (pendentes.putIfAbsent(username, i) != null) {
+                resultado.getFalhas().put(i, String.format("Username {%s} repetido no lote", username));
+            }
+        }
+
+        // Só consulta o banco para os usernames que o filtro não descarta
+        List<String> usernames = new ArrayList<>();
+        for (String username : pendentes.keySet()) {
+            if (usernameFilter.podeExistir(username)) {
+                usernames.add(username);
+            }
+        }
+        for (int inicio = 0; inicio < usernames.size(); inicio += tamanhoTransacaoLote) {
+            List<String> fatia = usernames.subList(inicio, Math.min(inicio + tamanhoTransacaoLote, usernames.size()));
+            for (String existente : shards.habilitado() ? diretorioUsuarios.existentes(fatia) : usuarioRepository.findUsernamesIn(fatia)) {
+                resultado.getFalhas().put(pendentes.remove(existente), String.format("Username {%s} já cadastrado", existente));
+            }
+        }
+
+        List<Integer> indices = new ArrayList<>(pendentes.values());
+        Collections.sort(indices);
+        List<String> senhas = new ArrayList<>(indices.size());
+        for (int indice : indices) {
+            senhas.add(usuarios.get(indice).getPassword());
+        }
+        List<String> hashes = passwordHasher.hashTodos(senhas);
+        for (int i = 0; i < indices.size(); i++) {
+            usuarios.get(indices.get(i)).setPassword(hashes.get(i));
+        }
+        for (int inicio = 0; inicio < indices.size(); inicio += tamanhoTransacaoLote) {
+            List<Integer> fatiaIndices = indices.subList(inicio, Math.min(inicio + tamanhoTransacaoLote, indices.size()));
+            if (shards.habilitado()) {
+                salvarNosShards(usuarios, fatiaIndices, resultado);
+                continue;
+            }
+            List<Usuario> fatia = new ArrayList<>(fatiaIndices.size());
+            for (int indice : fatiaIndices) {
+                fatia.add(usuarios.get(indice));
+            }
+            try {
+                resultado.getCriados().addAll(transactionTemplate.execute(status -> usuarioRepository.saveAllAndFlush(fatia)));
+                fatia.forEach(this::registrarCriado);
+            } catch (DataIntegrityViolationException ex) {
+                // Outro cadastro concorrente gravou algum dos usernames: refaz a fatia um a um para isolar a falha
+                salvarUmAUm(usuarios, fatiaIndices, resultado);
+            }
+        }
+        return resultado;
+    }
+
+    private void salvarUmAUm(List<Usuario> usuarios, List<Integer> indices, ResultadoLote resultado) {
+        for (int indice : indices) {
+            Usuario usuario = usuarios.get(indice);
+            usuario.setId(null);
+            usuario.setVersao(null);
+            try {
+                resultado.getCriados().add(transactionTemplate.execute(status -> usuarioRepository.saveAndFlush(usuario)));
+                registrarCriado(usuario);
+            } catch (DataIntegrityViolationException ex) {
+                resultado.getFalhas().put(indice, String.format("Username {%s} já cadastrado", usuario.getUsername()));
+            }
+        }
+    }
+
+    // Com sharding a reserva no diretório já separa cada username cadastrado por outro; os reservados são gravados
+    // em uma transação por shard. Os de um shard que falhar têm a reserva desfeita e entram nas falhas, sem derrubar
+    // o lote: os grupos dos outros shards já podem ter sido confirmados
+    private void salvarNosShards(List<Usuario> usuarios, List<Integer> indices, ResultadoLote resultado) {
+        List<Usuario> reservados = new ArrayList<>(indices.size());
+        Map<Usuario, Integer> indiceDe = new IdentityHashMap<>(indices.size());
+        for (int indice : indices) {
+            Usuario usuario = usuarios.get(indice);
+            try {
+                usuario.setId(diretorioUsuarios.reservar(usuario.getUsername()));
+                reservados.add(usuario);
+                indiceDe.put(usuario, indice);
+            } catch (DataIntegrityViolationException ex) {
+                resultado.getFalhas().put(indice, String.format("Username {%s} já cadastrado", usuario.getUsername()));
+            }
+        }
+        shards.escrever(() -> {
+            shards.agrupar(reservados, Usuario::getId).forEach((shard, grupo) -> {
+                try {
+                    resultado.getCriados().addAll(shards.noShard(shard, () -> transactionTemplate.execute(status -> usuarioRepository.saveAllAndFlush(grupo))));
+                } catch (RuntimeException ex) {
+                    for (Usuario usuario : grupo) {
+                        diretorioUsuarios.liberar(usuario.getUsername());
+                        usuario.setId(null);
+                        usuario.setVersao(null);
+                        resultado.getFalhas().put(indiceDe.get(usuario),
+                            String.format("Falha ao gravar o username {%s} no shard %d", usuario.getUsername(), shard));
+                    }
+                    return;
+                }
+                grupo.forEach(this::registrarCriado);
+            });
+            return null;
+        });
+    }
+
+    // O username fica reservado no diretório antes do insert, então a unique vale entre shards
+    private Usuario salvarNoShard(Usuario usuario) {
+        usuario.setId(diretorioUsuarios.reservar(usuario.getUsername()));
+        try {
+            return shards.escrever(() -> shards.noShardDoId(usuario.getId(), () -> usuarioRepository.saveAndFlush(usuario)));
+        } catch (RuntimeException ex) {
+            diretorioUsuarios.liberar(usuario.getUsername());
+            usuario.setId(null);
+            throw ex;
+        }
+    }
+
+    private boolean usernameCadastrado(String username) {
+        return shards.habilitado() ? diretorioUsuarios.existe(username) : usuarioRepository.existsByUsername(username);
+    }
+
+    private void registrarCriado(Usuario usuario) {
+        usernameFilter.registrar(usuario.getUsername());
+        leituraPropria.registrarEscrita(usuario.getId());
+        feedUsuarios.publicar(EventoUsuario.Tipo.USUARIO_CRIADO, resumo(usuario));
+        estatisticasUsuarios.registrarCadastro(usuario.getRole(), usuario.getDataCriacao());
+        indiceUsernames.registrar(usuario);
+    }
+
+    private static VersaoUsuarios somar(List<VersaoUsuarios> versoes) {
+        if (versoes.size() == 1) {
+            return versoes.get(0);
+        }
+        long total = 0;
+        long somaVersoes = 0;
+        LocalDateTime ultimaModificacao = null;
+        for (VersaoUsuarios versao : versoes) {
+            total += versao.total();
+            somaVersoes += versao.somaVersoes();
+            if (versao.ultimaModificacao() != null && (ultimaModificacao == null || versao.ultimaModificacao().isAfter(ultimaModificacao))) {
+                ultimaModificacao = versao.ultimaModificacao();
+            }
+        }
+        return new VersaoUsuarios(total, somaVersoes, ultimaModificacao);
+    }
+
+    private static UsuarioResumo resumo(Usuario usuario) {
+        return new UsuarioResumo(usuario.getId(), usuario.getUsername(), usuario.getRole());
     }
 }
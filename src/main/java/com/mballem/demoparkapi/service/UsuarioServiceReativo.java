@@ -0,0 +1,190 @@
+package com.mballem.demoparkapi.service;
+
+import com.mballem.demoparkapi.entity.Usuario;
+import com.mballem.demoparkapi.exception.EntityNotFoundException;
+import com.mballem.demoparkapi.exception.PasswordInvalidException;
+import com.mballem.demoparkapi.exception.UsernameUniqueViolationException;
+import com.mballem.demoparkapi.repository.UsuarioDetalhe;
+import com.mballem.demoparkapi.repository.UsuarioRepositoryReativo;
+import com.mballem.demoparkapi.repository.UsuarioResumo;
+import com.mballem.demoparkapi.repository.VersaoUsuarios;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Contraparte do UsuarioService para a pilha reativa. Nenhum método bloqueia a thread do evento: o banco é
+// acessado pelo R2DBC e o bcrypt roda no pool do PasswordHasher, com o resultado devolvido por CompletableFuture.
+// O cache por id e o filtro de usernames são os mesmos da pilha servlet
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+@Service
+public class UsuarioServiceReativo {
+
+    private final UsuarioRepositoryReativo usuarioRepository;
+    private final UsuarioCache usuarioCache;
+    private final UsernameFilter usernameFilter;
+    private final EstatisticasUsuarios estatisticasUsuarios;
+    private final IndiceUsernames indiceUsernames;
+    private final PasswordHasher passwordHasher;
+
+    // Quantidade de usernames por consulta de existência no cadastro em lote
+    @Value("${demopark.usuarios.lote.tamanho-transacao:500}")
+    private int tamanhoConsultaLote;
+
+    @Value("${demopark.usuarios.busca-ids.tamanho-consulta:100}")
+    private int tamanhoConsultaIds;
+
+    public Mono<Usuario> salvar(Usuario usuario) {
+        String username = usuario.getUsername();
+        Mono<Boolean> existe = usernameFilter.podeExistir(username) ? usuarioRepository.existePorUsername(username) : Mono.just(false);
+        return existe
+            .flatMap(repetido -> repetido
+                ? Mono.<String>error(new UsernameUniqueViolationException(String.format("Username {%s} já cadastrado", username)))
+                : Mono.fromFuture(() -> passwordHasher.hashAssincrono(usuario.getPassword())))
+            .flatMap(hash -> {
+                usuario.setPassword(hash);
+                return usuarioRepository.inserir(usuario);
+            })
+            .onErrorMap(DataIntegrityViolationException.class,
+                ex -> new UsernameUniqueViolationException(String.format("Username {%s} já cadastrado", username)))
+            .doOnNext(salvo -> {
+                usernameFilter.registrar(salvo.getUsername());
+                estatisticasUsuarios.registrarCadastro(salvo.getRole(), salvo.getDataCriacao());
+                indiceUsernames.registrar(salvo);
+                usuarioCache.invalidar(salvo.getId());
+            });
+    }
+
+    // Só lê contadores em memória, então não bloqueia
+    public Mono<EstatisticasUsuarios.Retrato> buscarEstatisticas(int dias) {
+        return Mono.fromSupplier(() -> estatisticasUsuarios.retrato(dias));
+    }
+
+    public Mono<UsuarioDetalhe> buscarPorId(Long id) {
+        UsuarioDetalhe emCache = usuarioCache.buscarSeExistir(id);
+        if (emCache != null) {
+            return Mono.just(emCache);
+        }
+        return usuarioRepository.buscarDetalhe(id)
+            .switchIfEmpty(Mono.error(() -> new EntityNotFoundException(String.format("Usuário id=%s não encontrado", id))))
+            .doOnNext(usuario -> usuarioCache.guardar(id, usuario));
+    }
+
+    // Os ausentes do cache vêm em consultas IN de até tamanho-consulta ids, uma por vez; os inexistentes ficam fora do mapa
+    public Mono<Map<Long, UsuarioDetalhe>> buscarPorIds(Collection<Long> ids) {
+        Map<Long, UsuarioDetalhe> encontrados = new HashMap<>(ids.size() * 2);
+        List<Long> ausentes = new ArrayList<>();
+        for (Long id : ids) {
+            UsuarioDetalhe emCache = usuarioCache.buscarSeExistir(id);
+            if (emCache != null) {
+                encontrados.put(id, emCache);
+            } else {
+                ausentes.add(id);
+            }
+        }
+        return Flux.fromIterable(fatias(ausentes, tamanhoConsultaIds))
+            .concatMap(usuarioRepository::buscarDetalhes)
+            .doOnNext(usuario -> {
+                usuarioCache.guardar(usuario.id(), usuario);
+                encontrados.put(usuario.id(), usuario);
+            })
+            .then(Mono.just(encontrados));
+    }
+
+    public Mono<Void> editarSenha(Long id, String senhaAtual, String novaSenha, String confirmaSenha) {
+        if (!novaSenha.equals(confirmaSenha)) {
+            return Mono.error(new PasswordInvalidException("Nova senha não confere com confirmação de senha"));
+        }
+        return usuarioRepository.buscarSenha(id)
+            .switchIfEmpty(Mono.error(() -> new EntityNotFoundException(String.format("Usuário id=%s não encontrado", id))))
+            .flatMap(hashAtual -> Mono.fromFuture(() -> passwordHasher.confereAssincrono(senhaAtual, hashAtual))
+                .flatMap(confere -> confere
+                    ? Mono.fromFuture(() -> passwordHasher.hashAssincrono(novaSenha))
+                    : Mono.error(new PasswordInvalidException("Senha atual não confere.")))
+                .flatMap(novoHash -> usuarioRepository.atualizarSenha(id, hashAtual, novoHash)))
+            .flatMap(alterados -> alterados == 0
+                ? Mono.<Void>error(new PasswordInvalidException("Senha atual não confere."))
+                : Mono.<Void>empty())
+            .doOnSuccess(vazio -> usuarioCache.invalidar(id));
+    }
+
+    public Flux<UsuarioResumo> buscarTodos() {
+        return usuarioRepository.buscarResumos();
+    }
+
+    public Mono<VersaoUsuarios> buscarVersaoTodos() {
+        return usuarioRepository.buscarVersao();
+    }
+
+    public Flux<UsuarioResumo> buscarPagina(Long aposId, int tamanho) {
+        return usuarioRepository.buscarResumosApos(aposId == null ? 0L : aposId, tamanho);
+    }
+
+    // Mesmas regras do UsuarioService.salvarLote. Sem transação por fatia: cada usuário é um insert próprio,
+    // então uma violação de unicidade concorrente afeta só o item dela
+    public Mono<ResultadoLote> salvarLote(List<Usuario> usuarios) {
+        ResultadoLote resultado = new ResultadoLote();
+        Map<String, Integer> pendentes = new HashMap<>();
+        for (int i = 0; i < usuarios.size(); i++) {
+            String username = usuarios.get(i).getUsername();
+            if (pendentes.putIfAbsent(username, i) != null) {
+                resultado.getFalhas().put(i, String.format("Username {%s} repetido no lote", username));
+            }
+        }
+
+        // Só consulta o banco para os usernames que o filtro não descarta
+        List<String> usernames = new ArrayList<>();
+        for (String username : pendentes.keySet()) {
+            if (usernameFilter.podeExistir(username)) {
+                usernames.add(username);
+            }
+        }
+        return Flux.fromIterable(fatias(usernames, tamanhoConsultaLote))
+            .concatMap(usuarioRepository::buscarUsernamesEm)
+            .doOnNext(existente -> resultado.getFalhas().put(pendentes.remove(existente), String.format("Username {%s} já cadastrado", existente)))
+            .then(Mono.fromSupplier(() -> {
+                List<Integer> indices = new ArrayList<>(pendentes.values());
+                Collections.sort(indices);
+                return indices;
+            }))
+            .flatMapMany(Flux::fromIterable)
+            // Nunca mais hashes pendentes que o pool executa, para o lote não encher a fila e recusar os cadastros avulsos
+            .flatMapSequential(indice -> Mono.fromFuture(() -> passwordHasher.hashAssincrono(usuarios.get(indice).getPassword()))
+                .map(hash -> {
+                    usuarios.get(indice).setPassword(hash);
+                    return indice;
+                }), passwordHasher.paralelismo())
+            .concatMap(indice -> usuarioRepository.inserir(usuarios.get(indice))
+                .doOnNext(salvo -> {
+                    resultado.getCriados().add(salvo);
+                    usernameFilter.registrar(salvo.getUsername());
+                    estatisticasUsuarios.registrarCadastro(salvo.getRole(), salvo.getDataCriacao());
+                    indiceUsernames.registrar(salvo);
+                })
+                .onErrorResume(DataIntegrityViolationException.class, ex -> {
+                    resultado.getFalhas().put(indice, String.format("Username {%s} já cadastrado", usuarios.get(indice).getUsername()));
+                    return Mono.empty();
+                }))
+            .then(Mono.just(resultado));
+    }
+
+    private static <T> List<List<T>> fatias(List<T> itens, int tamanho) {
+        List<List<T>> fatias = new ArrayList<>();
+        for (int inicio = 0; inicio < itens.size(); inicio += tamanho) {
+            fatias.add(itens.subList(inicio, Math.min(inicio + tamanho, itens.size())));
+        }
+        return fatias;
+    }
+}
@@ -0,0 +1,60 @@
+package com.mballem.demoparkapi.web.admissao;
+
+import com.mballem.demoparkapi.exception.ServiceOverloadedException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Admite ou recusa cada chamada aos controllers antes da leitura do corpo e da primeira consulta. A recusa vira
+// ServiceOverloadedException, respondida como 503 com Retry-After pelo handler de erros da API. Em respostas
+// assíncronas (StreamingResponseBody) a vaga só é devolvida no fim da transmissão, no dispatch ASYNC
+public class AdmissaoInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String INICIO = AdmissaoInterceptor.class.getName() + ".inicio";
+
+    private final LimiteAdaptativo limite;
+    private final Map<Method, Destino> destinos = new ConcurrentHashMap<>();
+
+    public AdmissaoInterceptor(LimiteAdaptativo limite) {
+        this.limite = limite;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!(handler instanceof HandlerMethod metodo) || request.getAttribute(INICIO) != null) {
+            return true;
+        }
+        Destino destino = destino(metodo);
+        if (!limite.adquirir(destino.prioridade())) {
+            throw new ServiceOverloadedException("Serviço sobrecarregado, requisição de prioridade "
+                + destino.prioridade() + " recusada. Tente novamente em instantes");
+        }
+        request.setAttribute(INICIO, System.nanoTime());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler, Exception ex) {
+        if (request.getAttribute(INICIO) instanceof Long inicio && handler instanceof HandlerMethod metodo) {
+            request.removeAttribute(INICIO);
+            limite.liberar(destino(metodo).endpoint(), System.nanoTime() - inicio);
+        }
+    }
+
+    private Destino destino(HandlerMethod metodo) {
+        return destinos.computeIfAbsent(metodo.getMethod(), m -> {
+            PrioridadeAdmissao anotacao = AnnotatedElementUtils.findMergedAnnotation(m, PrioridadeAdmissao.class);
+            return new Destino(anotacao != null ? anotacao.value() : Prioridade.MEDIA,
+                metodo.getBeanType().getSimpleName() + "." + m.getName());
+        });
+    }
+
+    private record Destino(Prioridade prioridade, String endpoint) {
+    }
+}
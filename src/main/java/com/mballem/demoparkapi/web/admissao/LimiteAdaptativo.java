@@ -0,0 +1,131 @@
+package com.mballem.demoparkapi.web.admissao;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Limite de concorrência adaptativo pelo gradiente da latência. Cada endpoint tem a sua latência de referência
+// (média móvel que desce rápido e sobe devagar) e cada resposta vira a razão referência * tolerância / latência,
+// no máximo 1. A cada janela de amostras o limite é multiplicado pela média das razões e ganha uma folga de
+// raiz(limite): com o banco lento as razões caem e o limite encolhe; com a latência de volta à referência ele
+// cresce de novo, mas só enquanto houver pressão (ao menos metade do limite em uso). Comparar cada resposta com a
+// referência do próprio endpoint evita que uma lista grande, naturalmente mais lenta que um getById, pareça lentidão
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "demopark.admissao.habilitado", havingValue = "true", matchIfMissing = true)
+@Component
+public class LimiteAdaptativo {
+
+    // A referência desce rápido até a latência sem carga e sobe devagar: com o banco lento ela leva ~1000
+    // respostas para aceitar a nova latência como normal, e nesse tempo o limite já encolheu
+    private static final double PESO_QUEDA_REFERENCIA = 0.1;
+    private static final double PESO_ALTA_REFERENCIA = 0.001;
+    private static final double SUAVIZACAO = 0.2;
+    private static final double GRADIENTE_MINIMO = 0.5;
+
+    private final int limiteMinimo;
+    private final int limiteMaximo;
+    private final double tolerancia;
+    private final int amostrasJanela;
+    private final Map<Prioridade, Double> fracoes = new EnumMap<>(Prioridade.class);
+    private final Map<Prioridade, Counter> rejeitadas = new EnumMap<>(Prioridade.class);
+    private final AtomicInteger emVoo = new AtomicInteger();
+    private volatile double limite;
+
+    // Estado da janela, protegido pelo monitor do objeto
+    private final Map<String, Double> referencias = new HashMap<>();
+    private double somaRazoes;
+    private int amostras;
+    private int maiorEmVoo;
+
+    public LimiteAdaptativo(@Value("${demopark.admissao.limite-inicial:20}") int limiteInicial,
+                            @Value("${demopark.admissao.limite-minimo:4}") int limiteMinimo,
+                            @Value("${demopark.admissao.limite-maximo:200}") int limiteMaximo,
+                            @Value("${demopark.admissao.tolerancia:2.0}") double tolerancia,
+                            @Value("${demopark.admissao.amostras-janela:20}") int amostrasJanela,
+                            @Value("${demopark.admissao.fracao.media:0.8}") double fracaoMedia,
+                            @Value("${demopark.admissao.fracao.baixa:0.5}") double fracaoBaixa,
+                            MeterRegistry meterRegistry) {
+        this.limite = limiteInicial;
+        this.limiteMinimo = limiteMinimo;
+        this.limiteMaximo = limiteMaximo;
+        this.tolerancia = tolerancia;
+        this.amostrasJanela = amostrasJanela;
+        fracoes.put(Prioridade.ALTA, 1.0);
+        fracoes.put(Prioridade.MEDIA, fracaoMedia);
+        fracoes.put(Prioridade.BAIXA, fracaoBaixa);
+        for (Prioridade prioridade : Prioridade.values()) {
+            rejeitadas.put(prioridade, Counter.builder("admissao.rejeitadas")
+                .description("Requisições recusadas pelo controle de admissão")
+                .tag("prioridade", prioridade.name())
+                .register(meterRegistry));
+        }
+        Gauge.builder("admissao.limite", this, LimiteAdaptativo::getLimite)
+            .description("Limite de concorrência atual")
+            .register(meterRegistry);
+        Gauge.builder("admissao.em.voo", emVoo, AtomicInteger::get)
+            .description("Requisições admitidas ainda em andamento")
+            .register(meterRegistry);
+    }
+
+    // Sem fila: acima da fração do limite da prioridade a requisição é recusada na hora
+    public boolean adquirir(Prioridade prioridade) {
+        int permitidas = (int) (limite * fracoes.get(prioridade));
+        while (true) {
+            int atual = emVoo.get();
+            if (atual >= permitidas) {
+                rejeitadas.get(prioridade).increment();
+                return false;
+            }
+            if (emVoo.compareAndSet(atual, atual + 1)) {
+                return true;
+            }
+        }
+    }
+
+    public void liberar(String endpoint, long nanos) {
+        int emVooAntes = emVoo.getAndDecrement();
+        registrar(endpoint, Math.max(1, nanos), emVooAntes);
+    }
+
+    public double getLimite() {
+        return limite;
+    }
+
+    public int getEmVoo() {
+        return emVoo.get();
+    }
+
+    private synchronized void registrar(String endpoint, long nanos, int emVooAntes) {
+        Double referencia = referencias.get(endpoint);
+        if (referencia == null) {
+            referencia = (double) nanos;
+        }
+        double peso = nanos < referencia ? PESO_QUEDA_REFERENCIA : PESO_ALTA_REFERENCIA;
+        referencias.put(endpoint, referencia + (nanos - referencia) * peso);
+        somaRazoes += Math.min(1.0, referencia * tolerancia / nanos);
+        maiorEmVoo = Math.max(maiorEmVoo, emVooAntes);
+        if (++amostras < amostrasJanela) {
+            return;
+        }
+        double gradiente = Math.max(GRADIENTE_MINIMO, somaRazoes / amostras);
+        double atual = limite;
+        double novo = atual * gradiente + Math.sqrt(atual);
+        if (gradiente >= 1.0 && maiorEmVoo < atual / 2) {
+            novo = atual;
+        }
+        novo = atual * (1 - SUAVIZACAO) + novo * SUAVIZACAO;
+        limite = Math.max(limiteMinimo, Math.min(limiteMaximo, novo));
+        somaRazoes = 0;
+        amostras = 0;
+        maiorEmVoo = 0;
+    }
+}
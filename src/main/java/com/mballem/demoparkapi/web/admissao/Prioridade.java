@@ -0,0 +1,7 @@
+package com.mballem.demoparkapi.web.admissao;
+
+// Ordem de descarte sob sobrecarga: cada prioridade só ocupa a sua fração do limite de concorrência,
+// então quando o limite cai as chamadas BAIXA são recusadas antes das MEDIA, e as ALTA por último
+public enum Prioridade {
+    ALTA, MEDIA, BAIXA
+}
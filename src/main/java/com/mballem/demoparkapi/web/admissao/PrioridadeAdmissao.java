@@ -0,0 +1,13 @@
+package com.mballem.demoparkapi.web.admissao;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Prioridade de um endpoint no controle de admissão; endpoints sem a anotação entram como MEDIA
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface PrioridadeAdmissao {
+    Prioridade value();
+}
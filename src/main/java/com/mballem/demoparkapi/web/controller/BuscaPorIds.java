@@ -0,0 +1,48 @@
+package com.mballem.demoparkapi.web.controller;
+
+import com.mballem.demoparkapi.exception.BatchSizeExceededException;
+import com.mballem.demoparkapi.repository.UsuarioDetalhe;
+import com.mballem.demoparkapi.web.dto.UsuarioBuscaItemDto;
+import com.mballem.demoparkapi.web.dto.mapper.UsuarioMapper;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+// Busca de vários usuários pelos ids, comum às pilhas servlet e reativa: os repetidos saem uma vez, na ordem
+// do pedido, e cada id sem usuário vira um item com erro em vez de um 404 para a requisição inteira
+final class BuscaPorIds {
+
+    private final Set<Long> ids;
+
+    private BuscaPorIds(Set<Long> ids) {
+        this.ids = ids;
+    }
+
+    static BuscaPorIds validar(List<Long> ids, int tamanhoMaximo) {
+        if (ids.size() > tamanhoMaximo) {
+            throw new BatchSizeExceededException(String.format("Busca com %d ids excede o máximo de %d", ids.size(), tamanhoMaximo));
+        }
+        // Um item vazio (ids=1,,2) chega como null
+        Set<Long> unicos = new LinkedHashSet<>(ids);
+        unicos.remove(null);
+        return new BuscaPorIds(unicos);
+    }
+
+    Set<Long> getIds() {
+        return ids;
+    }
+
+    List<UsuarioBuscaItemDto> responder(Map<Long, UsuarioDetalhe> encontrados) {
+        List<UsuarioBuscaItemDto> itens = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            UsuarioDetalhe user = encontrados.get(id);
+            itens.add(user != null
+                ? new UsuarioBuscaItemDto(id, UsuarioMapper.toDto(user), null)
+                : new UsuarioBuscaItemDto(id, null, String.format("Usuário id=%s não encontrado", id)));
+        }
+        return itens;
+    }
+}
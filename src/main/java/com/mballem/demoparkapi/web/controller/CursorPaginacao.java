@@ -0,0 +1,44 @@
+package com.mballem.demoparkapi.web.controller;
+
+import com.mballem.demoparkapi.exception.InvalidCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+// Cursor opaco da paginação por keyset: o último id (ou username, na pesquisa) da página em Base64 url-safe
+final class CursorPaginacao {
+
+    private CursorPaginacao() {
+    }
+
+    static String encode(Long id) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(id.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String encode(String username) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(username.getBytes(StandardCharsets.UTF_8));
+    }
+
+    static Long decode(String cursor) {
+        String valor = decodeTexto(cursor);
+        if (valor == null) {
+            return null;
+        }
+        try {
+            return Long.valueOf(valor);
+        } catch (NumberFormatException ex) {
+            throw new InvalidCursorException(String.format("Cursor {%s} inválido", cursor));
+        }
+    }
+
+    static String decodeTexto(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidCursorException(String.format("Cursor {%s} inválido", cursor));
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.mballem.demoparkapi.web.controller;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.mballem.demoparkapi.repository.UsuarioExportado;
+import com.mballem.demoparkapi.web.dto.mapper.UsuarioMapper;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.function.Consumer;
+
+// Escreve cada usuário exportado direto na saída da resposta, sem DTO intermediário. Os buffers têm tamanho fixo
+// e são esvaziados ao encher, então a memória usada não depende da quantidade de linhas
+final class EscritorExportacao implements Consumer<UsuarioExportado>, Closeable {
+
+    private static final int TAMANHO_BUFFER = 64 * 1024;
+    private static final String CABECALHO_CSV = "id,username,role,dataCriacao,dataModificacao\n";
+
+    private final Writer csv;
+    private final JsonGenerator ndjson;
+
+    EscritorExportacao(FormatoExportacao formato, OutputStream out, JsonFactory jsonFactory) throws IOException {
+        if (formato == FormatoExportacao.CSV) {
+            this.csv = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), TAMANHO_BUFFER);
+            this.ndjson = null;
+            csv.write(CABECALHO_CSV);
+        } else {
+            this.csv = null;
+            this.ndjson = jsonFactory.createGenerator(out);
+            ndjson.setRootValueSeparator(null);
+        }
+    }
+
+    @Override
+    public void accept(UsuarioExportado usuario) {
+        try {
+            if (csv != null) {
+                escreverCsv(usuario);
+            } else {
+                escreverNdjson(usuario);
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (csv != null) {
+            csv.close();
+        } else {
+            ndjson.close();
+        }
+    }
+
+    private void escreverCsv(UsuarioExportado usuario) throws IOException {
+        csv.write(Long.toString(usuario.id()));
+        csv.write(',');
+        escreverCampoCsv(usuario.username());
+        csv.write(',');
+        csv.write(UsuarioMapper.toRole(usuario.role()));
+        csv.write(',');
+        escreverData(usuario.dataCriacao());
+        csv.write(',');
+        escreverData(usuario.dataModificacao());
+        csv.write('\n');
+    }
+
+    // RFC 4180: campo entre aspas, com as aspas internas duplicadas, só quando tem vírgula, aspas ou quebra de linha
+    private void escreverCampoCsv(String valor) throws IOException {
+        boolean aspas = false;
+        for (int i = 0; i < valor.length() && !aspas; i++) {
+            char c = valor.charAt(i);
+            aspas = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!aspas) {
+            csv.write(valor);
+            return;
+        }
+        csv.write('"');
+        csv.write(valor.replace("\"", "\"\""));
+        csv.write('"');
+    }
+
+    private void escreverData(LocalDateTime data) throws IOException {
+        if (data != null) {
+            csv.write(data.toString());
+        }
+    }
+
+    private void escreverNdjson(UsuarioExportado usuario) throws IOException {
+        ndjson.writeStartObject();
+        ndjson.writeNumberField("id", usuario.id());
+        ndjson.writeStringField("username", usuario.username());
+        ndjson.writeStringField("role", UsuarioMapper.toRole(usuario.role()));
+        ndjson.writeStringField("dataCriacao", usuario.dataCriacao() == null ? null : usuario.dataCriacao().toString());
+        ndjson.writeStringField("dataModificacao", usuario.dataModificacao() == null ? null : usuario.dataModificacao().toString());
+        ndjson.writeEndObject();
+        ndjson.writeRaw('\n');
+    }
+}
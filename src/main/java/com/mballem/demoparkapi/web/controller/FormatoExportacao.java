@@ -0,0 +1,35 @@
+package com.mballem.demoparkapi.web.controller;
+
+import com.mballem.demoparkapi.exception.InvalidFilterException;
+import org.springframework.http.MediaType;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+enum FormatoExportacao {
+
+    CSV(new MediaType("text", "csv", StandardCharsets.UTF_8)),
+    NDJSON(MediaType.APPLICATION_NDJSON);
+
+    private final MediaType mediaType;
+
+    FormatoExportacao(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    static FormatoExportacao de(String formato) {
+        try {
+            return valueOf(formato.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException ex) {
+            throw new InvalidFilterException(String.format("Formato {%s} inválido, use csv ou ndjson", formato));
+        }
+    }
+
+    MediaType getMediaType() {
+        return mediaType;
+    }
+
+    String getExtensao() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
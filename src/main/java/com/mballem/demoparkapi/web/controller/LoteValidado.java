@@ -0,0 +1,69 @@
+package com.mballem.demoparkapi.web.controller;
+
+import com.mballem.demoparkapi.entity.Usuario;
+import com.mballem.demoparkapi.exception.BatchSizeExceededException;
+import com.mballem.demoparkapi.service.ResultadoLote;
+import com.mballem.demoparkapi.web.dto.UsuarioCreateDto;
+import com.mballem.demoparkapi.web.dto.UsuarioLoteErroDto;
+import com.mballem.demoparkapi.web.dto.UsuarioLoteResponseDto;
+import com.mballem.demoparkapi.web.dto.mapper.UsuarioMapper;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+// Validação item a item do cadastro em lote, comum às pilhas servlet e reativa: os itens inválidos viram
+// erros com a posição original e só os válidos seguem para o serviço
+final class LoteValidado {
+
+    private final int total;
+    private final List<UsuarioLoteErroDto> erros = new ArrayList<>();
+    private final List<Usuario> validos;
+    private final List<Integer> posicoes;
+
+    private LoteValidado(int total) {
+        this.total = total;
+        this.validos = new ArrayList<>(total);
+        this.posicoes = new ArrayList<>(total);
+    }
+
+    static LoteValidado validar(List<UsuarioCreateDto> createDtos, int tamanhoMaximo, Validator validator) {
+        if (createDtos.size() > tamanhoMaximo) {
+            throw new BatchSizeExceededException(String.format("Lote com %d usuários excede o máximo de %d", createDtos.size(), tamanhoMaximo));
+        }
+        LoteValidado lote = new LoteValidado(createDtos.size());
+        for (int i = 0; i < createDtos.size(); i++) {
+            UsuarioCreateDto dto = createDtos.get(i);
+            if (dto == null) {
+                lote.erros.add(new UsuarioLoteErroDto(i, null, "Item nulo"));
+                continue;
+            }
+            Set<ConstraintViolation<UsuarioCreateDto>> violacoes = validator.validate(dto);
+            if (!violacoes.isEmpty()) {
+                lote.erros.add(new UsuarioLoteErroDto(i, dto.getUsername(), violacoes.stream()
+                    .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                    .sorted()
+                    .collect(Collectors.joining("; "))));
+                continue;
+            }
+            lote.validos.add(UsuarioMapper.toUsuario(dto));
+            lote.posicoes.add(i);
+        }
+        return lote;
+    }
+
+    List<Usuario> getValidos() {
+        return validos;
+    }
+
+    UsuarioLoteResponseDto responder(ResultadoLote resultado) {
+        resultado.getFalhas().forEach((posicao, motivo) ->
+            erros.add(new UsuarioLoteErroDto(posicoes.get(posicao), validos.get(posicao).getUsername(), motivo)));
+        erros.sort(Comparator.comparingInt(UsuarioLoteErroDto::getIndice));
+        return new UsuarioLoteResponseDto(total, UsuarioMapper.toListDto(resultado.getCriados()), erros);
+    }
+}
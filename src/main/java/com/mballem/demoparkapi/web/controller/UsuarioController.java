@@ -1,12 +1,30 @@
 package com.mballem.demoparkapi.web.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.mballem.demoparkapi.entity.Usuario;
+import com.mballem.demoparkapi.exception.InvalidFilterException;
+import com.mballem.demoparkapi.repository.FiltroPesquisa;
+import com.mballem.demoparkapi.repository.UsuarioDetalhe;
+import com.mballem.demoparkapi.repository.UsuarioResumo;
+import com.mballem.demoparkapi.repository.VersaoUsuarios;
+import com.mballem.demoparkapi.service.ResultadoLote;
 import com.mballem.demoparkapi.service.UsuarioService;
+import com.mballem.demoparkapi.web.admissao.Prioridade;
+import com.mballem.demoparkapi.web.admissao.PrioridadeAdmissao;
+import com.mballem.demoparkapi.web.dto.UsuarioBuscaItemDto;
 import com.mballem.demoparkapi.web.dto.UsuarioCreateDto;
+import com.mballem.demoparkapi.web.dto.UsuarioEstatisticasDto;
+import com.mballem.demoparkapi.web.dto.UsuarioLoteResponseDto;
+import com.mballem.demoparkapi.web.dto.UsuarioPaginaDto;
 import com.mballem.demoparkapi.web.dto.UsuarioResponseDto;
 import com.mballem.demoparkapi.web.dto.UsuarioSenhaDto;
 import com.mballem.demoparkapi.web.dto.mapper.UsuarioMapper;
+import com.mballem.demoparkapi.web.eventos.DistribuidorEventos;
 import com.mballem.demoparkapi.web.exception.ErrorMessage;
+import com.mballem.demoparkapi.web.idempotencia.Idempotencia;
+import com.mballem.demoparkapi.web.idempotencia.RespostaIdempotente;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
@@ -15,23 +33,57 @@ import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.List;
+import java.util.Map;
 
 @Tag(name = "Usuários", description = "Contém todas as operações relativos aos recursos para cadastro, edição e leitura de um usuário;")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 @RequiredArgsConstructor
 @RestController
 @RequestMapping("api/v1/usuarios")
 public class UsuarioController {
 
     private final UsuarioService usuarioService;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+    private final Idempotencia idempotencia;
+    private final DistribuidorEventos distribuidorEventos;
+
+    @Value("${demopark.usuarios.paginacao.tamanho-maximo:100}")
+    private int tamanhoMaximoPagina;
+
+    @Value("${demopark.usuarios.lote.tamanho-maximo:5000}")
+    private int tamanhoMaximoLote;
+
+    @Value("${demopark.usuarios.busca-ids.tamanho-maximo:500}")
+    private int tamanhoMaximoBuscaIds;
+
+    @Value("${demopark.usuarios.estatisticas.dias-maximo:366}")
+    private int diasMaximoEstatisticas;
+
     @Operation(
         summary = "Criar um novo usuário",
-        description = "Recurso para criar um novo usuário",
+        description = "Recurso para criar um novo usuário. Com o cabeçalho Idempotency-Key, uma repetição da mesma chave "
+            + "recebe a resposta original (com Idempotent-Replayed: true) sem cadastrar de novo; a mesma chave com outro "
+            + "username é recusada com 422",
         responses = {
             @ApiResponse(responseCode = "201", 
             description = "Recurso criado com sucesso", 
@@ -40,14 +92,50 @@ public class UsuarioController {
             description = "Usuário já cadastrado no sistema",
             content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorMessage.class))),
             @ApiResponse(responseCode = "422", 
-            description = "Recurso não processado por dados de entrada inválidos",
+            description = "Recurso não processado por dados de entrada inválidos ou Idempotency-Key usada em outro cadastro",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorMessage.class))),
+            @ApiResponse(responseCode = "503", 
+            description = "Cadastro com a mesma Idempotency-Key ainda em andamento",
             content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorMessage.class)))
         }
     )
     @PostMapping
-    public ResponseEntity<UsuarioResponseDto> create(@Valid @RequestBody UsuarioCreateDto createDto) {
-        Usuario user = usuarioService.salvar(UsuarioMapper.toUsuario(createDto));
-        return ResponseEntity.status(HttpStatus.CREATED).body(UsuarioMapper.toDto(user));
+    public ResponseEntity<UsuarioResponseDto> create(@Valid @RequestBody UsuarioCreateDto createDto,
+                                                     @RequestHeader(name = Idempotencia.CABECALHO, required = false) String chaveIdempotencia) {
+        if (chaveIdempotencia == null) {
+            Usuario user = usuarioService.salvar(UsuarioMapper.toUsuario(createDto));
+            return ResponseEntity.status(HttpStatus.CREATED).body(UsuarioMapper.toDto(user));
+        }
+        String impressao = Idempotencia.impressao(createDto.getUsername(), createDto.getPassword());
+        Idempotencia.Resultado resultado = idempotencia.executar(chaveIdempotencia, impressao, () -> {
+            Usuario user = usuarioService.salvar(UsuarioMapper.toUsuario(createDto));
+            return new RespostaIdempotente(impressao, HttpStatus.CREATED.value(), toJson(UsuarioMapper.toDto(user)));
+        });
+        ResponseEntity.BodyBuilder resposta = ResponseEntity.status(resultado.resposta().status());
+        if (resultado.repetida()) {
+            resposta.header(Idempotencia.CABECALHO_REPETIDA, "true");
+        }
+        return resposta.body(fromJson(resultado.resposta().corpo()));
+    }
+
+    @Operation(
+        summary = "Criar usuários em lote",
+        description = "Recurso para criar vários usuários em uma requisição. Itens inválidos ou repetidos são informados em erros sem impedir a gravação dos demais",
+        responses = {
+            @ApiResponse(responseCode = "200", 
+            description = "Lote processado, com os usuários criados e os itens rejeitados", 
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = UsuarioLoteResponseDto.class))),
+            @ApiResponse(responseCode = "413", 
+            description = "Lote acima do tamanho máximo permitido",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorMessage.class)))
+        }
+    )
+    @PostMapping("/lote")
+    @PrioridadeAdmissao(Prioridade.BAIXA)
+    public ResponseEntity<UsuarioLoteResponseDto> createBatch(@RequestBody List<UsuarioCreateDto> createDtos) {
+        LoteValidado lote = LoteValidado.validar(createDtos, tamanhoMaximoLote, validator);
+        ResultadoLote resultado = usuarioService.salvarLote(lote.getValidos());
+        return ResponseEntity.ok(lote.responder(resultado));
     }
 
     @Operation(
@@ -57,15 +145,45 @@ public class UsuarioController {
             @ApiResponse(responseCode = "200", 
             description = "Recurso recuperado com sucesso", 
             content = @Content(mediaType = "application/json", schema = @Schema(implementation = UsuarioResponseDto.class))),
+            @ApiResponse(responseCode = "304", 
+            description = "Recurso não modificado desde o ETag (If-None-Match) ou a data (If-Modified-Since) informados"),
             @ApiResponse(responseCode = "404", 
             description = "Recurso não encontrado",
             content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorMessage.class)))
         }
     )
     @GetMapping("/{id}")
-    public ResponseEntity<UsuarioResponseDto> getById(@PathVariable Long id) {
-        Usuario user = usuarioService.buscarPorId(id);
-        return ResponseEntity.ok(UsuarioMapper.toDto(user));
+    @PrioridadeAdmissao(Prioridade.ALTA)
+    public ResponseEntity<UsuarioResponseDto> getById(@PathVariable Long id, WebRequest request) {
+        UsuarioDetalhe user = usuarioService.buscarPorId(id);
+        // ETag fraco: a mesma versão sai em JSON, CBOR, Smile ou protobuf, com ou sem gzip,
+        // e o Tomcat não comprime respostas com ETag forte
+        String etag = "W/\"" + user.id() + "-" + user.versao() + "\"";
+        // Retornar null depois do checkNotModified faz o Spring responder 304 sem corpo
+        if (request.checkNotModified(etag, toEpochMilli(user.dataModificacao()))) {
+            return null;
+        }
+        return ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT).body(UsuarioMapper.toDto(user));
+    }
+
+    @Operation(
+        summary = "Recuperar vários usuários pelos ids",
+        description = "Recuperar até o máximo configurado de usuários em uma requisição (ids separados por vírgula). "
+            + "Os itens seguem a ordem pedida, ids repetidos aparecem uma só vez e cada id inexistente vem com erro no próprio item",
+        responses = {
+            @ApiResponse(responseCode = "200", 
+            description = "Recursos recuperados, com erro por item para os ids inexistentes", 
+            content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = UsuarioBuscaItemDto.class)))),
+            @ApiResponse(responseCode = "413", 
+            description = "Quantidade de ids acima do máximo permitido",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorMessage.class)))
+        }
+    )
+    @GetMapping("/busca")
+    public ResponseEntity<List<UsuarioBuscaItemDto>> getByIds(@RequestParam List<Long> ids) {
+        BuscaPorIds busca = BuscaPorIds.validar(ids, tamanhoMaximoBuscaIds);
+        Map<Long, UsuarioDetalhe> encontrados = usuarioService.buscarPorIds(busca.getIds());
+        return ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT).body(busca.responder(encontrados));
     }
 
     @Operation(
@@ -92,18 +210,227 @@ public class UsuarioController {
         return ResponseEntity.noContent().build();
     }
 
+    @Operation(
+        summary = "Recuperar estatísticas de usuários",
+        description = "Recuperar o total de usuários, o total por role e os cadastros por dia nos últimos dias (padrão 30, "
+            + "limitado ao máximo configurado). Os números vêm de contadores em memória reconciliados periodicamente com o banco",
+        responses = {
+            @ApiResponse(responseCode = "200", 
+            description = "Recurso recuperado com sucesso", 
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = UsuarioEstatisticasDto.class)))
+        }
+    )
+    @GetMapping("/estatisticas")
+    public ResponseEntity<UsuarioEstatisticasDto> getStatistics(@RequestParam(defaultValue = "30") int dias) {
+        int limite = Math.max(1, Math.min(dias, diasMaximoEstatisticas));
+        return ResponseEntity.ok(UsuarioMapper.toDto(usuarioService.buscarEstatisticas(limite)));
+    }
+
     @Operation(
         summary = "Recuperar lista de usuários",
-        description = "Recuperar lista de usuários",
+        description = "Recuperar lista de usuários. Pelo Accept a resposta sai em JSON (padrão), application/cbor, "
+            + "application/x-jackson-smile ou application/x-protobuf (mensagem Lista, campo repetido itens)",
         responses = {
             @ApiResponse(responseCode = "200", 
             description = "Recurso recuperado com sucesso", 
-            content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = UsuarioResponseDto.class))))
+            content = @Content(mediaType = "application/json", array = @ArraySchema(schema = @Schema(implementation = UsuarioResponseDto.class)))),
+            @ApiResponse(responseCode = "304", 
+            description = "Lista não modificada desde o ETag (If-None-Match) ou a data (If-Modified-Since) informados")
         }
     )
     @GetMapping
-    public ResponseEntity<List<UsuarioResponseDto>> getAll() {
-        List<Usuario> users = usuarioService.buscarTodos();
-        return ResponseEntity.ok(UsuarioMapper.toListDto(users));
+    @PrioridadeAdmissao(Prioridade.BAIXA)
+    public ResponseEntity<List<UsuarioResponseDto>> getAll(WebRequest request) {
+        // Valida a coleção com uma consulta agregada antes de carregar qualquer usuário
+        VersaoUsuarios versao = usuarioService.buscarVersaoTodos();
+        String etag = "W/\"" + versao.total() + "-" + versao.somaVersoes() + "-" + toEpochMilli(versao.ultimaModificacao()) + "\"";
+        if (request.checkNotModified(etag, toEpochMilli(versao.ultimaModificacao()))) {
+            return null;
+        }
+        List<UsuarioResumo> users = usuarioService.buscarTodos();
+        return ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT).body(UsuarioMapper.toResumoListDto(users));
+    }
+
+    @Operation(
+        summary = "Recuperar página de usuários",
+        description = "Recuperar usuários ordenados por id, paginados por cursor. O tamanho é limitado pelo máximo configurado",
+        responses = {
+            @ApiResponse(responseCode = "200", 
+            description = "Recurso recuperado com sucesso", 
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = UsuarioPaginaDto.class))),
+            @ApiResponse(responseCode = "400", 
+            description = "Cursor inválido",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorMessage.class)))
+        }
+    )
+    @GetMapping("/pagina")
+    public ResponseEntity<UsuarioPaginaDto> getPage(@RequestParam(required = false) String cursor,
+                                                    @RequestParam(defaultValue = "20") int tamanho) {
+        int limite = Math.max(1, Math.min(tamanho, tamanhoMaximoPagina));
+        // Busca um registro a mais para saber se existe próxima página sem precisar de count
+        List<UsuarioResumo> users = usuarioService.buscarPagina(CursorPaginacao.decode(cursor), limite + 1);
+        String proximoCursor = null;
+        if (users.size() > limite) {
+            users = users.subList(0, limite);
+            proximoCursor = CursorPaginacao.encode(users.get(limite - 1).id());
+        }
+        return ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT).body(new UsuarioPaginaDto(UsuarioMapper.toResumoListDto(users), proximoCursor));
+    }
+
+    @Operation(
+        summary = "Pesquisar usuários",
+        description = "Pesquisar usuários pelo início do username (prefixo) e pelo domínio do e-mail (dominio, o trecho depois "
+            + "do @), com filtros opcionais por role (ADMIN ou CLIENTE) e data de criação (criadoDe inclusive, criadoAte "
+            + "exclusive, ISO 8601). O resultado sai ordenado por username e paginado por cursor",
+        responses = {
+            @ApiResponse(responseCode = "200", 
+            description = "Recurso recuperado com sucesso", 
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = UsuarioPaginaDto.class))),
+            @ApiResponse(responseCode = "400", 
+            description = "Filtro ou cursor inválido",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorMessage.class)))
+        }
+    )
+    @GetMapping("/pesquisa")
+    @PrioridadeAdmissao(Prioridade.BAIXA)
+    public ResponseEntity<UsuarioPaginaDto> search(@RequestParam(required = false) String prefixo,
+                                                   @RequestParam(required = false) String dominio,
+                                                   @RequestParam(required = false) String role,
+                                                   @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime criadoDe,
+                                                   @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime criadoAte,
+                                                   @RequestParam(required = false) String cursor,
+                                                   @RequestParam(defaultValue = "20") int tamanho) {
+        FiltroPesquisa filtro = new FiltroPesquisa(textoFiltro("prefixo", prefixo), textoFiltro("dominio", dominio),
+            filtroRole(role), criadoDe, criadoAte);
+        int limite = Math.max(1, Math.min(tamanho, tamanhoMaximoPagina));
+        // Um registro a mais indica se existe próxima página
+        List<UsuarioResumo> users = usuarioService.pesquisar(filtro, CursorPaginacao.decodeTexto(cursor), limite + 1);
+        String proximoCursor = null;
+        if (users.size() > limite) {
+            users = users.subList(0, limite);
+            proximoCursor = CursorPaginacao.encode(users.get(limite - 1).username());
+        }
+        return ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT).body(new UsuarioPaginaDto(UsuarioMapper.toResumoListDto(users), proximoCursor));
+    }
+
+    @Operation(
+        summary = "Transmitir todos os usuários",
+        description = "Transmitir todos os usuários em NDJSON (um objeto JSON por linha), com memória constante no servidor",
+        responses = {
+            @ApiResponse(responseCode = "200", 
+            description = "Recurso recuperado com sucesso", 
+            content = @Content(mediaType = "application/x-ndjson", schema = @Schema(implementation = UsuarioResponseDto.class)))
+        }
+    )
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @PrioridadeAdmissao(Prioridade.BAIXA)
+    public ResponseEntity<StreamingResponseBody> stream() {
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.setRootValueSeparator(null);
+                usuarioService.percorrerTodos(user -> {
+                    try {
+                        generator.writeObject(UsuarioMapper.toDto(user));
+                        generator.writeRaw('\n');
+                    } catch (IOException ex) {
+                        throw new UncheckedIOException(ex);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    @Operation(
+        summary = "Exportar usuários",
+        description = "Exportar os usuários em CSV (padrão) ou NDJSON, lidos por cursor e escritos direto na resposta, com memória "
+            + "constante no servidor. Filtros opcionais por role (ADMIN ou CLIENTE) e por data de criação (criadoDe inclusive, "
+            + "criadoAte exclusive, ISO 8601). Com Accept-Encoding: gzip a resposta sai comprimida",
+        responses = {
+            @ApiResponse(responseCode = "200", 
+            description = "Exportação transmitida, uma linha por usuário", 
+            content = {@Content(mediaType = "text/csv"), @Content(mediaType = "application/x-ndjson")}),
+            @ApiResponse(responseCode = "400", 
+            description = "Formato ou filtro inválido",
+            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorMessage.class)))
+        }
+    )
+    @GetMapping("/exportacao")
+    @PrioridadeAdmissao(Prioridade.BAIXA)
+    public ResponseEntity<StreamingResponseBody> export(@RequestParam(defaultValue = "csv") String formato,
+                                                        @RequestParam(required = false) String role,
+                                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime criadoDe,
+                                                        @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime criadoAte) {
+        FormatoExportacao destino = FormatoExportacao.de(formato);
+        Usuario.Role roleExportada = filtroRole(role);
+        StreamingResponseBody body = out -> {
+            try (EscritorExportacao escritor = new EscritorExportacao(destino, out, objectMapper.getFactory())) {
+                usuarioService.exportar(roleExportada, criadoDe, criadoAte, escritor);
+            }
+        };
+        return ResponseEntity.ok()
+            .contentType(destino.getMediaType())
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"usuarios." + destino.getExtensao() + "\"")
+            .body(body);
+    }
+
+    @Operation(
+        summary = "Acompanhar alterações de usuários",
+        description = "Server-Sent Events com os cadastros (USUARIO_CRIADO) e trocas de senha (SENHA_ALTERADA) já confirmados, "
+            + "no lugar de consultar a lista repetidamente. Ao reconectar com Last-Event-ID o cliente recebe os eventos "
+            + "perdidos, enquanto estiverem no histórico; fora dele recebe RESSINCRONIZAR e deve recarregar a lista. "
+            + "Um cliente que não acompanha o ritmo dos eventos é desconectado",
+        responses = {
+            @ApiResponse(responseCode = "200", 
+            description = "Conexão aberta; cada evento traz o usuário alterado em JSON", 
+            content = @Content(mediaType = "text/event-stream", schema = @Schema(implementation = UsuarioResponseDto.class)))
+        }
+    )
+    @GetMapping(value = "/eventos", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter events(@RequestHeader(name = "Last-Event-ID", required = false) String ultimoId) {
+        return distribuidorEventos.assinar(ultimoId);
+    }
+
+    private String toJson(UsuarioResponseDto dto) {
+        try {
+            return objectMapper.writeValueAsString(dto);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private UsuarioResponseDto fromJson(String json) {
+        try {
+            return objectMapper.readValue(json, UsuarioResponseDto.class);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    private static Usuario.Role filtroRole(String role) {
+        if (role == null) {
+            return null;
+        }
+        Usuario.Role filtro = UsuarioMapper.fromRole(role);
+        if (filtro == null) {
+            throw new InvalidFilterException(String.format("Role {%s} inválida, use ADMIN ou CLIENTE", role));
+        }
+        return filtro;
+    }
+
+    // Vazio vale como ausente; acima de 100 caracteres (o tamanho da coluna username) o filtro é recusado com 400
+    private static String textoFiltro(String nome, String valor) {
+        if (valor == null || valor.isBlank()) {
+            return null;
+        }
+        if (valor.length() > 100) {
+            throw new InvalidFilterException(String.format("Filtro %s com mais de 100 caracteres", nome));
+        }
+        return valor;
+    }
+
+    // -1 indica ao checkNotModified que não há data de modificação (usuários anteriores à auditoria)
+    private static long toEpochMilli(LocalDateTime data) {
+        return data == null ? -1 : data.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
     }
 }
@@ -0,0 +1,140 @@
+package com.mballem.demoparkapi.web.controller;
+
+import com.mballem.demoparkapi.repository.UsuarioResumo;
+import com.mballem.demoparkapi.service.UsuarioServiceReativo;
+import com.mballem.demoparkapi.web.dto.UsuarioBuscaItemDto;
+import com.mballem.demoparkapi.web.dto.UsuarioCreateDto;
+import com.mballem.demoparkapi.web.dto.UsuarioEstatisticasDto;
+import com.mballem.demoparkapi.web.dto.UsuarioLoteResponseDto;
+import com.mballem.demoparkapi.web.dto.UsuarioPaginaDto;
+import com.mballem.demoparkapi.web.dto.UsuarioResponseDto;
+import com.mballem.demoparkapi.web.dto.UsuarioSenhaDto;
+import com.mballem.demoparkapi.web.dto.mapper.UsuarioMapper;
+
+import jakarta.validation.Valid;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+// Mesmos recursos do UsuarioController na pilha reativa (perfil reativo). Os GETs condicionais não precisam
+// de tratamento aqui: com ETag e Last-Modified na resposta, o WebFlux devolve 304 sem assinar o corpo,
+// então a lista nem chega a ser consultada quando o cliente já tem a versão atual
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+@RestController
+@RequestMapping("api/v1/usuarios")
+public class UsuarioControllerReativo {
+
+    private final UsuarioServiceReativo usuarioService;
+    private final Validator validator;
+
+    @Value("${demopark.usuarios.paginacao.tamanho-maximo:100}")
+    private int tamanhoMaximoPagina;
+
+    @Value("${demopark.usuarios.lote.tamanho-maximo:5000}")
+    private int tamanhoMaximoLote;
+
+    @Value("${demopark.usuarios.busca-ids.tamanho-maximo:500}")
+    private int tamanhoMaximoBuscaIds;
+
+    @Value("${demopark.usuarios.estatisticas.dias-maximo:366}")
+    private int diasMaximoEstatisticas;
+
+    @PostMapping
+    public Mono<ResponseEntity<UsuarioResponseDto>> create(@Valid @RequestBody UsuarioCreateDto createDto) {
+        return usuarioService.salvar(UsuarioMapper.toUsuario(createDto))
+            .map(user -> ResponseEntity.status(HttpStatus.CREATED).body(UsuarioMapper.toDto(user)));
+    }
+
+    @PostMapping("/lote")
+    public Mono<ResponseEntity<UsuarioLoteResponseDto>> createBatch(@RequestBody List<UsuarioCreateDto> createDtos) {
+        LoteValidado lote = LoteValidado.validar(createDtos, tamanhoMaximoLote, validator);
+        return usuarioService.salvarLote(lote.getValidos())
+            .map(resultado -> ResponseEntity.ok(lote.responder(resultado)));
+    }
+
+    @GetMapping("/{id}")
+    public Mono<ResponseEntity<UsuarioResponseDto>> getById(@PathVariable Long id) {
+        return usuarioService.buscarPorId(id).map(user -> {
+            ResponseEntity.BodyBuilder resposta = ResponseEntity.ok().eTag("W/\"" + user.id() + "-" + user.versao() + "\"");
+            if (user.dataModificacao() != null) {
+                resposta.lastModified(toInstant(user.dataModificacao()));
+            }
+            return resposta.body(UsuarioMapper.toDto(user));
+        });
+    }
+
+    @GetMapping("/busca")
+    public Mono<ResponseEntity<List<UsuarioBuscaItemDto>>> getByIds(@RequestParam List<Long> ids) {
+        BuscaPorIds busca = BuscaPorIds.validar(ids, tamanhoMaximoBuscaIds);
+        return usuarioService.buscarPorIds(busca.getIds())
+            .map(encontrados -> ResponseEntity.ok(busca.responder(encontrados)));
+    }
+
+    @PatchMapping("/{id}")
+    public Mono<ResponseEntity<Void>> updatePassword(@PathVariable Long id, @Valid @RequestBody UsuarioSenhaDto dto) {
+        return usuarioService.editarSenha(id, dto.getSenhaAtual(), dto.getNovaSenha(), dto.getConfirmaSenha())
+            .then(Mono.just(ResponseEntity.noContent().build()));
+    }
+
+    @GetMapping("/estatisticas")
+    public Mono<ResponseEntity<UsuarioEstatisticasDto>> getStatistics(@RequestParam(defaultValue = "30") int dias) {
+        int limite = Math.max(1, Math.min(dias, diasMaximoEstatisticas));
+        return usuarioService.buscarEstatisticas(limite).map(retrato -> ResponseEntity.ok(UsuarioMapper.toDto(retrato)));
+    }
+
+    @GetMapping
+    public Mono<ResponseEntity<Flux<UsuarioResponseDto>>> getAll() {
+        return usuarioService.buscarVersaoTodos().map(versao -> {
+            ResponseEntity.BodyBuilder resposta = ResponseEntity.ok()
+                .eTag("W/\"" + versao.total() + "-" + versao.somaVersoes() + "-" + toEpochMilli(versao.ultimaModificacao()) + "\"");
+            if (versao.ultimaModificacao() != null) {
+                resposta.lastModified(toInstant(versao.ultimaModificacao()));
+            }
+            return resposta.body(usuarioService.buscarTodos().map(UsuarioMapper::toDto));
+        });
+    }
+
+    @GetMapping("/pagina")
+    public Mono<ResponseEntity<UsuarioPaginaDto>> getPage(@RequestParam(required = false) String cursor,
+                                                          @RequestParam(defaultValue = "20") int tamanho) {
+        int limite = Math.max(1, Math.min(tamanho, tamanhoMaximoPagina));
+        // Busca um registro a mais para saber se existe próxima página sem precisar de count
+        return usuarioService.buscarPagina(CursorPaginacao.decode(cursor), limite + 1).collectList()
+            .map(users -> {
+                String proximoCursor = null;
+                List<UsuarioResumo> pagina = users;
+                if (users.size() > limite) {
+                    pagina = users.subList(0, limite);
+                    proximoCursor = CursorPaginacao.encode(pagina.get(limite - 1).id());
+                }
+                return ResponseEntity.ok(new UsuarioPaginaDto(UsuarioMapper.toResumoListDto(pagina), proximoCursor));
+            });
+    }
+
+    // Cada linha do cursor R2DBC vira uma linha NDJSON; o ritmo de leitura do banco acompanha o de escrita na conexão
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<UsuarioResponseDto> stream() {
+        return usuarioService.buscarTodos().map(UsuarioMapper::toDto);
+    }
+
+    private static Instant toInstant(LocalDateTime data) {
+        return data.atZone(ZoneId.systemDefault()).toInstant();
+    }
+
+    private static long toEpochMilli(LocalDateTime data) {
+        return data == null ? -1 : toInstant(data).toEpochMilli();
+    }
+}
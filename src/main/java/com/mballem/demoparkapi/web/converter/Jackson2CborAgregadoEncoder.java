@@ -0,0 +1,37 @@
+package com.mballem.demoparkapi.web.converter;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.reactivestreams.Publisher;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.Map;
+
+// O Jackson2CborEncoder do WebFlux só implementa encodeValue e recusa qualquer Publisher, inclusive Mono.
+// Aqui o Mono vira um valor e o Flux é juntado num array CBOR, como o corpo JSON de GET /usuarios
+public class Jackson2CborAgregadoEncoder extends Jackson2CborEncoder {
+
+    public Jackson2CborAgregadoEncoder(ObjectMapper mapper) {
+        super(mapper, MediaType.APPLICATION_CBOR);
+    }
+
+    @Override
+    public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory, ResolvableType elementType,
+                                   MimeType mimeType, Map<String, Object> hints) {
+        if (inputStream instanceof Mono<?> mono) {
+            return mono.map(valor -> encodeValue(valor, bufferFactory, elementType, mimeType, hints)).flux();
+        }
+        ResolvableType lista = ResolvableType.forClassWithGenerics(List.class, elementType);
+        return Flux.from(inputStream)
+            .collectList()
+            .map(itens -> encodeValue(itens, bufferFactory, lista, mimeType, hints))
+            .flux();
+    }
+}
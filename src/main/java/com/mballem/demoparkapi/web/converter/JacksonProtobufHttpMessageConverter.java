@@ -0,0 +1,111 @@
+package com.mballem.demoparkapi.web.converter;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.protobuf.ProtobufMapper;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchema;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+// Respostas em protobuf sem código gerado: o schema sai dos próprios DTOs (jackson-dataformat-protobuf),
+// uma vez por tipo. Os números dos campos seguem a ordem de declaração no DTO, então campos novos vão no fim.
+// Uma lista vira a mensagem Lista com o campo repetido itens, porque a raiz de um protobuf é sempre mensagem
+public class JacksonProtobufHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    public static final String APPLICATION_PROTOBUF_VALUE = "application/x-protobuf";
+    public static final MediaType APPLICATION_PROTOBUF = MediaType.parseMediaType(APPLICATION_PROTOBUF_VALUE);
+
+    private static final String PACOTE_DTO = "com.mballem.demoparkapi.web.dto";
+
+    private final ProtobufMapper mapper = new ProtobufMapper();
+    // Só os DTOs de resposta da API; os demais tipos (e DTOs sem schema possível) ficam guardados como vazios
+    private final Map<JavaType, Optional<ObjectWriter>> escritores = new ConcurrentHashMap<>();
+
+    public JacksonProtobufHttpMessageConverter() {
+        super(APPLICATION_PROTOBUF);
+    }
+
+    public record Lista<T>(List<T> itens) {
+    }
+
+    // Pela classe crua não dá para saber o tipo dos itens de uma lista; a conferência completa fica no canWrite com o tipo genérico
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return Collection.class.isAssignableFrom(clazz) || escritor(clazz, clazz).isPresent();
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        return canWrite(mediaType) && escritor(type, clazz).isPresent();
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected boolean canRead(MediaType mediaType) {
+        return false;
+    }
+
+    @Override
+    protected void writeInternal(Object objeto, Type type, HttpOutputMessage outputMessage) throws IOException {
+        ObjectWriter escritor = escritor(type, objeto.getClass()).orElseThrow();
+        Object raiz = objeto;
+        if (objeto instanceof List<?> itens) {
+            raiz = new Lista<>(itens);
+        } else if (objeto instanceof Collection<?> itens) {
+            raiz = new Lista<>(List.copyOf(itens));
+        }
+        escritor.writeValue(outputMessage.getBody(), raiz);
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Corpo em protobuf não é aceito nas requisições", inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) {
+        throw new HttpMessageNotReadableException("Corpo em protobuf não é aceito nas requisições", inputMessage);
+    }
+
+    private Optional<ObjectWriter> escritor(Type type, Class<?> clazz) {
+        JavaType tipo = mapper.constructType(type != null ? type : clazz);
+        return escritores.computeIfAbsent(tipo, this::criarEscritor);
+    }
+
+    private Optional<ObjectWriter> criarEscritor(JavaType tipo) {
+        JavaType item = tipo.isCollectionLikeType() ? tipo.getContentType() : tipo;
+        if (item == null || !item.getRawClass().getPackageName().equals(PACOTE_DTO)) {
+            return Optional.empty();
+        }
+        JavaType raiz = tipo.isCollectionLikeType() ? mapper.getTypeFactory().constructParametricType(Lista.class, item) : tipo;
+        try {
+            return Optional.of(mapper.writerFor(raiz).with(gerarSchema(raiz)));
+        } catch (IllegalArgumentException | UnsupportedOperationException ex) {
+            // O módulo protobuf não gera schema para Map (UsuarioEstatisticasDto, por exemplo)
+            return Optional.empty();
+        }
+    }
+
+    private ProtobufSchema gerarSchema(JavaType tipo) {
+        try {
+            return mapper.generateSchemaFor(tipo);
+        } catch (IOException ex) {
+            throw new IllegalArgumentException("Sem schema protobuf para " + tipo, ex);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package com.mballem.demoparkapi.web.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @ToString
+public class UsuarioBuscaItemDto {
+    private Long id;
+    // Nulo quando o id não existe; o motivo vai em erro
+    private UsuarioResponseDto usuario;
+    private String erro;
+}
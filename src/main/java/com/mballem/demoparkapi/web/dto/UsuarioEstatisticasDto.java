@@ -0,0 +1,21 @@
+package com.mballem.demoparkapi.web.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Map;
+
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @ToString
+public class UsuarioEstatisticasDto {
+    private long total;
+    private Map<String, Long> porRole;
+    // Só os dias com cadastros, em ordem de data
+    private Map<LocalDate, Long> cadastrosPorDia;
+    // Nulo até a primeira reconciliação com o banco
+    private LocalDateTime reconciliadoEm;
+}
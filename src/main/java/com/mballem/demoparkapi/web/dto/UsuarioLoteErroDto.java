@@ -0,0 +1,15 @@
+package com.mballem.demoparkapi.web.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @ToString
+public class UsuarioLoteErroDto {
+    // Posição do item na lista enviada
+    private int indice;
+    private String username;
+    private String motivo;
+}
@@ -0,0 +1,16 @@
+package com.mballem.demoparkapi.web.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.List;
+
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @ToString
+public class UsuarioLoteResponseDto {
+    private int total;
+    private List<UsuarioResponseDto> criados;
+    private List<UsuarioLoteErroDto> erros;
+}
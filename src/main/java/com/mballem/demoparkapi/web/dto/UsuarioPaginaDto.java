@@ -0,0 +1,16 @@
+package com.mballem.demoparkapi.web.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
+
+import java.util.List;
+
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @ToString
+public class UsuarioPaginaDto {
+    private List<UsuarioResponseDto> conteudo;
+    // Nulo quando não há mais páginas
+    private String proximoCursor;
+}
@@ -1,36 +1,87 @@
 package com.mballem.demoparkapi.web.dto.mapper;
 
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.stream.Collectors;
-
-import org.modelmapper.ModelMapper;
-import org.modelmapper.PropertyMap;
+import java.util.Map;
 
 import com.mballem.demoparkapi.entity.Usuario;
+import com.mballem.demoparkapi.repository.UsuarioDetalhe;
+import com.mballem.demoparkapi.repository.UsuarioResumo;
+import com.mballem.demoparkapi.service.EstatisticasUsuarios;
 import com.mballem.demoparkapi.web.dto.UsuarioCreateDto;
+import com.mballem.demoparkapi.web.dto.UsuarioEstatisticasDto;
 import com.mballem.demoparkapi.web.dto.UsuarioResponseDto;
 
+// Mapeamento montado uma única vez na carga da classe: acessores diretos, sem reflexão por chamada,
+// e sem estado mutável compartilhado, portanto seguro para uso concorrente
 public class UsuarioMapper {
+
+    // Conversor registrado para o role: o nome sem o prefixo ROLE_ é calculado uma vez por constante do enum
+    private static final Map<Usuario.Role, String> ROLES = new EnumMap<>(Usuario.Role.class);
+
+    static {
+        for (Usuario.Role role : Usuario.Role.values()) {
+            ROLES.put(role, role.name().substring("ROLE_".length()));
+        }
+    }
+
+    private UsuarioMapper() {
+    }
+
     public static Usuario toUsuario(UsuarioCreateDto createDto){
-        return new ModelMapper().map(createDto, Usuario.class);
+        Usuario usuario = new Usuario();
+        usuario.setUsername(createDto.getUsername());
+        usuario.setPassword(createDto.getPassword());
+        return usuario;
     }
 
     public static UsuarioResponseDto toDto(Usuario usuario){
-        // Pega o role como string do usuario, ao usar o getRole() ele pega o enum, daí para pegar o nome, utiliza-se o .name() e a substring é para não pegar o nome ROLE_ antes
-        String role = usuario.getRole().name().substring("ROLE_".length());
-        // Para pegar a string do role e colocar no UsuarioResponseDto
-        PropertyMap<Usuario, UsuarioResponseDto> props = new PropertyMap<Usuario,UsuarioResponseDto>() {
-            @Override
-            protected void configure(){
-                map().setRole(role);
-            }
-        };
-        ModelMapper mapper = new ModelMapper();
-        mapper.addMappings(props);
-        return mapper.map(usuario, UsuarioResponseDto.class);
+        return new UsuarioResponseDto(usuario.getId(), usuario.getUsername(), toRole(usuario.getRole()));
+    }
+
+    public static UsuarioResponseDto toDto(UsuarioResumo usuario){
+        return new UsuarioResponseDto(usuario.id(), usuario.username(), toRole(usuario.role()));
+    }
+
+    public static UsuarioResponseDto toDto(UsuarioDetalhe usuario){
+        return new UsuarioResponseDto(usuario.id(), usuario.username(), toRole(usuario.role()));
     }
 
     public static List<UsuarioResponseDto> toListDto(List<Usuario> usuarios){
-        return usuarios.stream().map(user -> toDto(user)).collect(Collectors.toList());
+        List<UsuarioResponseDto> dtos = new ArrayList<>(usuarios.size());
+        for (Usuario usuario : usuarios) {
+            dtos.add(toDto(usuario));
+        }
+        return dtos;
+    }
+
+    public static List<UsuarioResponseDto> toResumoListDto(List<UsuarioResumo> usuarios){
+        List<UsuarioResponseDto> dtos = new ArrayList<>(usuarios.size());
+        for (UsuarioResumo usuario : usuarios) {
+            dtos.add(toDto(usuario));
+        }
+        return dtos;
+    }
+
+    public static UsuarioEstatisticasDto toDto(EstatisticasUsuarios.Retrato retrato){
+        Map<String, Long> porRole = new LinkedHashMap<>();
+        retrato.porRole().forEach((role, quantidade) -> porRole.put(toRole(role), quantidade));
+        return new UsuarioEstatisticasDto(retrato.total(), porRole, retrato.porDia(), retrato.reconciliadoEm());
+    }
+
+    public static String toRole(Usuario.Role role) {
+        return role == null ? null : ROLES.get(role);
+    }
+
+    // Inverso do toRole, sem diferenciar maiúsculas; null para um nome desconhecido
+    public static Usuario.Role fromRole(String role) {
+        for (Map.Entry<Usuario.Role, String> entrada : ROLES.entrySet()) {
+            if (entrada.getValue().equalsIgnoreCase(role)) {
+                return entrada.getKey();
+            }
+        }
+        return null;
     }
 }
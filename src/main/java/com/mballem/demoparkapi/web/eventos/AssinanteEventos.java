@@ -0,0 +1,142 @@
+package com.mballem.demoparkapi.web.eventos;
+
+import com.mballem.demoparkapi.service.EventoUsuario;
+import com.mballem.demoparkapi.service.FeedUsuarios;
+import com.mballem.demoparkapi.web.dto.mapper.UsuarioMapper;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Uma conexão do feed. Quem publica só enfileira e agenda o envio; no máximo uma tarefa de envio por assinante
+// fica no pool, e cada uma manda até RODADA eventos antes de devolver a thread, para um assinante com muitos
+// pendentes não segurar os outros. O histórico da reconexão entra sem passar pelo limite da fila
+class AssinanteEventos implements FeedUsuarios.Inscrito {
+
+    private static final int RODADA = 64;
+
+    private final DistribuidorEventos distribuidor;
+    private final SseEmitter emitter;
+    private final int filaMaxima;
+    private final Queue<EventoUsuario> fila = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendentes = new AtomicInteger();
+    private final AtomicBoolean batimentoPendente = new AtomicBoolean();
+    private final AtomicBoolean agendado = new AtomicBoolean();
+    private volatile boolean encerrado;
+    // Resposta terminada pelo servidor; lido e escrito com o monitor do emitter, o mesmo dos envios
+    private boolean finalizado;
+
+    AssinanteEventos(DistribuidorEventos distribuidor, SseEmitter emitter, int filaMaxima) {
+        this.distribuidor = distribuidor;
+        this.emitter = emitter;
+        this.filaMaxima = filaMaxima;
+    }
+
+    @Override
+    public void historico(List<EventoUsuario> eventos) {
+        for (EventoUsuario evento : eventos) {
+            enfileirar(evento);
+        }
+        agendar();
+    }
+
+    @Override
+    public void novo(EventoUsuario evento) {
+        if (encerrado) {
+            return;
+        }
+        if (pendentes.get() >= filaMaxima) {
+            distribuidor.lento(this);
+            return;
+        }
+        enfileirar(evento);
+        agendar();
+    }
+
+    // Sem eventos pendentes manda só um comentário; com pendentes, os próprios eventos já servem de batimento
+    void batimento() {
+        if (!encerrado && pendentes.get() == 0) {
+            batimentoPendente.set(true);
+            agendar();
+        }
+    }
+
+    // Não completa a resposta aqui: o emitter fica travado enquanto um envio espera um cliente lento, e quem
+    // encerra pode ser a thread que publica. O complete sai na próxima tarefa de envio deste assinante
+    void encerrar() {
+        encerrado = true;
+        fila.clear();
+        distribuidor.remover(this);
+        agendar();
+    }
+
+    // Cliente saiu, timeout ou erro. Com o monitor do emitter, nenhum envio em andamento cruza com o fim da resposta
+    // e nenhum outro começa depois: o servidor recicla a resposta, e uma escrita atrasada iria para outra requisição
+    void finalizar() {
+        synchronized (emitter) {
+            finalizado = true;
+        }
+        encerrado = true;
+        fila.clear();
+        distribuidor.remover(this);
+    }
+
+    private void enfileirar(EventoUsuario evento) {
+        pendentes.incrementAndGet();
+        fila.add(evento);
+    }
+
+    private void agendar() {
+        if (agendado.compareAndSet(false, true)) {
+            distribuidor.executar(this::enviar);
+        }
+    }
+
+    private void enviar() {
+        if (encerrado) {
+            synchronized (emitter) {
+                if (!finalizado) {
+                    emitter.complete();
+                }
+            }
+            return;
+        }
+        try {
+            if (batimentoPendente.getAndSet(false)) {
+                enviar(SseEmitter.event().comment(""));
+            }
+            EventoUsuario evento;
+            for (int enviados = 0; enviados < RODADA && !encerrado && (evento = fila.poll()) != null; enviados++) {
+                pendentes.decrementAndGet();
+                enviar(SseEmitter.event()
+                    .id(evento.id())
+                    .name(evento.tipo().name())
+                    .data(evento.usuario() != null ? UsuarioMapper.toDto(evento.usuario()) : Map.of(), MediaType.APPLICATION_JSON));
+            }
+        } catch (IOException | IllegalStateException ex) {
+            // Cliente desconectado ou resposta já encerrada. Sem completeWithError: o servidor já trata a falha de
+            // escrita e finaliza a resposta por conta própria
+            encerrado = true;
+            distribuidor.remover(this);
+            return;
+        }
+        agendado.set(false);
+        if (encerrado || !fila.isEmpty() || batimentoPendente.get()) {
+            agendar();
+        }
+    }
+
+    private void enviar(SseEmitter.SseEventBuilder evento) throws IOException {
+        synchronized (emitter) {
+            if (!finalizado) {
+                emitter.send(evento);
+            }
+        }
+    }
+}
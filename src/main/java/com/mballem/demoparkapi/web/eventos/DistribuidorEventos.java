@@ -0,0 +1,125 @@
+package com.mballem.demoparkapi.web.eventos;
+
+import com.mballem.demoparkapi.service.FeedUsuarios;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Server-Sent Events do feed de usuários. Cada conexão é uma resposta assíncrona do servlet, sem thread presa
+// enquanto espera; os envios de todos os assinantes saem de um pool pequeno e fixo, um assinante por vez em cada
+// thread. Cada assinante tem uma fila limitada: quem não consome no ritmo dos eventos é desconectado (e retoma
+// pelo Last-Event-ID ao reconectar) ou, com a política descartar, perde os eventos que não couberem na fila
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@Component
+public class DistribuidorEventos implements AutoCloseable {
+
+    private final FeedUsuarios feed;
+    private final long timeoutMillis;
+    private final int filaMaxima;
+    private final PoliticaLento politica;
+    private final ExecutorService envio;
+    private final ScheduledExecutorService batimento;
+    private final Set<AssinanteEventos> assinantes = ConcurrentHashMap.newKeySet();
+    private final Counter descartados;
+    private final Counter desconectadosLentos;
+
+    public DistribuidorEventos(FeedUsuarios feed,
+                               @Value("${demopark.usuarios.eventos.timeout:30m}") Duration timeout,
+                               @Value("${demopark.usuarios.eventos.fila-maxima:256}") int filaMaxima,
+                               @Value("${demopark.usuarios.eventos.politica-lento:desconectar}") PoliticaLento politica,
+                               @Value("${demopark.usuarios.eventos.threads-envio:2}") int threadsEnvio,
+                               @Value("${demopark.usuarios.eventos.batimento:15s}") Duration intervaloBatimento,
+                               MeterRegistry meterRegistry) {
+        this.feed = feed;
+        this.timeoutMillis = timeout.toMillis();
+        this.filaMaxima = filaMaxima;
+        this.politica = politica;
+        AtomicInteger threads = new AtomicInteger();
+        this.envio = Executors.newFixedThreadPool(threadsEnvio, tarefa -> {
+            Thread thread = new Thread(tarefa, "eventos-envio-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // Comentário periódico: mantém a conexão viva em proxies e descobre as conexões já fechadas pelo cliente
+        this.batimento = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+            Thread thread = new Thread(tarefa, "eventos-batimento");
+            thread.setDaemon(true);
+            return thread;
+        });
+        batimento.scheduleWithFixedDelay(() -> assinantes.forEach(AssinanteEventos::batimento),
+            intervaloBatimento.toMillis(), intervaloBatimento.toMillis(), TimeUnit.MILLISECONDS);
+        this.descartados = Counter.builder("eventos.descartados")
+            .description("Eventos que não couberam na fila de um assinante lento")
+            .register(meterRegistry);
+        this.desconectadosLentos = Counter.builder("eventos.desconectados")
+            .description("Assinantes desconectados por não acompanhar os eventos")
+            .tag("motivo", "lento")
+            .register(meterRegistry);
+        Gauge.builder("eventos.assinantes", assinantes, Set::size)
+            .description("Conexões abertas no feed de eventos de usuários")
+            .register(meterRegistry);
+    }
+
+    // O comentário inicial confirma os cabeçalhos na hora; sem ele o cliente só os recebe com o primeiro evento ou
+    // batimento. Ele sai depois da inscrição, então quem recebe os cabeçalhos já está inscrito
+    public SseEmitter assinar(String ultimoId) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        AssinanteEventos assinante = new AssinanteEventos(this, emitter, filaMaxima);
+        emitter.onCompletion(assinante::finalizar);
+        emitter.onTimeout(assinante::finalizar);
+        emitter.onError(ex -> assinante.finalizar());
+        assinantes.add(assinante);
+        feed.inscrever(ultimoId, assinante);
+        assinante.batimento();
+        return emitter;
+    }
+
+    @Override
+    public void close() {
+        batimento.shutdownNow();
+        assinantes.forEach(AssinanteEventos::encerrar);
+        envio.shutdown();
+    }
+
+    void executar(Runnable tarefa) {
+        try {
+            envio.execute(tarefa);
+        } catch (RejectedExecutionException ex) {
+            // Aplicação parando: o próprio servidor fecha as conexões restantes
+        }
+    }
+
+    // Chamado com a fila do assinante cheia, na thread de quem publicou o evento
+    void lento(AssinanteEventos assinante) {
+        if (politica == PoliticaLento.DESCARTAR) {
+            descartados.increment();
+        } else {
+            desconectadosLentos.increment();
+            assinante.encerrar();
+        }
+    }
+
+    void remover(AssinanteEventos assinante) {
+        if (assinantes.remove(assinante)) {
+            feed.cancelar(assinante);
+        }
+    }
+
+    public enum PoliticaLento {
+        DESCONECTAR, DESCARTAR
+    }
+}
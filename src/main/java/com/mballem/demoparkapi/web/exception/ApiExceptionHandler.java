@@ -1,5 +1,7 @@
 package com.mballem.demoparkapi.web.exception;
 
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -8,27 +10,52 @@ import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 
+import com.mballem.demoparkapi.exception.BatchSizeExceededException;
 import com.mballem.demoparkapi.exception.EntityNotFoundException;
+import com.mballem.demoparkapi.exception.IdempotencyKeyReuseException;
+import com.mballem.demoparkapi.exception.InvalidCursorException;
+import com.mballem.demoparkapi.exception.InvalidFilterException;
 import com.mballem.demoparkapi.exception.PasswordInvalidException;
+import com.mballem.demoparkapi.exception.ServiceOverloadedException;
 import com.mballem.demoparkapi.exception.UsernameUniqueViolationException;
 
 import jakarta.servlet.http.HttpServletRequest;
-import lombok.extern.slf4j.Slf4j;
+import lombok.RequiredArgsConstructor;
 
-@Slf4j
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@RequiredArgsConstructor
 @RestControllerAdvice
 public class ApiExceptionHandler {
+
+    private final RegistroErrosApi registroErros;
+
     @ExceptionHandler(PasswordInvalidException.class)
     public ResponseEntity<ErrorMessage> passwordInvalidException(RuntimeException ex, HttpServletRequest request){
-        log.error("Api Error - ", ex);
+        registroErros.registrar(ex, HttpStatus.BAD_REQUEST);
         return ResponseEntity
         .status(HttpStatus.BAD_REQUEST)
         .contentType(MediaType.APPLICATION_JSON)
         .body(new ErrorMessage(request, HttpStatus.BAD_REQUEST, "Campos inválidos"));
     }
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<ErrorMessage> invalidCursorException(RuntimeException ex, HttpServletRequest request){
+        registroErros.registrar(ex, HttpStatus.BAD_REQUEST);
+        return ResponseEntity
+        .status(HttpStatus.BAD_REQUEST)
+        .contentType(MediaType.APPLICATION_JSON)
+        .body(new ErrorMessage(request, HttpStatus.BAD_REQUEST, ex.getMessage()));
+    }
+    @ExceptionHandler(InvalidFilterException.class)
+    public ResponseEntity<ErrorMessage> invalidFilterException(RuntimeException ex, HttpServletRequest request){
+        registroErros.registrar(ex, HttpStatus.BAD_REQUEST);
+        return ResponseEntity
+        .status(HttpStatus.BAD_REQUEST)
+        .contentType(MediaType.APPLICATION_JSON)
+        .body(new ErrorMessage(request, HttpStatus.BAD_REQUEST, ex.getMessage()));
+    }
     @ExceptionHandler(EntityNotFoundException.class)
     public ResponseEntity<ErrorMessage> entityNotFoundException(RuntimeException ex, HttpServletRequest request){
-        log.error("Api Error - ", ex);
+        registroErros.registrar(ex, HttpStatus.NOT_FOUND);
         return ResponseEntity
         .status(HttpStatus.NOT_FOUND)
         .contentType(MediaType.APPLICATION_JSON)
@@ -36,15 +63,40 @@ public class ApiExceptionHandler {
     }
     @ExceptionHandler(UsernameUniqueViolationException.class)
     public ResponseEntity<ErrorMessage> uniqueViolationException(RuntimeException ex, HttpServletRequest request){
-        log.error("Api Error - ", ex);
+        registroErros.registrar(ex, HttpStatus.CONFLICT);
         return ResponseEntity
         .status(HttpStatus.CONFLICT)
         .contentType(MediaType.APPLICATION_JSON)
         .body(new ErrorMessage(request, HttpStatus.CONFLICT, "Campos inválidos"));
     }
+    @ExceptionHandler(BatchSizeExceededException.class)
+    public ResponseEntity<ErrorMessage> batchSizeExceededException(RuntimeException ex, HttpServletRequest request){
+        registroErros.registrar(ex, HttpStatus.PAYLOAD_TOO_LARGE);
+        return ResponseEntity
+        .status(HttpStatus.PAYLOAD_TOO_LARGE)
+        .contentType(MediaType.APPLICATION_JSON)
+        .body(new ErrorMessage(request, HttpStatus.PAYLOAD_TOO_LARGE, ex.getMessage()));
+    }
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<ErrorMessage> serviceOverloadedException(RuntimeException ex, HttpServletRequest request){
+        registroErros.registrar(ex, HttpStatus.SERVICE_UNAVAILABLE);
+        return ResponseEntity
+        .status(HttpStatus.SERVICE_UNAVAILABLE)
+        .header(HttpHeaders.RETRY_AFTER, "1")
+        .contentType(MediaType.APPLICATION_JSON)
+        .body(new ErrorMessage(request, HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage()));
+    }
+    @ExceptionHandler(IdempotencyKeyReuseException.class)
+    public ResponseEntity<ErrorMessage> idempotencyKeyReuseException(RuntimeException ex, HttpServletRequest request){
+        registroErros.registrar(ex, HttpStatus.UNPROCESSABLE_ENTITY);
+        return ResponseEntity
+        .status(HttpStatus.UNPROCESSABLE_ENTITY)
+        .contentType(MediaType.APPLICATION_JSON)
+        .body(new ErrorMessage(request, HttpStatus.UNPROCESSABLE_ENTITY, ex.getMessage()));
+    }
     @ExceptionHandler(MethodArgumentNotValidException.class)
     public ResponseEntity<ErrorMessage> methodArgumentNotValidException(MethodArgumentNotValidException ex, HttpServletRequest request, BindingResult result){
-        log.error("Api Error - ", ex);
+        registroErros.registrar(ex, HttpStatus.UNPROCESSABLE_ENTITY, result.getErrorCount() + " erro(s) de validação");
         return ResponseEntity
         .status(HttpStatus.UNPROCESSABLE_ENTITY)
         .contentType(MediaType.APPLICATION_JSON)
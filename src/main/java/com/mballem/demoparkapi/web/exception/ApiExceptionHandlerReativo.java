@@ -0,0 +1,75 @@
+package com.mballem.demoparkapi.web.exception;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
+
+import com.mballem.demoparkapi.exception.BatchSizeExceededException;
+import com.mballem.demoparkapi.exception.EntityNotFoundException;
+import com.mballem.demoparkapi.exception.InvalidCursorException;
+import com.mballem.demoparkapi.exception.PasswordInvalidException;
+import com.mballem.demoparkapi.exception.ServiceOverloadedException;
+import com.mballem.demoparkapi.exception.UsernameUniqueViolationException;
+
+import lombok.RequiredArgsConstructor;
+
+// Mesmas respostas do ApiExceptionHandler para a pilha reativa (WebFlux)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@RequiredArgsConstructor
+@RestControllerAdvice
+public class ApiExceptionHandlerReativo {
+
+    private final RegistroErrosApi registroErros;
+
+    @ExceptionHandler(PasswordInvalidException.class)
+    public ResponseEntity<ErrorMessage> passwordInvalidException(RuntimeException ex, ServerHttpRequest request){
+        return responder(ex, request, HttpStatus.BAD_REQUEST, "Campos inválidos");
+    }
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<ErrorMessage> invalidCursorException(RuntimeException ex, ServerHttpRequest request){
+        return responder(ex, request, HttpStatus.BAD_REQUEST, ex.getMessage());
+    }
+    @ExceptionHandler(EntityNotFoundException.class)
+    public ResponseEntity<ErrorMessage> entityNotFoundException(RuntimeException ex, ServerHttpRequest request){
+        return responder(ex, request, HttpStatus.NOT_FOUND, "Campos inválidos");
+    }
+    @ExceptionHandler(UsernameUniqueViolationException.class)
+    public ResponseEntity<ErrorMessage> uniqueViolationException(RuntimeException ex, ServerHttpRequest request){
+        return responder(ex, request, HttpStatus.CONFLICT, "Campos inválidos");
+    }
+    @ExceptionHandler(BatchSizeExceededException.class)
+    public ResponseEntity<ErrorMessage> batchSizeExceededException(RuntimeException ex, ServerHttpRequest request){
+        return responder(ex, request, HttpStatus.PAYLOAD_TOO_LARGE, ex.getMessage());
+    }
+    @ExceptionHandler(ServiceOverloadedException.class)
+    public ResponseEntity<ErrorMessage> serviceOverloadedException(RuntimeException ex, ServerHttpRequest request){
+        registroErros.registrar(ex, HttpStatus.SERVICE_UNAVAILABLE);
+        return ResponseEntity
+        .status(HttpStatus.SERVICE_UNAVAILABLE)
+        .header(HttpHeaders.RETRY_AFTER, "1")
+        .contentType(MediaType.APPLICATION_JSON)
+        .body(new ErrorMessage(request, HttpStatus.SERVICE_UNAVAILABLE, ex.getMessage()));
+    }
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<ErrorMessage> webExchangeBindException(WebExchangeBindException ex, ServerHttpRequest request){
+        registroErros.registrar(ex, HttpStatus.UNPROCESSABLE_ENTITY, ex.getErrorCount() + " erro(s) de validação");
+        return ResponseEntity
+        .status(HttpStatus.UNPROCESSABLE_ENTITY)
+        .contentType(MediaType.APPLICATION_JSON)
+        .body(new ErrorMessage(request, HttpStatus.UNPROCESSABLE_ENTITY, "Campos inválidos", ex.getBindingResult()));
+    }
+
+    private ResponseEntity<ErrorMessage> responder(RuntimeException ex, ServerHttpRequest request, HttpStatus status, String message) {
+        registroErros.registrar(ex, status);
+        return ResponseEntity
+        .status(status)
+        .contentType(MediaType.APPLICATION_JSON)
+        .body(new ErrorMessage(request, status, message));
+    }
+}
@@ -1,6 +1,7 @@
 package com.mballem.demoparkapi.web.exception;
 
 import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpRequest;
 import org.springframework.validation.BindingResult;
 import org.springframework.validation.FieldError;
 
@@ -10,6 +11,7 @@ import jakarta.servlet.http.HttpServletRequest;
 import lombok.Getter;
 import lombok.ToString;
 
+import java.util.List;
 import java.util.Map;
 import java.util.HashMap;
 
@@ -45,9 +47,24 @@ public class ErrorMessage {
         addError(result);
     }
 
+    public ErrorMessage(ServerHttpRequest request, HttpStatus status, String message) {
+        this.path = request.getPath().value();
+        this.method = request.getMethod().name();
+        this.status = status.value();
+        this.statusText = status.getReasonPhrase();
+        this.message = message;
+    }
+
+    public ErrorMessage(ServerHttpRequest request, HttpStatus status, String message, BindingResult result) {
+        this(request, status, message);
+        addError(result);
+    }
+
     private void addError(BindingResult result) {
-        this.errors = new HashMap<>();
-        for (FieldError fieldError : result.getFieldErrors()){
+        List<FieldError> fieldErrors = result.getFieldErrors();
+        // Capacidade calculada para não redimensionar o mapa durante o preenchimento
+        this.errors = new HashMap<>((int) (fieldErrors.size() / 0.75f) + 1);
+        for (FieldError fieldError : fieldErrors){
             this.errors.put(fieldError.getField(), fieldError.getDefaultMessage());
         }        
     }
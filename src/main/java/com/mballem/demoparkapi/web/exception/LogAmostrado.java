@@ -0,0 +1,56 @@
+package com.mballem.demoparkapi.web.exception;
+
+import org.slf4j.Logger;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Limita o log de erros esperados a algumas linhas por tipo de erro a cada intervalo. As ocorrências
+// suprimidas são somadas e informadas na primeira linha do intervalo seguinte
+class LogAmostrado {
+
+    private final Logger log;
+    private final int limitePorIntervalo;
+    private final long intervaloNanos;
+    private final ConcurrentMap<String, Janela> janelas = new ConcurrentHashMap<>();
+
+    LogAmostrado(Logger log, int limitePorIntervalo, long intervalo, TimeUnit unidade) {
+        this.log = log;
+        this.limitePorIntervalo = limitePorIntervalo;
+        this.intervaloNanos = unidade.toNanos(intervalo);
+    }
+
+    void warn(String chave, String mensagem) {
+        if (!log.isWarnEnabled()) {
+            return;
+        }
+        Janela janela = janelas.computeIfAbsent(chave, k -> new Janela(System.nanoTime()));
+        long agora = System.nanoTime();
+        long inicio = janela.inicio.get();
+        if (agora - inicio >= intervaloNanos && janela.inicio.compareAndSet(inicio, agora)) {
+            long suprimidas = janela.suprimidas.getAndSet(0);
+            janela.registradas.set(0);
+            if (suprimidas > 0) {
+                log.warn("Api Error - {} ocorrências de {} suprimidas no último intervalo", suprimidas, chave);
+            }
+        }
+        if (janela.registradas.incrementAndGet() <= limitePorIntervalo) {
+            log.warn("Api Error - {}: {}", chave, mensagem);
+        } else {
+            janela.suprimidas.incrementAndGet();
+        }
+    }
+
+    private static final class Janela {
+        private final AtomicLong inicio;
+        private final AtomicInteger registradas = new AtomicInteger();
+        private final AtomicLong suprimidas = new AtomicLong();
+
+        private Janela(long inicio) {
+            this.inicio = new AtomicLong(inicio);
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.mballem.demoparkapi.web.exception;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+// Todos os erros tratados pelos handlers são esperados (entrada inválida, id inexistente, username repetido, sobrecarga):
+// não são logados com pilha nem em ERROR. Cada ocorrência conta em api.errors e vai para o log em DEBUG;
+// em WARN sai só uma amostra limitada por tipo de erro e por intervalo
+@Slf4j
+@Component
+class RegistroErrosApi {
+
+    private final MeterRegistry meterRegistry;
+    private final LogAmostrado logAmostrado;
+
+    RegistroErrosApi(MeterRegistry meterRegistry,
+                     @Value("${demopark.erros.log.limite-por-intervalo:10}") int limitePorIntervalo,
+                     @Value("${demopark.erros.log.intervalo-segundos:60}") long intervaloSegundos) {
+        this.meterRegistry = meterRegistry;
+        this.logAmostrado = new LogAmostrado(log, limitePorIntervalo, intervaloSegundos, TimeUnit.SECONDS);
+    }
+
+    void registrar(Exception ex, HttpStatus status) {
+        registrar(ex, status, ex.getMessage());
+    }
+
+    void registrar(Exception ex, HttpStatus status, String mensagem) {
+        String tipo = ex.getClass().getSimpleName();
+        Counter.builder("api.errors")
+            .description("Erros esperados devolvidos pela API")
+            .tags("exception", tipo, "status", String.valueOf(status.value()))
+            .register(meterRegistry)
+            .increment();
+        if (log.isDebugEnabled()) {
+            log.debug("Api Error - {}: {}", tipo, mensagem);
+        }
+        logAmostrado.warn(tipo, mensagem);
+    }
+}
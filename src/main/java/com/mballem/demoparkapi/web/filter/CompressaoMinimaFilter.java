@@ -0,0 +1,112 @@
+package com.mballem.demoparkapi.web.filter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+// O Tomcat só respeita server.compression.min-response-size quando conhece o Content-Length, e os conversores
+// do Spring MVC dão flush no fim de cada escrita: a resposta é confirmada em chunked e até um usuário sozinho
+// sairia em gzip. Segurando os flushes enquanto o corpo está abaixo do limite, o Tomcat fecha a resposta com
+// Content-Length e pula a compressão; acima do limite nada muda. Server-Sent Events ficam de fora: cada evento
+// precisa sair no flush, por menor que seja
+public class CompressaoMinimaFilter extends OncePerRequestFilter {
+
+    private final long limite;
+
+    public CompressaoMinimaFilter(long limite) {
+        this.limite = limite;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        filterChain.doFilter(request, new RespostaFlushAdiado(response));
+    }
+
+    private class RespostaFlushAdiado extends HttpServletResponseWrapper {
+
+        private SaidaFlushAdiado saida;
+
+        RespostaFlushAdiado(HttpServletResponse response) {
+            super(response);
+        }
+
+        @Override
+        public ServletOutputStream getOutputStream() throws IOException {
+            if (saida == null) {
+                saida = new SaidaFlushAdiado(super.getOutputStream(), this);
+            }
+            return saida;
+        }
+
+        @Override
+        public void flushBuffer() throws IOException {
+            if (eventos() || (saida != null && !saida.adiar())) {
+                super.flushBuffer();
+            }
+        }
+
+        private boolean eventos() {
+            String contentType = getContentType();
+            return contentType != null && contentType.startsWith(MediaType.TEXT_EVENT_STREAM_VALUE);
+        }
+    }
+
+    private class SaidaFlushAdiado extends ServletOutputStream {
+
+        private final ServletOutputStream destino;
+        private final RespostaFlushAdiado resposta;
+        private long escritos;
+
+        SaidaFlushAdiado(ServletOutputStream destino, RespostaFlushAdiado resposta) {
+            this.destino = destino;
+            this.resposta = resposta;
+        }
+
+        boolean adiar() {
+            return escritos < limite && !resposta.eventos();
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            destino.write(b);
+            escritos++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            destino.write(b, off, len);
+            escritos += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            if (!adiar()) {
+                destino.flush();
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            destino.close();
+        }
+
+        @Override
+        public boolean isReady() {
+            return destino.isReady();
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+            destino.setWriteListener(writeListener);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package com.mballem.demoparkapi.web.idempotencia;
+
+import java.util.Optional;
+
+// Onde ficam as respostas concluídas por chave, escolhido por demopark.idempotencia.armazem (memoria ou jdbc).
+// As implementações descartam sozinhas as entradas mais velhas que o ttl
+public interface ArmazemIdempotencia {
+
+    Optional<RespostaIdempotente> buscar(String chave);
+
+    void guardar(String chave, RespostaIdempotente resposta);
+}
@@ -0,0 +1,74 @@
+package com.mballem.demoparkapi.web.idempotencia;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Armazém na tabela idempotencia, compartilhado entre as instâncias: uma repetição que cai em outro nó também
+// é respondida sem cadastrar de novo. As linhas vencidas são ignoradas na leitura e apagadas a cada limpeza
+@ConditionalOnProperty(name = "demopark.idempotencia.armazem", havingValue = "jdbc")
+@Component
+public class ArmazemIdempotenciaJdbc implements ArmazemIdempotencia, AutoCloseable {
+
+    private final JdbcTemplate jdbcTemplate;
+    private final Duration ttl;
+    private final ScheduledExecutorService limpeza;
+
+    public ArmazemIdempotenciaJdbc(DataSource dataSource,
+                                   @Value("${demopark.idempotencia.ttl:24h}") Duration ttl,
+                                   @Value("${demopark.idempotencia.limpeza:10m}") Duration intervaloLimpeza) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.ttl = ttl;
+        this.limpeza = Executors.newSingleThreadScheduledExecutor(tarefa -> {
+            Thread thread = new Thread(tarefa, "idempotencia-limpeza");
+            thread.setDaemon(true);
+            return thread;
+        });
+        limpeza.scheduleWithFixedDelay(this::apagarVencidas, intervaloLimpeza.toMillis(), intervaloLimpeza.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public Optional<RespostaIdempotente> buscar(String chave) {
+        List<RespostaIdempotente> respostas = jdbcTemplate.query(
+            "select impressao, status, corpo from idempotencia where chave = ? and criado_em > ?",
+            (rs, linha) -> new RespostaIdempotente(rs.getString(1), rs.getInt(2), rs.getString(3)),
+            chave, limite());
+        return respostas.stream().findFirst();
+    }
+
+    @Override
+    public void guardar(String chave, RespostaIdempotente resposta) {
+        // Uma linha vencida da mesma chave ainda não apagada pela limpeza daria violação de chave primária
+        jdbcTemplate.update("delete from idempotencia where chave = ? and criado_em <= ?", chave, limite());
+        try {
+            jdbcTemplate.update("insert into idempotencia (chave, impressao, status, corpo, criado_em) values (?, ?, ?, ?, ?)",
+                chave, resposta.impressao(), resposta.status(), resposta.corpo(), LocalDateTime.now());
+        } catch (DuplicateKeyException ex) {
+            // Outra instância concluiu a mesma chave ao mesmo tempo; a primeira resposta gravada é a que vale
+        }
+    }
+
+    @Override
+    public void close() {
+        limpeza.shutdownNow();
+    }
+
+    private void apagarVencidas() {
+        jdbcTemplate.update("delete from idempotencia where criado_em <= ?", limite());
+    }
+
+    private LocalDateTime limite() {
+        return LocalDateTime.now().minus(ttl);
+    }
+}
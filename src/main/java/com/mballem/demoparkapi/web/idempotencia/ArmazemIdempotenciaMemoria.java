@@ -0,0 +1,36 @@
+package com.mballem.demoparkapi.web.idempotencia;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+// Armazém local (Caffeine) limitado em quantidade e tempo. Vale só para as repetições que chegam à mesma instância
+@ConditionalOnProperty(name = "demopark.idempotencia.armazem", havingValue = "memoria", matchIfMissing = true)
+@Component
+public class ArmazemIdempotenciaMemoria implements ArmazemIdempotencia {
+
+    private final Cache<String, RespostaIdempotente> respostas;
+
+    public ArmazemIdempotenciaMemoria(@Value("${demopark.idempotencia.tamanho-maximo:100000}") long tamanhoMaximo,
+                                      @Value("${demopark.idempotencia.ttl:24h}") Duration ttl) {
+        this.respostas = Caffeine.newBuilder()
+            .maximumSize(tamanhoMaximo)
+            .expireAfterWrite(ttl)
+            .build();
+    }
+
+    @Override
+    public Optional<RespostaIdempotente> buscar(String chave) {
+        return Optional.ofNullable(respostas.getIfPresent(chave));
+    }
+
+    @Override
+    public void guardar(String chave, RespostaIdempotente resposta) {
+        respostas.put(chave, resposta);
+    }
+}
@@ -0,0 +1,131 @@
+package com.mballem.demoparkapi.web.idempotencia;
+
+import com.mballem.demoparkapi.exception.IdempotencyKeyReuseException;
+import com.mballem.demoparkapi.exception.ServiceOverloadedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.HexFormat;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+// Executa uma ação uma única vez por Idempotency-Key. Uma repetição de chave concluída recebe a resposta guardada
+// sem executar nada; uma repetição que chega com a original ainda em andamento nesta instância espera por ela em vez
+// de disputar o cadastro. Só respostas de sucesso são guardadas: se a original falhar, a repetição executa de novo.
+// A chave vai para o armazém como SHA-256, com tamanho fixo qualquer que seja o valor enviado pelo cliente
+@Slf4j
+@Component
+public class Idempotencia {
+
+    public static final String CABECALHO = "Idempotency-Key";
+    public static final String CABECALHO_REPETIDA = "Idempotent-Replayed";
+
+    private final ArmazemIdempotencia armazem;
+    private final long esperaMillis;
+    private final Counter repetidas;
+    private final ConcurrentMap<String, CompletableFuture<RespostaIdempotente>> emAndamento = new ConcurrentHashMap<>();
+
+    public Idempotencia(ArmazemIdempotencia armazem,
+                        @Value("${demopark.idempotencia.espera:10s}") Duration espera,
+                        MeterRegistry meterRegistry) {
+        this.armazem = armazem;
+        this.esperaMillis = espera.toMillis();
+        this.repetidas = Counter.builder("idempotencia.repetidas")
+            .description("Requisições respondidas com a resposta guardada da Idempotency-Key")
+            .register(meterRegistry);
+    }
+
+    public record Resultado(RespostaIdempotente resposta, boolean repetida) {
+    }
+
+    public Resultado executar(String chaveCliente, String impressao, Supplier<RespostaIdempotente> acao) {
+        String chave = resumir(chaveCliente);
+        while (true) {
+            Optional<RespostaIdempotente> concluida = armazem.buscar(chave);
+            if (concluida.isPresent()) {
+                return repetir(concluida.get(), impressao);
+            }
+            CompletableFuture<RespostaIdempotente> minha = new CompletableFuture<>();
+            CompletableFuture<RespostaIdempotente> original = emAndamento.putIfAbsent(chave, minha);
+            if (original == null) {
+                return executarPrimeira(chave, impressao, minha, acao);
+            }
+            try {
+                return repetir(original.get(esperaMillis, TimeUnit.MILLISECONDS), impressao);
+            } catch (ExecutionException ex) {
+                // A original falhou e nada foi guardado: esta requisição tenta por conta própria
+            } catch (TimeoutException ex) {
+                throw new ServiceOverloadedException("Requisição com a mesma Idempotency-Key ainda em andamento. Tente novamente em instantes");
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                throw new ServiceOverloadedException("Requisição com a mesma Idempotency-Key ainda em andamento. Tente novamente em instantes");
+            }
+        }
+    }
+
+    private Resultado executarPrimeira(String chave, String impressao, CompletableFuture<RespostaIdempotente> minha,
+                                       Supplier<RespostaIdempotente> acao) {
+        try {
+            // A original pode ter guardado a resposta e saído de emAndamento entre a busca e o putIfAbsent
+            Optional<RespostaIdempotente> concluida = armazem.buscar(chave);
+            if (concluida.isPresent()) {
+                minha.complete(concluida.get());
+                return repetir(concluida.get(), impressao);
+            }
+            RespostaIdempotente resposta = acao.get();
+            guardar(chave, resposta);
+            minha.complete(resposta);
+            return new Resultado(resposta, false);
+        } catch (RuntimeException ex) {
+            minha.completeExceptionally(ex);
+            throw ex;
+        } finally {
+            emAndamento.remove(chave, minha);
+        }
+    }
+
+    // A ação já foi confirmada: uma falha do armazém não pode virar erro para o cliente. Sem a resposta guardada, uma
+    // repetição depois desta execução cai no conflito da própria ação (409 do username)
+    private void guardar(String chave, RespostaIdempotente resposta) {
+        try {
+            armazem.guardar(chave, resposta);
+        } catch (RuntimeException ex) {
+            log.warn("Falha ao guardar a resposta da Idempotency-Key; a requisição segue com a resposta da ação", ex);
+        }
+    }
+
+    private Resultado repetir(RespostaIdempotente resposta, String impressao) {
+        if (!resposta.impressao().equals(impressao)) {
+            throw new IdempotencyKeyReuseException("Idempotency-Key já usada em uma requisição diferente");
+        }
+        repetidas.increment();
+        return new Resultado(resposta, true);
+    }
+
+    // Impressão da requisição: SHA-256 de todos os campos do corpo, separados por um caractere que não aparece neles.
+    // Qualquer diferença no corpo (não só no username) faz a repetição da chave ser recusada com 422
+    public static String impressao(String... campos) {
+        return resumir(String.join("\u0000", campos));
+    }
+
+    private static String resumir(String valor) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(valor.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package com.mballem.demoparkapi.web.idempotencia;
+
+// Resposta concluída guardada pela Idempotency-Key. A impressão identifica o pedido original (no cadastro, o SHA-256 do corpo),
+// para recusar a mesma chave reaproveitada em outro pedido; o corpo fica em JSON e é renegociado na repetição
+public record RespostaIdempotente(String impressao, int status, String corpo) {
+}
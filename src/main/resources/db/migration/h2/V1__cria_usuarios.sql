@@ -0,0 +1,15 @@
+create sequence usuarios_seq start with 1 increment by 50;
+
+create table usuarios (
+    id bigint not null,
+    username varchar(100) not null,
+    password varchar(200) not null,
+    role varchar(25) not null,
+    data_criacao timestamp(6),
+    data_modificacao timestamp(6),
+    criado_por varchar(255),
+    modificado_por varchar(255),
+    versao bigint not null,
+    primary key (id),
+    constraint uk_usuarios_username unique (username)
+);
@@ -0,0 +1,5 @@
+-- Mesma versão da migração do MySQL, que completa bancos criados pelo antigo ddl-auto=update. Em um banco criado
+-- pela V1 nada muda
+create sequence if not exists usuarios_seq start with 1 increment by 50;
+
+alter table usuarios add column if not exists versao bigint default 0 not null;
@@ -0,0 +1,20 @@
+-- Sem sequências no MySQL: o Hibernate emula usuarios_seq com uma tabela de uma linha (coluna next_val)
+create table usuarios_seq (
+    next_val bigint
+) engine=InnoDB;
+
+insert into usuarios_seq values (1);
+
+create table usuarios (
+    id bigint not null,
+    username varchar(100) not null,
+    password varchar(200) not null,
+    role varchar(25) not null,
+    data_criacao datetime(6),
+    data_modificacao datetime(6),
+    criado_por varchar(255),
+    modificado_por varchar(255),
+    versao bigint not null,
+    primary key (id),
+    constraint uk_usuarios_username unique (username)
+) engine=InnoDB;
@@ -0,0 +1,11 @@
+-- Respostas guardadas por Idempotency-Key (chave em SHA-256 hexadecimal), usada com demopark.idempotencia.armazem=jdbc
+create table idempotencia (
+    chave char(64) not null,
+    impressao varchar(255) not null,
+    status int not null,
+    corpo text not null,
+    criado_em datetime(6) not null,
+    primary key (chave)
+) engine=InnoDB;
+
+create index ix_idempotencia_criado_em on idempotencia (criado_em);
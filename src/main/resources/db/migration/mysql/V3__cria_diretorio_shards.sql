@@ -0,0 +1,15 @@
+-- Tabelas do sharding (demopark.usuarios.sharding.habilitado=true), usadas só no banco principal (shard 0).
+-- Diretório de usernames: a unique vale para todos os shards e a sequência dá o id global do usuário
+create table usuarios_diretorio (
+    sequencia bigint not null auto_increment,
+    username varchar(100) not null,
+    primary key (sequencia),
+    constraint uk_usuarios_diretorio_username unique (username)
+) engine=InnoDB;
+
+-- Dono de cada um dos 1024 baldes de ids; o rebalanceamento move baldes inteiros entre shards
+create table shard_baldes (
+    balde int not null,
+    shard int not null,
+    primary key (balde)
+) engine=InnoDB;
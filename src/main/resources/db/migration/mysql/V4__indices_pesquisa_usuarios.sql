@@ -0,0 +1,6 @@
+-- Pesquisa de usuários: o domínio do username (depois do @) em coluna calculada, para a busca por domínio usar índice.
+-- O prefixo do username e a ordem por username já vêm da unique uk_usuarios_username
+alter table usuarios add column dominio varchar(100) generated always as (substring_index(username, '@', -1)) stored;
+
+create index ix_usuarios_dominio_username on usuarios (dominio, username);
+create index ix_usuarios_role_username on usuarios (role, username);
@@ -0,0 +1,21 @@
+-- Bancos criados pelo antigo ddl-auto=update entram com a V1 como baseline: têm usuarios, mas sem o gerador
+-- usuarios_seq e sem a coluna versao (da V2 à V4 nenhuma migração usa os dois). Em um banco criado pela V1 eles já
+-- existem e nada muda
+create table if not exists usuarios_seq (
+    next_val bigint
+) engine=InnoDB;
+
+-- O gerador começa depois do maior id já gravado (a antiga coluna IDENTITY)
+insert into usuarios_seq (next_val)
+select proximo from (select coalesce(max(id), 0) + 1 as proximo from usuarios) ids
+where not exists (select 1 from usuarios_seq);
+
+-- O MySQL não tem add column if not exists: o alter só roda quando a coluna falta
+set @adiciona_versao = (
+    select if(count(*) = 0, 'alter table usuarios add column versao bigint not null default 0', 'select 1')
+    from information_schema.columns
+    where table_schema = database() and table_name = 'usuarios' and column_name = 'versao'
+);
+prepare adiciona_versao from @adiciona_versao;
+execute adiciona_versao;
+deallocate prepare adiciona_versao;
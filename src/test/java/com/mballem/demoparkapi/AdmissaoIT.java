@@ -0,0 +1,91 @@
+package com.mballem.demoparkapi;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.mballem.demoparkapi.web.admissao.LimiteAdaptativo;
+import com.mballem.demoparkapi.web.admissao.Prioridade;
+import com.mballem.demoparkapi.web.exception.ErrorMessage;
+
+// Limite fixo em 2: as chamadas ALTA (getById) cabem, e as BAIXA (40% de 2 = nenhuma vaga) são sempre recusadas
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "demopark.admissao.limite-inicial=2",
+    "demopark.admissao.limite-minimo=2",
+    "demopark.admissao.limite-maximo=2",
+    "demopark.admissao.fracao.baixa=0.4"
+})
+@Sql(scripts = "/sql/usuarios/usuarios-insert.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = "/sql/usuarios/usuarios-delete.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+public class AdmissaoIT {
+
+    @Autowired
+    WebTestClient testClient;
+
+    @Test
+    public void buscarListaDeUsuarios_AcimaDoLimiteDaPrioridade_RetornarErrorMessageComStatus503(){
+        ErrorMessage responseBody = testClient
+            .get()
+            .uri("/api/v1/usuarios")
+            .exchange()
+            .expectStatus().isEqualTo(503)
+            .expectHeader().valueEquals(HttpHeaders.RETRY_AFTER, "1")
+            .expectBody(ErrorMessage.class)
+            .returnResult().getResponseBody();
+
+        org.assertj.core.api.Assertions.assertThat(responseBody).isNotNull();
+        org.assertj.core.api.Assertions.assertThat(responseBody.getStatus()).isEqualTo(503);
+        org.assertj.core.api.Assertions.assertThat(responseBody.getPath()).isEqualTo("/api/v1/usuarios");
+
+        testClient.get().uri("/api/v1/usuarios/100").exchange().expectStatus().isOk();
+
+        String metricas = testClient
+            .get()
+            .uri("/actuator/prometheus")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody(String.class)
+            .returnResult().getResponseBody();
+
+        org.assertj.core.api.Assertions.assertThat(metricas)
+            .contains("admissao_limite 2.0")
+            .contains("admissao_em_voo")
+            .containsPattern("admissao_rejeitadas_total\\{prioridade=\"BAIXA\",} [1-9]");
+    }
+
+    // Latência do endpoint acima de tolerância * referência derruba o limite; de volta à referência, com
+    // pressão (mais da metade do limite em uso), ele volta a crescer
+    @Test
+    public void limiteAdaptativo_ComLatenciaAltaENormalizada_EncolherECrescer(){
+        LimiteAdaptativo limite = new LimiteAdaptativo(20, 4, 200, 2.0, 20, 0.8, 0.5, new SimpleMeterRegistry());
+
+        responder(limite, 200, 1_000_000L, 15);
+        double inicial = limite.getLimite();
+
+        responder(limite, 400, 10_000_000L, 15);
+        double reduzido = limite.getLimite();
+        org.assertj.core.api.Assertions.assertThat(reduzido).isLessThan(inicial * 0.75);
+
+        responder(limite, 200, 1_000_000L, (int) reduzido);
+        org.assertj.core.api.Assertions.assertThat(limite.getLimite()).isGreaterThan(reduzido);
+        org.assertj.core.api.Assertions.assertThat(limite.getEmVoo()).isZero();
+    }
+
+    // Respostas em rodadas de até "simultaneas" requisições em voo
+    private static void responder(LimiteAdaptativo limite, int quantidade, long nanos, int simultaneas) {
+        for (int feitas = 0; feitas < quantidade; ) {
+            int rodada = 0;
+            while (rodada < simultaneas && limite.adquirir(Prioridade.ALTA)) {
+                rodada++;
+            }
+            for (int i = 0; i < rodada; i++) {
+                limite.liberar("UsuarioController.getById", nanos);
+            }
+            feitas += Math.max(rodada, 1);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package com.mballem.demoparkapi;
+
+import org.junit.jupiter.api.Test;
+import org.springdoc.webmvc.api.OpenApiWebMvcResource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.ConfigurableListableBeanFactory;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+// Com a inicialização preguiçosa do perfil producao, o springdoc só é montado no primeiro acesso à documentação
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = "demopark.springdoc.inicializacao-preguicosa=true")
+public class DocumentacaoIT {
+
+    @Autowired
+    WebTestClient testClient;
+
+    @Autowired
+    ConfigurableListableBeanFactory beanFactory;
+
+    @Test
+    public void buscarDocumentacao_ComSpringdocPreguicoso_MontarNoPrimeiroAcessoComStatus200(){
+        org.assertj.core.api.Assertions.assertThat(beanFactory.getBeanNamesForType(OpenApiWebMvcResource.class, true, true))
+            .allSatisfy(nome -> org.assertj.core.api.Assertions.assertThat(beanFactory.containsSingleton(nome)).isFalse());
+
+        testClient
+            .get()
+            .uri("/v3/api-docs")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.info.title").isEqualTo("REST API - Spring Park")
+            .jsonPath("$.paths['/api/v1/usuarios']").exists();
+
+        org.assertj.core.api.Assertions.assertThat(beanFactory.getBeanNamesForType(OpenApiWebMvcResource.class, true, true))
+            .isNotEmpty()
+            .allSatisfy(nome -> org.assertj.core.api.Assertions.assertThat(beanFactory.containsSingleton(nome)).isTrue());
+    }
+}
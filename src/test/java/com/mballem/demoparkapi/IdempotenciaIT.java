@@ -0,0 +1,119 @@
+package com.mballem.demoparkapi;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.mballem.demoparkapi.web.dto.UsuarioCreateDto;
+import com.mballem.demoparkapi.web.dto.UsuarioResponseDto;
+import com.mballem.demoparkapi.web.exception.ErrorMessage;
+
+// Idempotency-Key no cadastro com o armazém em memória (padrão); IdempotenciaJdbcIT repete os cenários na tabela
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Sql(scripts = "/sql/usuarios/usuarios-delete.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+public class IdempotenciaIT {
+
+    @Autowired
+    WebTestClient testClient;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void createUsuario_RepetidoComAMesmaChave_RetornarRespostaOriginalSemCadastrarComStatus201(){
+        String chave = UUID.randomUUID().toString();
+        UsuarioResponseDto original = criar(chave, "tody@email.com")
+            .expectStatus().isCreated()
+            .expectHeader().doesNotExist("Idempotent-Replayed")
+            .expectBody(UsuarioResponseDto.class)
+            .returnResult().getResponseBody();
+
+        // A repetição não chega ao banco: responde igual mesmo com a tabela vazia
+        jdbcTemplate.update("delete from usuarios");
+
+        UsuarioResponseDto repetida = criar(chave, "tody@email.com")
+            .expectStatus().isCreated()
+            .expectHeader().valueEquals("Idempotent-Replayed", "true")
+            .expectBody(UsuarioResponseDto.class)
+            .returnResult().getResponseBody();
+
+        org.assertj.core.api.Assertions.assertThat(repetida).usingRecursiveComparison().isEqualTo(original);
+        org.assertj.core.api.Assertions.assertThat(jdbcTemplate.queryForObject("select count(*) from usuarios", Long.class)).isZero();
+    }
+
+    @Test
+    public void createUsuario_ChaveReaproveitadaEmOutroUsername_RetornarErrorMessageComStatus422(){
+        String chave = UUID.randomUUID().toString();
+        criar(chave, "tody@email.com").expectStatus().isCreated();
+
+        ErrorMessage responseBody = criar(chave, "zoe@email.com")
+            .expectStatus().isEqualTo(422)
+            .expectBody(ErrorMessage.class)
+            .returnResult().getResponseBody();
+
+        org.assertj.core.api.Assertions.assertThat(responseBody).isNotNull();
+        org.assertj.core.api.Assertions.assertThat(responseBody.getStatus()).isEqualTo(422);
+    }
+
+    // Mesmo username com outra senha: a resposta guardada não vale para esse corpo
+    @Test
+    public void createUsuario_ChaveReaproveitadaComOutraSenha_RetornarErrorMessageComStatus422(){
+        String chave = UUID.randomUUID().toString();
+        criar(chave, "tody@email.com").expectStatus().isCreated();
+
+        ErrorMessage responseBody = criar(chave, "tody@email.com", "654321")
+            .expectStatus().isEqualTo(422)
+            .expectBody(ErrorMessage.class)
+            .returnResult().getResponseBody();
+
+        org.assertj.core.api.Assertions.assertThat(responseBody).isNotNull();
+        org.assertj.core.api.Assertions.assertThat(responseBody.getStatus()).isEqualTo(422);
+    }
+
+    @Test
+    public void createUsuario_RepeticoesConcorrentesComAMesmaChave_CadastrarUmaVezComStatus201(){
+        String chave = UUID.randomUUID().toString();
+        List<CompletableFuture<UsuarioResponseDto>> respostas = java.util.stream.IntStream.range(0, 5)
+            .mapToObj(i -> CompletableFuture.supplyAsync(() -> criar(chave, "tody@email.com")
+                .expectStatus().isCreated()
+                .expectBody(UsuarioResponseDto.class)
+                .returnResult().getResponseBody()))
+            .toList();
+
+        org.assertj.core.api.Assertions.assertThat(respostas).extracting(resposta -> resposta.join().getId())
+            .containsOnly(respostas.get(0).join().getId());
+        org.assertj.core.api.Assertions.assertThat(jdbcTemplate.queryForObject("select count(*) from usuarios", Long.class)).isEqualTo(1);
+    }
+
+    @Test
+    public void createUsuario_SemChaveRepetido_RetornarErrorMessageComStatus409(){
+        criar(null, "tody@email.com").expectStatus().isCreated();
+        criar(null, "tody@email.com").expectStatus().isEqualTo(409);
+    }
+
+    private WebTestClient.ResponseSpec criar(String chave, String username) {
+        return criar(chave, username, "123456");
+    }
+
+    private WebTestClient.ResponseSpec criar(String chave, String username, String password) {
+        return testClient
+            .post()
+            .uri("/api/v1/usuarios")
+            .contentType(MediaType.APPLICATION_JSON)
+            .headers(headers -> {
+                if (chave != null) {
+                    headers.set("Idempotency-Key", chave);
+                }
+            })
+            .bodyValue(new UsuarioCreateDto(username, password))
+            .exchange();
+    }
+}
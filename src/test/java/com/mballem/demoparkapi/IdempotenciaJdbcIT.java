@@ -0,0 +1,52 @@
+package com.mballem.demoparkapi;
+
+import java.util.UUID;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+
+import com.mballem.demoparkapi.web.dto.UsuarioCreateDto;
+import com.mballem.demoparkapi.web.idempotencia.Idempotencia;
+
+// Os mesmos cenários do IdempotenciaIT com as respostas na tabela idempotencia
+@TestPropertySource(properties = "demopark.idempotencia.armazem=jdbc")
+public class IdempotenciaJdbcIT extends IdempotenciaIT {
+
+    @Test
+    public void createUsuario_ComChave_GuardarRespostaNaTabela(){
+        testClient
+            .post()
+            .uri("/api/v1/usuarios")
+            .contentType(MediaType.APPLICATION_JSON)
+            .header("Idempotency-Key", UUID.randomUUID().toString())
+            .bodyValue(new UsuarioCreateDto("jdbc@email.com", "123456"))
+            .exchange()
+            .expectStatus().isCreated();
+
+        org.assertj.core.api.Assertions.assertThat(jdbcTemplate.queryForObject(
+            "select count(*) from idempotencia where impressao = ? and status = 201", Long.class,
+            Idempotencia.impressao("jdbc@email.com", "123456"))).isEqualTo(1);
+    }
+
+    // A constraint recusa só a gravação da resposta: a busca segue funcionando e o cadastro é confirmado
+    @Test
+    public void createUsuario_ComFalhaAoGuardarResposta_RetornarStatus201(){
+        jdbcTemplate.execute("ALTER TABLE idempotencia ADD CONSTRAINT ck_idempotencia_teste CHECK (impressao <> '"
+            + Idempotencia.impressao("semarmazem@email.com", "123456") + "')");
+        try {
+            testClient
+                .post()
+                .uri("/api/v1/usuarios")
+                .contentType(MediaType.APPLICATION_JSON)
+                .header("Idempotency-Key", UUID.randomUUID().toString())
+                .bodyValue(new UsuarioCreateDto("semarmazem@email.com", "123456"))
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody()
+                .jsonPath("username").isEqualTo("semarmazem@email.com");
+        } finally {
+            jdbcTemplate.execute("ALTER TABLE idempotencia DROP CONSTRAINT ck_idempotencia_teste");
+        }
+    }
+}
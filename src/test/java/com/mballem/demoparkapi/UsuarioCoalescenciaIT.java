@@ -0,0 +1,53 @@
+package com.mballem.demoparkapi;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+// Coalescência com uma janela larga: as buscas por id concorrentes caem no mesmo lote e viram uma consulta IN
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "demopark.usuarios.coalescencia.habilitado=true",
+    "demopark.usuarios.coalescencia.janela=500ms",
+    "management.endpoints.web.exposure.include=health,metrics,prometheus,consultas"
+})
+@Sql(scripts = "/sql/usuarios/usuarios-insert.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = "/sql/usuarios/usuarios-delete.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+public class UsuarioCoalescenciaIT {
+
+    @Autowired
+    WebTestClient testClient;
+
+    @Test
+    public void buscarUsuarios_ConcorrentesPeloId_ResponderCadaUmComUmaConsultaIn(){
+        List<CompletableFuture<Integer>> respostas = List.of(100, 101, 102, 0).stream()
+            .map(id -> CompletableFuture.supplyAsync(() -> testClient
+                .get()
+                .uri("/api/v1/usuarios/" + id)
+                .exchange()
+                .returnResult(String.class)
+                .getStatus().value()))
+            .toList();
+
+        org.assertj.core.api.Assertions.assertThat(respostas).extracting(CompletableFuture::join)
+            .containsExactly(200, 200, 200, 404);
+
+        List<Map<String, Object>> consultas = testClient
+            .get()
+            .uri("/actuator/consultas?quantidade=50")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBodyList(new ParameterizedTypeReference<Map<String, Object>>() {})
+            .returnResult().getResponseBody();
+
+        org.assertj.core.api.Assertions.assertThat(consultas).extracting(consulta -> (String) consulta.get("consulta"))
+            .anySatisfy(consulta -> org.assertj.core.api.Assertions.assertThat(consulta).contains("from usuarios").contains(" in("))
+            .noneSatisfy(consulta -> org.assertj.core.api.Assertions.assertThat(consulta).contains("from usuarios").contains("id=?"));
+    }
+}
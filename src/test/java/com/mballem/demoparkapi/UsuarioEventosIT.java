@@ -0,0 +1,185 @@
+package com.mballem.demoparkapi;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.mballem.demoparkapi.web.dto.UsuarioCreateDto;
+import com.mballem.demoparkapi.web.dto.UsuarioSenhaDto;
+
+// Feed SSE só na pilha servlet. As conexões são lidas como stream, em uma thread própria: o WebTestClient
+// esperaria o fim de uma resposta que não termina
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Sql(scripts = "/sql/usuarios/usuarios-insert.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = "/sql/usuarios/usuarios-delete.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+public class UsuarioEventosIT {
+
+    @Autowired
+    WebTestClient testClient;
+
+    @LocalServerPort
+    int porta;
+
+    @Test
+    public void acompanharEventos_ComCadastroETrocaDeSenha_ReceberEventosConfirmados() throws Exception {
+        try (Conexao conexao = conectar(null)) {
+            criar("tody@email.com");
+            Map<String, String> criado = conexao.proximo();
+            org.assertj.core.api.Assertions.assertThat(criado.get("event")).isEqualTo("USUARIO_CRIADO");
+            org.assertj.core.api.Assertions.assertThat(criado.get("data")).contains("\"username\":\"tody@email.com\"", "\"role\":\"CLIENTE\"");
+
+            testClient
+                .patch()
+                .uri("/api/v1/usuarios/100")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new UsuarioSenhaDto("123456", "654321", "654321"))
+                .exchange()
+                .expectStatus().isNoContent();
+            Map<String, String> senha = conexao.proximo();
+            org.assertj.core.api.Assertions.assertThat(senha.get("event")).isEqualTo("SENHA_ALTERADA");
+            org.assertj.core.api.Assertions.assertThat(senha.get("data")).contains("\"id\":100");
+
+            testClient.get().uri("/actuator/metrics/eventos.assinantes").exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.measurements[0].value").value(valor ->
+                    org.assertj.core.api.Assertions.assertThat(((Number) valor).doubleValue()).isGreaterThanOrEqualTo(1.0));
+        }
+    }
+
+    // Senha atual errada: nada é gravado e nenhum evento sai
+    @Test
+    public void acompanharEventos_ComTrocaDeSenhaRecusada_NaoReceberEvento() throws Exception {
+        try (Conexao conexao = conectar(null)) {
+            testClient
+                .patch()
+                .uri("/api/v1/usuarios/100")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(new UsuarioSenhaDto("000000", "654321", "654321"))
+                .exchange()
+                .expectStatus().isBadRequest();
+            criar("tody@email.com");
+
+            org.assertj.core.api.Assertions.assertThat(conexao.proximo().get("event")).isEqualTo("USUARIO_CRIADO");
+        }
+    }
+
+    @Test
+    public void reconectar_ComLastEventId_ReceberEventosPerdidos() throws Exception {
+        String primeiroId;
+        try (Conexao conexao = conectar(null)) {
+            criar("tody@email.com");
+            primeiroId = conexao.proximo().get("id");
+        }
+        criar("toby@email.com");
+        criar("tomy@email.com");
+
+        try (Conexao conexao = conectar(primeiroId)) {
+            org.assertj.core.api.Assertions.assertThat(conexao.proximo().get("data")).contains("toby@email.com");
+            org.assertj.core.api.Assertions.assertThat(conexao.proximo().get("data")).contains("tomy@email.com");
+        }
+    }
+
+    @Test
+    public void reconectar_ComLastEventIdDesconhecido_ReceberRessincronizar() throws Exception {
+        try (Conexao conexao = conectar("outra-geracao-42")) {
+            Map<String, String> evento = conexao.proximo();
+            org.assertj.core.api.Assertions.assertThat(evento.get("event")).isEqualTo("RESSINCRONIZAR");
+            org.assertj.core.api.Assertions.assertThat(evento.get("id")).isNotBlank();
+
+            criar("tody@email.com");
+            org.assertj.core.api.Assertions.assertThat(conexao.proximo().get("event")).isEqualTo("USUARIO_CRIADO");
+        }
+    }
+
+    private void criar(String username) {
+        testClient
+            .post()
+            .uri("/api/v1/usuarios")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(new UsuarioCreateDto(username, "123456"))
+            .exchange()
+            .expectStatus().isCreated();
+    }
+
+    // Só volta depois do comentário inicial, quando a assinatura já está registrada no servidor
+    private Conexao conectar(String ultimoId) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(URI.create("http://localhost:" + porta + "/api/v1/usuarios/eventos"))
+            .header("Accept", MediaType.TEXT_EVENT_STREAM_VALUE);
+        if (ultimoId != null) {
+            request.header("Last-Event-ID", ultimoId);
+        }
+        HttpClient httpClient = HttpClient.newHttpClient();
+        HttpResponse<InputStream> response = httpClient.send(request.build(), HttpResponse.BodyHandlers.ofInputStream());
+        org.assertj.core.api.Assertions.assertThat(response.statusCode()).isEqualTo(200);
+        org.assertj.core.api.Assertions.assertThat(response.headers().firstValue("Content-Type")).hasValueSatisfying(
+            tipo -> org.assertj.core.api.Assertions.assertThat(tipo).startsWith(MediaType.TEXT_EVENT_STREAM_VALUE));
+        return new Conexao(httpClient, response.body());
+    }
+
+    // Eventos com nome, em ordem; comentários de batimento são ignorados
+    private static class Conexao implements AutoCloseable {
+
+        // Referência mantida de propósito: um HttpClient recolhido pelo GC fecha a conexão aberta por ele
+        private final HttpClient httpClient;
+        private final InputStream corpo;
+        private final BlockingQueue<Map<String, String>> eventos = new LinkedBlockingQueue<>();
+
+        Conexao(HttpClient httpClient, InputStream corpo) {
+            this.httpClient = httpClient;
+            this.corpo = corpo;
+            Thread leitor = new Thread(this::ler, "eventos-it");
+            leitor.setDaemon(true);
+            leitor.start();
+        }
+
+        Map<String, String> proximo() throws InterruptedException {
+            Map<String, String> evento = eventos.poll(10, TimeUnit.SECONDS);
+            org.assertj.core.api.Assertions.assertThat(evento).as("evento recebido").isNotNull();
+            return evento;
+        }
+
+        private void ler() {
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(corpo, StandardCharsets.UTF_8))) {
+                Map<String, String> campos = new HashMap<>();
+                String linha;
+                while ((linha = reader.readLine()) != null) {
+                    if (linha.isEmpty()) {
+                        if (campos.containsKey("event")) {
+                            eventos.add(campos);
+                        }
+                        campos = new HashMap<>();
+                    } else if (!linha.startsWith(":") && linha.contains(":")) {
+                        campos.put(linha.substring(0, linha.indexOf(':')), linha.substring(linha.indexOf(':') + 1).trim());
+                    }
+                }
+            } catch (IOException ex) {
+                // Conexão fechada pelo teste
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            corpo.close();
+        }
+    }
+}
@@ -0,0 +1,139 @@
+package com.mballem.demoparkapi;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.mballem.demoparkapi.web.exception.ErrorMessage;
+
+// H2 em arquivo com cache pequeno e execução preguiçosa (o equivalente ao useCursorFetch do MySQL): o milhão de
+// linhas fica em disco, e o heap só cresce se a exportação acumular linhas em memória
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "spring.datasource.url=jdbc:h2:file:./target/h2/exportacao;CACHE_SIZE=8192;LAZY_QUERY_EXECUTION=TRUE",
+    "spring.datasource.username=sa",
+    "spring.datasource.password="
+})
+public class UsuarioExportacaoIT {
+
+    private static final int MILHAO = 1_000_000;
+
+    @Autowired
+    WebTestClient testClient;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @LocalServerPort
+    int porta;
+
+    @AfterEach
+    public void limpar() {
+        jdbcTemplate.execute("truncate table usuarios");
+    }
+
+    @Test
+    @Sql(scripts = "/sql/usuarios/usuarios-insert.sql")
+    public void exportarUsuarios_EmCsvPorRole_RetornarCabecalhoEUsuariosFiltradosComStatus200(){
+        String responseBody = testClient
+            .get()
+            .uri("/api/v1/usuarios/exportacao?role=cliente")
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().contentTypeCompatibleWith("text/csv")
+            .expectHeader().valueEquals(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"usuarios.csv\"")
+            .expectBody(String.class)
+            .returnResult().getResponseBody();
+
+        org.assertj.core.api.Assertions.assertThat(responseBody.split("\n")).containsExactly(
+            "id,username,role,dataCriacao,dataModificacao",
+            "101,bia@email.com,CLIENTE,,",
+            "102,bob@email.com,CLIENTE,,");
+    }
+
+    @Test
+    @Sql(scripts = "/sql/usuarios/usuarios-insert.sql")
+    public void exportarUsuarios_EmNdjson_RetornarUmUsuarioPorLinhaComStatus200(){
+        String responseBody = testClient
+            .get()
+            .uri("/api/v1/usuarios/exportacao?formato=ndjson")
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().contentTypeCompatibleWith("application/x-ndjson")
+            .expectBody(String.class)
+            .returnResult().getResponseBody();
+
+        org.assertj.core.api.Assertions.assertThat(responseBody.split("\n")).hasSize(3);
+        org.assertj.core.api.Assertions.assertThat(responseBody.split("\n")[0])
+            .isEqualTo("{\"id\":100,\"username\":\"ana@email.com\",\"role\":\"ADMIN\",\"dataCriacao\":null,\"dataModificacao\":null}");
+    }
+
+    @Test
+    public void exportarUsuarios_ComRoleInvalida_RetornarErrorMessageComStatus400(){
+        ErrorMessage responseBody = testClient
+            .get()
+            .uri("/api/v1/usuarios/exportacao?role=gerente")
+            .exchange()
+            .expectStatus().isBadRequest()
+            .expectBody(ErrorMessage.class)
+            .returnResult().getResponseBody();
+
+        org.assertj.core.api.Assertions.assertThat(responseBody).isNotNull();
+        org.assertj.core.api.Assertions.assertThat(responseBody.getStatus()).isEqualTo(400);
+    }
+
+    // Um usuário ADMIN a cada 10, criados um por segundo a partir de 2024-01-01
+    @Test
+    public void exportarUsuarios_UmMilhaoDeLinhas_ManterOHeapConstante() throws Exception {
+        jdbcTemplate.update("insert into usuarios (id, username, password, role, data_criacao, versao) "
+            + "select x, concat('usuario', x, '@email.com'), 'x', case when mod(x, 10) = 0 then 'ROLE_ADMIN' else 'ROLE_CLIENTE' end, "
+            + "dateadd('SECOND', x, timestamp '2024-01-01 00:00:00'), 0 from system_range(1, ?)", MILHAO);
+
+        List<MemoryPoolMXBean> geracaoVelha = ManagementFactory.getMemoryPoolMXBeans().stream()
+            .filter(pool -> pool.getType() == MemoryType.HEAP)
+            .filter(pool -> pool.getName().contains("Old") || pool.getName().contains("Tenured"))
+            .toList();
+        org.assertj.core.api.Assertions.assertThat(geracaoVelha).isNotEmpty();
+        System.gc();
+        long antes = geracaoVelha.stream().mapToLong(pool -> pool.getUsage().getUsed()).sum();
+        geracaoVelha.forEach(MemoryPoolMXBean::resetPeakUsage);
+
+        org.assertj.core.api.Assertions.assertThat(contarLinhas("/api/v1/usuarios/exportacao")).isEqualTo(MILHAO + 1);
+
+        long pico = geracaoVelha.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum();
+        // Um milhão de linhas em uma lista passaria de 150MB
+        org.assertj.core.api.Assertions.assertThat(pico - antes).isLessThan(32L * 1024 * 1024);
+
+        // Dez mil segundos a partir do primeiro: 10.000 usuários, 1.000 deles ADMIN
+        org.assertj.core.api.Assertions.assertThat(contarLinhas("/api/v1/usuarios/exportacao?formato=ndjson&role=ADMIN"
+            + "&criadoDe=2024-01-01T00:00:01&criadoAte=2024-01-01T02:46:41")).isEqualTo(1_000);
+    }
+
+    // Lê a resposta como stream: o WebTestClient guardaria o corpo inteiro
+    private long contarLinhas(String uri) throws Exception {
+        HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + porta + uri)).build();
+        HttpResponse<InputStream> response = HttpClient.newHttpClient().send(request, HttpResponse.BodyHandlers.ofInputStream());
+        org.assertj.core.api.Assertions.assertThat(response.statusCode()).isEqualTo(200);
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(response.body(), StandardCharsets.UTF_8))) {
+            return reader.lines().count();
+        }
+    }
+}
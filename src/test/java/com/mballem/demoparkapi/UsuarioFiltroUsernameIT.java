@@ -0,0 +1,116 @@
+package com.mballem.demoparkapi;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.mballem.demoparkapi.service.UsernameFilter;
+import com.mballem.demoparkapi.web.dto.UsuarioCreateDto;
+import com.mballem.demoparkapi.web.dto.UsuarioLoteResponseDto;
+import com.mballem.demoparkapi.web.dto.UsuarioResponseDto;
+import com.mballem.demoparkapi.web.exception.ErrorMessage;
+
+// Filtro de Bloom dos usernames antes do cadastro. Banco próprio com um usuário gravado por uma migração de teste,
+// já presente quando o filtro é aquecido na subida; cada teste usa usernames próprios
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "spring.datasource.url=jdbc:h2:mem:demopark-filtro;DB_CLOSE_DELAY=-1",
+    "spring.flyway.locations=classpath:db/migration/{vendor},classpath:db/filtro-username"
+})
+public class UsuarioFiltroUsernameIT {
+
+    @Autowired
+    WebTestClient testClient;
+
+    @Autowired
+    UsernameFilter usernameFilter;
+
+    @Test
+    public void aquecer_NaSubida_ConterUsernamesJaGravados(){
+        org.assertj.core.api.Assertions.assertThat(usernameFilter.podeExistir("semente@email.com")).isTrue();
+    }
+
+    // O filtro diz "talvez" e a consulta de existência confirma: 409 sem chegar ao insert
+    @Test
+    public void createUsuario_ComUsernameNoFiltroEJaGravado_RetornarStatus409SemInsert(){
+        double insertsAntes = contarInserts();
+
+        ErrorMessage responseBody = testClient
+            .post()
+            .uri("/api/v1/usuarios")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(new UsuarioCreateDto("semente@email.com", "123456"))
+            .exchange()
+            .expectStatus().isEqualTo(409)
+            .expectBody(ErrorMessage.class)
+            .returnResult().getResponseBody();
+
+        org.assertj.core.api.Assertions.assertThat(responseBody).isNotNull();
+        org.assertj.core.api.Assertions.assertThat(responseBody.getStatus()).isEqualTo(409);
+        org.assertj.core.api.Assertions.assertThat(contarInserts()).isEqualTo(insertsAntes);
+    }
+
+    // Um username no filtro mas fora do banco (falso positivo, ou cadastro desfeito depois do registro) segue
+    // para a consulta de existência e é cadastrado
+    @Test
+    public void createUsuario_ComFalsoPositivoDoFiltro_RetornarStatus201(){
+        usernameFilter.registrar("talvez@email.com");
+        org.assertj.core.api.Assertions.assertThat(usernameFilter.podeExistir("talvez@email.com")).isTrue();
+        double insertsAntes = contarInserts();
+
+        UsuarioResponseDto responseBody = testClient
+            .post()
+            .uri("/api/v1/usuarios")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(new UsuarioCreateDto("talvez@email.com", "123456"))
+            .exchange()
+            .expectStatus().isCreated()
+            .expectBody(UsuarioResponseDto.class)
+            .returnResult().getResponseBody();
+
+        org.assertj.core.api.Assertions.assertThat(responseBody).isNotNull();
+        org.assertj.core.api.Assertions.assertThat(responseBody.getUsername()).isEqualTo("talvez@email.com");
+        org.assertj.core.api.Assertions.assertThat(contarInserts()).isGreaterThan(insertsAntes);
+    }
+
+    // No lote o mesmo filtro separa os usernames que vão à consulta: o já gravado é recusado e o falso positivo,
+    // cadastrado
+    @Test
+    public void createUsuariosEmLote_ComUsernameGravadoEFalsoPositivo_RecusarSoOGravado(){
+        usernameFilter.registrar("lote-talvez@email.com");
+
+        UsuarioLoteResponseDto responseBody = testClient
+            .post()
+            .uri("/api/v1/usuarios/lote")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(List.of(new UsuarioCreateDto("semente@email.com", "123456"),
+                new UsuarioCreateDto("lote-talvez@email.com", "123456"),
+                new UsuarioCreateDto("lote-novo@email.com", "123456")))
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody(UsuarioLoteResponseDto.class)
+            .returnResult().getResponseBody();
+
+        org.assertj.core.api.Assertions.assertThat(responseBody).isNotNull();
+        org.assertj.core.api.Assertions.assertThat(responseBody.getCriados()).extracting(UsuarioResponseDto::getUsername)
+            .containsExactly("lote-talvez@email.com", "lote-novo@email.com");
+        org.assertj.core.api.Assertions.assertThat(responseBody.getErros()).hasSize(1);
+        org.assertj.core.api.Assertions.assertThat(responseBody.getErros().get(0).getIndice()).isEqualTo(0);
+        org.assertj.core.api.Assertions.assertThat(responseBody.getErros().get(0).getMotivo()).contains("já cadastrado");
+    }
+
+    private double contarInserts() {
+        Number[] valor = new Number[1];
+        testClient
+            .get()
+            .uri("/actuator/metrics/jdbc.statements?tag=tipo:insert")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.measurements[0].value").value(inserts -> valor[0] = (Number) inserts);
+        return valor[0].doubleValue();
+    }
+}
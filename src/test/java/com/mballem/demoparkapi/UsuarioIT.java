@@ -1,21 +1,42 @@
 package com.mballem.demoparkapi;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.fasterxml.jackson.dataformat.protobuf.ProtobufMapper;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.MediaType;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.test.context.jdbc.Sql;
 import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.netty.http.client.HttpClient;
 
+import com.mballem.demoparkapi.service.EstatisticasUsuarios;
+import com.mballem.demoparkapi.web.converter.JacksonProtobufHttpMessageConverter;
+import com.mballem.demoparkapi.web.dto.UsuarioBuscaItemDto;
 import com.mballem.demoparkapi.web.dto.UsuarioCreateDto;
+import com.mballem.demoparkapi.web.dto.UsuarioEstatisticasDto;
+import com.mballem.demoparkapi.web.dto.UsuarioLoteErroDto;
+import com.mballem.demoparkapi.web.dto.UsuarioLoteResponseDto;
+import com.mballem.demoparkapi.web.dto.UsuarioPaginaDto;
 import com.mballem.demoparkapi.web.dto.UsuarioResponseDto;
 import com.mballem.demoparkapi.web.dto.UsuarioSenhaDto;
 import com.mballem.demoparkapi.web.exception.ErrorMessage;
 
-// Anotação incluindo uma configuração, executando um tomcat em uma porta randômica de testes
-@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+// Anotação incluindo uma configuração, executando um tomcat em uma porta randômica de testes. O endpoint consultas,
+// fora da exposição web padrão, é exposto aqui para o teste do ranking
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+    properties = "management.endpoints.web.exposure.include=health,metrics,prometheus,consultas")
 // Anotação para executar um script de insert antes de começar os testes, adicionando os parâmetros script e executionPhase
 @Sql(scripts = "/sql/usuarios/usuarios-insert.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
 // Anotação para executar um escript de delete depois dos testes, zerando o banco
@@ -25,6 +46,12 @@ public class UsuarioIT {
     @Autowired
     WebTestClient testClient;
 
+    @LocalServerPort
+    int porta;
+
+    @Autowired
+    EstatisticasUsuarios estatisticasUsuarios;
+
     // A annotation Test
     @Test
     // Cria uma função pública
@@ -198,6 +225,43 @@ public class UsuarioIT {
         org.assertj.core.api.Assertions.assertThat(responseBody.getStatus()).isEqualTo(404);
     }
 
+    @Test
+    public void buscarUsuariosPorIds_ComRepetidosEInexistente_RetornarNaOrdemComErroPorItemComStatus200(){
+        List<UsuarioBuscaItemDto> responseBody = testClient
+            .get()
+            .uri("/api/v1/usuarios/busca?ids=102,0,100,102")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBodyList(UsuarioBuscaItemDto.class)
+            .returnResult().getResponseBody();
+
+        org.assertj.core.api.Assertions.assertThat(responseBody).extracting(UsuarioBuscaItemDto::getId)
+            .containsExactly(102L, 0L, 100L);
+        org.assertj.core.api.Assertions.assertThat(responseBody.get(0).getUsuario().getUsername()).isEqualTo("bob@email.com");
+        org.assertj.core.api.Assertions.assertThat(responseBody.get(1).getUsuario()).isNull();
+        org.assertj.core.api.Assertions.assertThat(responseBody.get(1).getErro()).isEqualTo("Usuário id=0 não encontrado");
+        org.assertj.core.api.Assertions.assertThat(responseBody.get(2).getUsuario().getRole()).isEqualTo("ADMIN");
+        org.assertj.core.api.Assertions.assertThat(responseBody.get(2).getErro()).isNull();
+    }
+
+    @Test
+    public void buscarUsuariosPorIds_AcimaDoMaximo_RetornarErrorMessageComStatus413(){
+        StringBuilder ids = new StringBuilder("1");
+        for (int i = 2; i <= 501; i++) {
+            ids.append(',').append(i);
+        }
+        ErrorMessage responseBody = testClient
+            .get()
+            .uri("/api/v1/usuarios/busca?ids=" + ids)
+            .exchange()
+            .expectStatus().isEqualTo(413)
+            .expectBody(ErrorMessage.class)
+            .returnResult().getResponseBody();
+
+        org.assertj.core.api.Assertions.assertThat(responseBody).isNotNull();
+        org.assertj.core.api.Assertions.assertThat(responseBody.getStatus()).isEqualTo(413);
+    }
+
     @Test
     public void editarSenha_ComDadosValidos_RetornarStatus204(){
         testClient
@@ -311,4 +375,400 @@ public class UsuarioIT {
     
     }
 
-}
\ No newline at end of file
+    @Test
+    public void buscarPaginaDeUsuarios_ComCursor_RetornarPaginasSemRepetirComStatus200(){
+        UsuarioPaginaDto primeira = testClient
+            .get()
+            .uri("/api/v1/usuarios/pagina?tamanho=2")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody(UsuarioPaginaDto.class)
+            .returnResult().getResponseBody();
+
+        org.assertj.core.api.Assertions.assertThat(primeira).isNotNull();
+        org.assertj.core.api.Assertions.assertThat(primeira.getConteudo()).extracting(UsuarioResponseDto::getId).containsExactly(100L, 101L);
+        org.assertj.core.api.Assertions.assertThat(primeira.getProximoCursor()).isNotNull();
+
+        UsuarioPaginaDto segunda = testClient
+            .get()
+            .uri("/api/v1/usuarios/pagina?tamanho=2&cursor={cursor}", primeira.getProximoCursor())
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody(UsuarioPaginaDto.class)
+            .returnResult().getResponseBody();
+
+        org.assertj.core.api.Assertions.assertThat(segunda).isNotNull();
+        org.assertj.core.api.Assertions.assertThat(segunda.getConteudo()).extracting(UsuarioResponseDto::getId).containsExactly(102L);
+        org.assertj.core.api.Assertions.assertThat(segunda.getProximoCursor()).isNull();
+    }
+
+    @Test
+    public void buscarPaginaDeUsuarios_ComCursorInvalido_RetornarErrorMessageComStatus400(){
+        ErrorMessage responseBody = testClient
+            .get()
+            .uri("/api/v1/usuarios/pagina?cursor=invalido")
+            .exchange()
+            .expectStatus().isBadRequest()
+            .expectBody(ErrorMessage.class)
+            .returnResult().getResponseBody();
+
+        org.assertj.core.api.Assertions.assertThat(responseBody).isNotNull();
+        org.assertj.core.api.Assertions.assertThat(responseBody.getStatus()).isEqualTo(400);
+    }
+
+    @Test
+    public void transmitirUsuarios_RetornarUmUsuarioPorLinhaComStatus200(){
+        List<UsuarioResponseDto> responseBody = testClient
+            .get()
+            .uri("/api/v1/usuarios/stream")
+            .accept(MediaType.APPLICATION_NDJSON)
+            .exchange()
+            .expectStatus().isOk()
+            .expectBodyList(UsuarioResponseDto.class)
+            .returnResult().getResponseBody();
+
+        org.assertj.core.api.Assertions.assertThat(responseBody).isNotNull();
+        org.assertj.core.api.Assertions.assertThat(responseBody).extracting(UsuarioResponseDto::getUsername)
+            .containsExactly("ana@email.com", "bia@email.com", "bob@email.com");
+    }
+
+    @Test
+    public void createUsuariosEmLote_ComItensInvalidosERepetidos_RetornarCriadosEErrosPorItemComStatus200(){
+        UsuarioLoteResponseDto responseBody = testClient
+            .post()
+            .uri("/api/v1/usuarios/lote")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(List.of(
+                new UsuarioCreateDto("tody@email.com", "123456"),
+                new UsuarioCreateDto("tody@", "123456"),
+                new UsuarioCreateDto("ana@email.com", "123456"),
+                new UsuarioCreateDto("tody@email.com", "123456"),
+                new UsuarioCreateDto("zoe@email.com", "123456")))
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody(UsuarioLoteResponseDto.class)
+            .returnResult().getResponseBody();
+
+        org.assertj.core.api.Assertions.assertThat(responseBody).isNotNull();
+        org.assertj.core.api.Assertions.assertThat(responseBody.getTotal()).isEqualTo(5);
+        org.assertj.core.api.Assertions.assertThat(responseBody.getCriados()).extracting(UsuarioResponseDto::getUsername)
+            .containsExactly("tody@email.com", "zoe@email.com");
+        org.assertj.core.api.Assertions.assertThat(responseBody.getCriados()).allSatisfy(dto -> {
+            org.assertj.core.api.Assertions.assertThat(dto.getId()).isNotNull();
+            org.assertj.core.api.Assertions.assertThat(dto.getRole()).isEqualTo("CLIENTE");
+        });
+        org.assertj.core.api.Assertions.assertThat(responseBody.getErros()).extracting(UsuarioLoteErroDto::getIndice)
+            .containsExactly(1, 2, 3);
+    }
+
+    @Test
+    public void buscarUsuario_RepetidoPeloId_RetornarDoCacheComStatus200(){
+        testClient.get().uri("/api/v1/usuarios/101").exchange().expectStatus().isOk();
+        testClient.get().uri("/api/v1/usuarios/101").exchange().expectStatus().isOk();
+
+        testClient
+            .get()
+            .uri("/actuator/metrics/cache.gets?tag=cache:usuarios&tag=result:hit")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.measurements[0].value").value(hits ->
+                org.assertj.core.api.Assertions.assertThat(((Number) hits).doubleValue()).isGreaterThanOrEqualTo(1));
+    }
+
+    @Test
+    public void editarSenha_DuasVezesSeguidas_ConferirPeloHashGravadoComStatus204(){
+        testClient
+            .patch()
+            .uri("/api/v1/usuarios/101")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(new UsuarioSenhaDto("123456", "654321", "654321"))
+            .exchange()
+            .expectStatus().isNoContent();
+
+        // A senha antiga deixa de conferir e a nova passa a ser validada pelo hash gravado
+        testClient
+            .patch()
+            .uri("/api/v1/usuarios/101")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(new UsuarioSenhaDto("123456", "111111", "111111"))
+            .exchange()
+            .expectStatus().isEqualTo(400);
+
+        testClient
+            .patch()
+            .uri("/api/v1/usuarios/101")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(new UsuarioSenhaDto("654321", "111111", "111111"))
+            .exchange()
+            .expectStatus().isNoContent();
+    }
+
+    @Test
+    public void metricas_AposBuscarUsuario_PublicarEmFormatoPrometheus(){
+        testClient.get().uri("/api/v1/usuarios/102").exchange().expectStatus().isOk();
+        testClient.get().uri("/api/v1/usuarios/stream").exchange().expectStatus().isOk().expectBody(String.class);
+        // O filtro registra a requisição depois de devolver a resposta; a segunda chamada garante que a primeira já foi contada
+        testClient.get().uri("/api/v1/usuarios").exchange().expectStatus().isOk();
+
+        // Os histogramas deixam a resposta maior que o buffer padrão do WebTestClient
+        String responseBody = testClient
+            .mutate().codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(4 * 1024 * 1024)).build()
+            .get()
+            .uri("/actuator/prometheus")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody(String.class)
+            .returnResult().getResponseBody();
+
+        org.assertj.core.api.Assertions.assertThat(responseBody)
+            .contains("http_server_requests_seconds_bucket")
+            .contains("usuario_service_seconds_count{class=\"com.mballem.demoparkapi.service.UsuarioService\"")
+            .contains("http_server_requests_jdbc_statements_count{method=\"GET\",uri=\"/api/v1/usuarios/{id}\",}")
+            .contains("jdbc_statements_total{tipo=\"select\",}")
+            .contains("hikaricp_connections_acquire_seconds")
+            // O stream é assíncrono e consulta em outra thread: fica fora das estatísticas por requisição
+            .doesNotContain("http_server_requests_jdbc_statements_count{method=\"GET\",uri=\"/api/v1/usuarios/stream\",}");
+    }
+
+    @Test
+    public void buscarUsuario_ComIdInexistente_ContarErroPorTipoEStatus(){
+        testClient.get().uri("/api/v1/usuarios/0").exchange().expectStatus().isNotFound();
+
+        testClient
+            .get()
+            .uri("/actuator/metrics/api.errors?tag=exception:EntityNotFoundException&tag=status:404")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody()
+            .jsonPath("$.measurements[0].value").value(erros ->
+                org.assertj.core.api.Assertions.assertThat(((Number) erros).doubleValue()).isGreaterThanOrEqualTo(1));
+    }
+
+    @Test
+    public void consultas_AposBuscarUsuario_ListarConsultaNormalizadaNoRanking(){
+        testClient.get().uri("/api/v1/usuarios").exchange().expectStatus().isOk();
+
+        List<Map<String, Object>> responseBody = testClient
+            .get()
+            .uri("/actuator/consultas?quantidade=50")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBodyList(new ParameterizedTypeReference<Map<String, Object>>() {})
+            .returnResult().getResponseBody();
+
+        org.assertj.core.api.Assertions.assertThat(responseBody).isNotEmpty();
+        org.assertj.core.api.Assertions.assertThat(responseBody).anySatisfy(consulta -> {
+            org.assertj.core.api.Assertions.assertThat((String) consulta.get("consulta")).contains("from usuarios");
+            org.assertj.core.api.Assertions.assertThat(((Number) consulta.get("execucoes")).longValue()).isGreaterThanOrEqualTo(1);
+        });
+    }
+
+    @Test
+    public void buscarUsuario_ComIfNoneMatchDoUltimoETag_RetornarStatus304SemCorpo(){
+        String etag = testClient
+            .get()
+            .uri("/api/v1/usuarios/101")
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().exists("ETag")
+            .returnResult(UsuarioResponseDto.class)
+            .getResponseHeaders().getETag();
+        // Fraco: o mesmo ETag vale para todos os formatos e para a resposta com ou sem gzip
+        org.assertj.core.api.Assertions.assertThat(etag).isEqualTo("W/\"101-0\"");
+
+        testClient
+            .get()
+            .uri("/api/v1/usuarios/101")
+            .header("If-None-Match", etag)
+            .exchange()
+            .expectStatus().isNotModified()
+            .expectBody().isEmpty();
+
+        // A troca de senha incrementa a versão e invalida o ETag anterior
+        testClient
+            .patch()
+            .uri("/api/v1/usuarios/101")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(new UsuarioSenhaDto("123456", "654321", "654321"))
+            .exchange()
+            .expectStatus().isNoContent();
+
+        testClient
+            .get()
+            .uri("/api/v1/usuarios/101")
+            .header("If-None-Match", etag)
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().exists("Last-Modified")
+            .expectBody()
+            .jsonPath("id").isEqualTo(101);
+    }
+
+    @Test
+    public void listarUsuarios_ComIfNoneMatchDaColecao_RetornarStatus304AteNovoCadastro(){
+        String etag = testClient
+            .get()
+            .uri("/api/v1/usuarios")
+            .exchange()
+            .expectStatus().isOk()
+            .returnResult(UsuarioResponseDto.class)
+            .getResponseHeaders().getETag();
+
+        testClient
+            .get()
+            .uri("/api/v1/usuarios")
+            .header("If-None-Match", etag)
+            .exchange()
+            .expectStatus().isNotModified();
+
+        testClient
+            .post()
+            .uri("/api/v1/usuarios")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(new UsuarioCreateDto("etag@email.com", "123456"))
+            .exchange()
+            .expectStatus().isCreated();
+
+        testClient
+            .get()
+            .uri("/api/v1/usuarios")
+            .header("If-None-Match", etag)
+            .exchange()
+            .expectStatus().isOk()
+            .expectBodyList(UsuarioResponseDto.class).hasSize(4);
+    }
+
+
+    @Test
+    public void buscarListaDeUsuarios_ComAcceptCbor_RetornarCorpoCborComStatus200() throws Exception {
+        byte[] responseBody = testClient
+            .get()
+            .uri("/api/v1/usuarios")
+            .accept(MediaType.APPLICATION_CBOR)
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().contentType(MediaType.APPLICATION_CBOR)
+            .expectBody(byte[].class)
+            .returnResult().getResponseBody();
+
+        List<UsuarioResponseDto> usuarios = new CBORMapper().readValue(responseBody, new TypeReference<List<UsuarioResponseDto>>() {});
+        org.assertj.core.api.Assertions.assertThat(usuarios).extracting(UsuarioResponseDto::getUsername)
+            .containsExactly("ana@email.com", "bia@email.com", "bob@email.com");
+    }
+
+    @Test
+    public void buscarUsuario_ComAcceptSmile_RetornarCorpoSmileComStatus200() throws Exception {
+        byte[] responseBody = testClient
+            .get()
+            .uri("/api/v1/usuarios/100")
+            .accept(MediaType.parseMediaType("application/x-jackson-smile"))
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().contentType("application/x-jackson-smile")
+            .expectBody(byte[].class)
+            .returnResult().getResponseBody();
+
+        UsuarioResponseDto usuario = new SmileMapper().readValue(responseBody, UsuarioResponseDto.class);
+        org.assertj.core.api.Assertions.assertThat(usuario.getUsername()).isEqualTo("ana@email.com");
+        org.assertj.core.api.Assertions.assertThat(usuario.getRole()).isEqualTo("ADMIN");
+    }
+
+    @Test
+    public void buscarListaDeUsuarios_ComAcceptProtobuf_RetornarCorpoProtobufComStatus200() throws Exception {
+        byte[] responseBody = testClient
+            .get()
+            .uri("/api/v1/usuarios")
+            .accept(MediaType.parseMediaType("application/x-protobuf"))
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().contentType("application/x-protobuf")
+            .expectBody(byte[].class)
+            .returnResult().getResponseBody();
+
+        // O cliente monta o mesmo schema a partir dos DTOs: a lista vem na mensagem Lista, campo itens
+        ProtobufMapper mapper = new ProtobufMapper();
+        JavaType tipo = mapper.getTypeFactory().constructParametricType(JacksonProtobufHttpMessageConverter.Lista.class, UsuarioResponseDto.class);
+        JacksonProtobufHttpMessageConverter.Lista<UsuarioResponseDto> lista = mapper.readerFor(tipo)
+            .with(mapper.generateSchemaFor(tipo)).readValue(responseBody);
+        org.assertj.core.api.Assertions.assertThat(lista.itens()).extracting(UsuarioResponseDto::getId)
+            .containsExactly(100L, 101L, 102L);
+    }
+
+    @Test
+    public void buscarListaDeUsuarios_AcimaDoLimiteDeCompressao_RetornarCorpoGzip(){
+        // Poucos cadastros com usernames longos: os ids gerados não podem alcançar os ids fixos (100 a 102) dos scripts
+        List<UsuarioCreateDto> novos = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            novos.add(new UsuarioCreateDto("usuario-para-testar-compressao-" + i + "@email.com", "123456"));
+        }
+        testClient.post().uri("/api/v1/usuarios/lote").contentType(MediaType.APPLICATION_JSON).bodyValue(novos)
+            .exchange().expectStatus().isOk();
+
+        // O cliente padrão do WebTestClient descompacta a resposta e remove o Content-Encoding
+        WebTestClient semDescompressao = WebTestClient.bindToServer(new ReactorClientHttpConnector(HttpClient.create()))
+            .baseUrl("http://localhost:" + porta)
+            .build();
+
+        semDescompressao
+            .get()
+            .uri("/api/v1/usuarios")
+            .header("Accept-Encoding", "gzip")
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().valueEquals("Content-Encoding", "gzip");
+
+        // Abaixo do limite (2KB) a resposta segue sem compressão
+        semDescompressao
+            .get()
+            .uri("/api/v1/usuarios/100")
+            .header("Accept-Encoding", "gzip")
+            .exchange()
+            .expectStatus().isOk()
+            .expectHeader().doesNotExist("Content-Encoding");
+    }
+
+    // Os usuários do script não passam pelos contadores: a reconciliação os traz do banco, e o cadastro seguinte
+    // entra direto nos contadores
+    @Test
+    public void buscarEstatisticas_AposReconciliarECadastrar_RetornarContagensComStatus200(){
+        estatisticasUsuarios.reconciliar();
+
+        UsuarioEstatisticasDto reconciliadas = testClient
+            .get()
+            .uri("/api/v1/usuarios/estatisticas")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody(UsuarioEstatisticasDto.class)
+            .returnResult().getResponseBody();
+
+        org.assertj.core.api.Assertions.assertThat(reconciliadas).isNotNull();
+        org.assertj.core.api.Assertions.assertThat(reconciliadas.getTotal()).isEqualTo(3);
+        org.assertj.core.api.Assertions.assertThat(reconciliadas.getPorRole())
+            .containsEntry("ADMIN", 1L)
+            .containsEntry("CLIENTE", 2L);
+        org.assertj.core.api.Assertions.assertThat(reconciliadas.getCadastrosPorDia()).isEmpty();
+        org.assertj.core.api.Assertions.assertThat(reconciliadas.getReconciliadoEm()).isNotNull();
+
+        testClient
+            .post()
+            .uri("/api/v1/usuarios")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(new UsuarioCreateDto("contado@email.com", "123456"))
+            .exchange()
+            .expectStatus().isCreated();
+
+        UsuarioEstatisticasDto responseBody = testClient
+            .get()
+            .uri("/api/v1/usuarios/estatisticas?dias=7")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody(UsuarioEstatisticasDto.class)
+            .returnResult().getResponseBody();
+
+        org.assertj.core.api.Assertions.assertThat(responseBody.getTotal()).isEqualTo(4);
+        org.assertj.core.api.Assertions.assertThat(responseBody.getPorRole()).containsEntry("CLIENTE", 3L);
+        org.assertj.core.api.Assertions.assertThat(responseBody.getCadastrosPorDia()).containsExactly(
+            Map.entry(LocalDate.now(), 1L));
+    }
+}
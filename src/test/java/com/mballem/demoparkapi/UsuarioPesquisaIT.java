@@ -0,0 +1,113 @@
+package com.mballem.demoparkapi;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.mballem.demoparkapi.web.dto.UsuarioCreateDto;
+import com.mballem.demoparkapi.web.dto.UsuarioPaginaDto;
+import com.mballem.demoparkapi.web.dto.UsuarioResponseDto;
+import com.mballem.demoparkapi.web.exception.ErrorMessage;
+
+// Pesquisa por prefixo e domínio direto no banco (índice em memória desligado, o padrão)
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@Sql(scripts = "/sql/usuarios/usuarios-pesquisa-insert.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = "/sql/usuarios/usuarios-delete.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+public class UsuarioPesquisaIT {
+
+    @Autowired
+    WebTestClient testClient;
+
+    @Test
+    public void pesquisarUsuarios_PorPrefixo_RetornarEmOrdemDeUsernameComStatus200(){
+        org.assertj.core.api.Assertions.assertThat(pesquisar("prefixo=an").getConteudo()).extracting(UsuarioResponseDto::getUsername)
+            .containsExactly("ana@email.com", "anabela@gmail.com", "andre@email.com");
+    }
+
+    // O _ do prefixo é literal, não o coringa do like
+    @Test
+    public void pesquisarUsuarios_PorPrefixoComCoringa_RetornarSoOLiteralComStatus200(){
+        org.assertj.core.api.Assertions.assertThat(pesquisar("prefixo=a_").getConteudo()).extracting(UsuarioResponseDto::getUsername)
+            .containsExactly("a_b@email.com");
+    }
+
+    @Test
+    public void pesquisarUsuarios_PorDominioEPrefixo_RetornarSoDoDominioComStatus200(){
+        org.assertj.core.api.Assertions.assertThat(pesquisar("dominio=gmail.com").getConteudo()).extracting(UsuarioResponseDto::getUsername)
+            .containsExactly("anabela@gmail.com", "bia@gmail.com");
+        org.assertj.core.api.Assertions.assertThat(pesquisar("prefixo=an&dominio=email.com").getConteudo()).extracting(UsuarioResponseDto::getUsername)
+            .containsExactly("ana@email.com", "andre@email.com");
+    }
+
+    @Test
+    public void pesquisarUsuarios_PorRoleEDataDeCriacao_RetornarFiltradosComStatus200(){
+        org.assertj.core.api.Assertions.assertThat(pesquisar("role=CLIENTE&criadoDe=2024-03-01T00:00:00&criadoAte=2024-04-02T00:00:00").getConteudo())
+            .extracting(UsuarioResponseDto::getUsername)
+            .containsExactly("andre@email.com", "bia@gmail.com", "bob@email.com");
+        org.assertj.core.api.Assertions.assertThat(pesquisar("prefixo=a&role=ADMIN").getConteudo()).extracting(UsuarioResponseDto::getUsername)
+            .containsExactly("ana@email.com");
+    }
+
+    @Test
+    public void pesquisarUsuarios_ComCursor_RetornarPaginasSemRepetirComStatus200(){
+        UsuarioPaginaDto primeira = pesquisar("prefixo=a&tamanho=2");
+
+        org.assertj.core.api.Assertions.assertThat(primeira.getConteudo()).extracting(UsuarioResponseDto::getUsername)
+            .containsExactly("a_b@email.com", "ana@email.com");
+        org.assertj.core.api.Assertions.assertThat(primeira.getProximoCursor()).isNotNull();
+
+        UsuarioPaginaDto segunda = pesquisar("prefixo=a&tamanho=2&cursor=" + primeira.getProximoCursor());
+
+        org.assertj.core.api.Assertions.assertThat(segunda.getConteudo()).extracting(UsuarioResponseDto::getUsername)
+            .containsExactly("anabela@gmail.com", "andre@email.com");
+        org.assertj.core.api.Assertions.assertThat(segunda.getProximoCursor()).isNull();
+    }
+
+    @Test
+    public void pesquisarUsuarios_AposCadastro_EncontrarNovoUsuarioComStatus200(){
+        testClient
+            .post()
+            .uri("/api/v1/usuarios")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(new UsuarioCreateDto("anx@email.com", "123456"))
+            .exchange()
+            .expectStatus().isCreated();
+
+        List<UsuarioResponseDto> conteudo = pesquisar("prefixo=anx").getConteudo();
+
+        org.assertj.core.api.Assertions.assertThat(conteudo).extracting(UsuarioResponseDto::getUsername).containsExactly("anx@email.com");
+        org.assertj.core.api.Assertions.assertThat(conteudo.get(0).getRole()).isEqualTo("CLIENTE");
+    }
+
+    @Test
+    public void pesquisarUsuarios_ComRoleInvalida_RetornarErrorMessageComStatus400(){
+        ErrorMessage responseBody = testClient
+            .get()
+            .uri("/api/v1/usuarios/pesquisa?role=GERENTE")
+            .exchange()
+            .expectStatus().isBadRequest()
+            .expectBody(ErrorMessage.class)
+            .returnResult().getResponseBody();
+
+        org.assertj.core.api.Assertions.assertThat(responseBody).isNotNull();
+        org.assertj.core.api.Assertions.assertThat(responseBody.getStatus()).isEqualTo(400);
+    }
+
+    private UsuarioPaginaDto pesquisar(String parametros) {
+        UsuarioPaginaDto responseBody = testClient
+            .get()
+            .uri("/api/v1/usuarios/pesquisa?" + parametros)
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody(UsuarioPaginaDto.class)
+            .returnResult().getResponseBody();
+
+        org.assertj.core.api.Assertions.assertThat(responseBody).isNotNull();
+        return responseBody;
+    }
+}
@@ -0,0 +1,22 @@
+package com.mballem.demoparkapi;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import com.mballem.demoparkapi.service.IndiceUsernames;
+
+// Os mesmos cenários do UsuarioPesquisaIT respondidos pelo índice em memória. Os usuários dos scripts @Sql não passam
+// pelo UsuarioService, então o índice é recarregado antes de cada teste
+@TestPropertySource(properties = "demopark.usuarios.pesquisa.indice-memoria.habilitado=true")
+public class UsuarioPesquisaMemoriaIT extends UsuarioPesquisaIT {
+
+    @Autowired
+    IndiceUsernames indiceUsernames;
+
+    @BeforeEach
+    public void recarregarIndice() {
+        indiceUsernames.recarregar();
+        org.assertj.core.api.Assertions.assertThat(indiceUsernames.disponivel()).isTrue();
+    }
+}
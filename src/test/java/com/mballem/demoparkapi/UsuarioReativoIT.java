@@ -0,0 +1,44 @@
+package com.mballem.demoparkapi;
+
+import org.junit.jupiter.api.Disabled;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.ActiveProfiles;
+
+// Os mesmos cenários do UsuarioIT contra a pilha reativa (WebFlux no Netty + R2DBC), com o mesmo H2 nos scripts @Sql
+@ActiveProfiles("reativo")
+public class UsuarioReativoIT extends UsuarioIT {
+
+    // As métricas por requisição (comandos JDBC e entidades carregadas) vêm de um filtro de servlet
+    @Test
+    @Override
+    public void metricas_AposBuscarUsuario_PublicarEmFormatoPrometheus(){
+        testClient.get().uri("/api/v1/usuarios/102").exchange().expectStatus().isOk();
+        testClient.get().uri("/api/v1/usuarios").exchange().expectStatus().isOk();
+
+        String responseBody = testClient
+            .mutate().codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(4 * 1024 * 1024)).build()
+            .get()
+            .uri("/actuator/prometheus")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody(String.class)
+            .returnResult().getResponseBody();
+
+        org.assertj.core.api.Assertions.assertThat(responseBody)
+            .contains("http_server_requests_seconds_bucket")
+            .contains("r2dbc_pool_acquired_connections")
+            .contains("cache_gets_total{cache=\"usuarios\"");
+    }
+
+    @Test
+    @Override
+    @Disabled("O ranking de consultas inspeciona só os comandos JDBC; a pilha reativa consulta pelo R2DBC")
+    public void consultas_AposBuscarUsuario_ListarConsultaNormalizadaNoRanking(){
+    }
+
+    @Test
+    @Override
+    @Disabled("O conversor protobuf é registrado só no Spring MVC")
+    public void buscarListaDeUsuarios_ComAcceptProtobuf_RetornarCorpoProtobufComStatus200(){
+    }
+}
@@ -0,0 +1,100 @@
+package com.mballem.demoparkapi;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.mballem.demoparkapi.datasource.RoteamentoDataSource;
+import com.mballem.demoparkapi.web.dto.UsuarioCreateDto;
+import com.mballem.demoparkapi.web.dto.UsuarioResponseDto;
+import com.mballem.demoparkapi.web.dto.UsuarioSenhaDto;
+
+// Roteamento leitura/escrita com dois H2: o primário recebe os scripts @Sql (ids 100 a 102) e a réplica
+// só tem o usuário 900, então cada resposta mostra de qual banco a leitura veio
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "demopark.datasource.roteamento.habilitado=true",
+    "demopark.datasource.roteamento.leitura-propria=30s",
+    "spring.datasource.url=jdbc:h2:mem:demopark-primario;DB_CLOSE_DELAY=-1",
+    "demopark.datasource.replicas.urls=jdbc:h2:mem:demopark-replica;DB_CLOSE_DELAY=-1;INIT=RUNSCRIPT FROM 'classpath:sql/usuarios/replica-init.sql'"
+})
+@Sql(scripts = "/sql/usuarios/usuarios-insert.sql", executionPhase = Sql.ExecutionPhase.BEFORE_TEST_METHOD)
+@Sql(scripts = "/sql/usuarios/usuarios-delete.sql", executionPhase = Sql.ExecutionPhase.AFTER_TEST_METHOD)
+public class UsuarioRoteamentoIT {
+
+    @Autowired
+    WebTestClient testClient;
+
+    @Autowired
+    RoteamentoDataSource roteamentoDataSource;
+
+    @Test
+    public void buscarUsuario_SemEscritaRecente_LerDaReplica(){
+        UsuarioResponseDto responseBody = testClient
+            .get()
+            .uri("/api/v1/usuarios/900")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody(UsuarioResponseDto.class)
+            .returnResult().getResponseBody();
+
+        org.assertj.core.api.Assertions.assertThat(responseBody).isNotNull();
+        org.assertj.core.api.Assertions.assertThat(responseBody.getUsername()).isEqualTo("replica@email.com");
+
+        testClient.get().uri("/api/v1/usuarios/101").exchange().expectStatus().isNotFound();
+    }
+
+    @Test
+    public void buscarUsuario_LogoAposCadastro_LerDoPrimario(){
+        UsuarioResponseDto criado = testClient
+            .post()
+            .uri("/api/v1/usuarios")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(new UsuarioCreateDto("roteado@email.com", "123456"))
+            .exchange()
+            .expectStatus().isCreated()
+            .expectBody(UsuarioResponseDto.class)
+            .returnResult().getResponseBody();
+
+        UsuarioResponseDto responseBody = testClient
+            .get()
+            .uri("/api/v1/usuarios/" + criado.getId())
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody(UsuarioResponseDto.class)
+            .returnResult().getResponseBody();
+
+        org.assertj.core.api.Assertions.assertThat(responseBody.getUsername()).isEqualTo("roteado@email.com");
+    }
+
+    // A conferência da senha atual precisa ler o hash do primário: a réplica nem tem o usuário 100
+    @Test
+    public void editarSenha_UsuarioSoNoPrimario_RetornarStatus204(){
+        testClient
+            .patch()
+            .uri("/api/v1/usuarios/100")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(new UsuarioSenhaDto("123456", "123456", "123456"))
+            .exchange()
+            .expectStatus().isNoContent();
+    }
+
+    @Test
+    @DirtiesContext
+    public void buscarUsuario_ComReplicaFora_LerDoPrimario(){
+        roteamentoDataSource.close();
+
+        UsuarioResponseDto responseBody = testClient
+            .get()
+            .uri("/api/v1/usuarios/102")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody(UsuarioResponseDto.class)
+            .returnResult().getResponseBody();
+
+        org.assertj.core.api.Assertions.assertThat(responseBody.getUsername()).isEqualTo("bob@email.com");
+    }
+}
@@ -0,0 +1,70 @@
+package com.mballem.demoparkapi;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.mballem.demoparkapi.web.dto.UsuarioSenhaDto;
+import com.mballem.demoparkapi.web.exception.ErrorMessage;
+
+// Migração V6 das senhas em texto puro. Banco próprio com usuários gravados por uma migração de teste anterior
+// à V6; cada teste usa usuários próprios
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "spring.datasource.url=jdbc:h2:mem:demopark-senha-migracao;DB_CLOSE_DELAY=-1",
+    "spring.flyway.locations=classpath:db/migration/{vendor},classpath:db/senha-texto-puro"
+})
+public class UsuarioSenhaMigracaoIT {
+
+    private static final String HASH_123456 = "$2a$04$QPX2.fLk02PSUOm5f.sbLuMHb1AtrRPV5bGO/7lg/2.wB4voJgG2S";
+
+    @Autowired
+    WebTestClient testClient;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    public void migrar_NaSubida_GravarHashNasSenhasEmTextoPuro(){
+        List<String> senhas = jdbcTemplate.queryForList(
+            "select password from usuarios where id in (950, 951, 952) order by id", String.class);
+
+        org.assertj.core.api.Assertions.assertThat(senhas).hasSize(3).allMatch(senha -> senha.startsWith("$2"));
+        org.assertj.core.api.Assertions.assertThat(senhas.get(2)).isEqualTo(HASH_123456);
+    }
+
+    // A senha convertida continua valendo como senha atual
+    @Test
+    public void editarSenha_ComSenhaConvertidaPelaMigracao_RetornarStatus204(){
+        testClient
+            .patch()
+            .uri("/api/v1/usuarios/950")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(new UsuarioSenhaDto("123456", "abcdef", "abcdef"))
+            .exchange()
+            .expectStatus().isNoContent();
+    }
+
+    // Sem o texto puro no PasswordHasher, uma senha gravada sem hash depois da migração não confere
+    @Test
+    public void editarSenha_ComSenhaEmTextoPuroGravadaDepois_RetornarErrorMessageComStatus400(){
+        jdbcTemplate.update("update usuarios set password = '654321' where id = 953");
+
+        ErrorMessage responseBody = testClient
+            .patch()
+            .uri("/api/v1/usuarios/953")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(new UsuarioSenhaDto("654321", "abcdef", "abcdef"))
+            .exchange()
+            .expectStatus().isEqualTo(400)
+            .expectBody(ErrorMessage.class)
+            .returnResult().getResponseBody();
+
+        org.assertj.core.api.Assertions.assertThat(responseBody).isNotNull();
+        org.assertj.core.api.Assertions.assertThat(responseBody.getStatus()).isEqualTo(400);
+    }
+}
@@ -0,0 +1,257 @@
+package com.mballem.demoparkapi;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalManagementPort;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.mballem.demoparkapi.datasource.Shards;
+import com.mballem.demoparkapi.web.dto.UsuarioCreateDto;
+import com.mballem.demoparkapi.web.dto.UsuarioLoteErroDto;
+import com.mballem.demoparkapi.web.dto.UsuarioLoteResponseDto;
+import com.mballem.demoparkapi.web.dto.UsuarioPaginaDto;
+import com.mballem.demoparkapi.web.dto.UsuarioResponseDto;
+import com.mballem.demoparkapi.web.dto.UsuarioSenhaDto;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+
+// Sharding com três H2: o shard 0 é o spring.datasource e os outros dois vêm das URLs. Sem @Sql, porque os scripts
+// só rodariam no shard 0; cada teste usa usernames próprios e confere só os usuários que criou. O endpoint shards
+// fica numa porta de gerência separada, como no README
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+    "demopark.usuarios.sharding.habilitado=true",
+    "management.server.port=0",
+    "management.endpoints.web.exposure.include=health,shards",
+    "spring.datasource.url=jdbc:h2:mem:demopark-shard0;DB_CLOSE_DELAY=-1",
+    "demopark.usuarios.sharding.urls=jdbc:h2:mem:demopark-shard1;DB_CLOSE_DELAY=-1,jdbc:h2:mem:demopark-shard2;DB_CLOSE_DELAY=-1"
+})
+public class UsuarioShardingIT {
+
+    @Autowired
+    WebTestClient testClient;
+
+    @Autowired
+    Shards shards;
+
+    @LocalManagementPort
+    int portaGerencia;
+
+    @Test
+    public void createUsuariosEmLote_EspalharPelosShardsELerTodosEmOrdemDeId(){
+        List<UsuarioResponseDto> criados = criarLote("lote", 60);
+
+        org.assertj.core.api.Assertions.assertThat(criados).hasSize(60);
+        org.assertj.core.api.Assertions.assertThat(criados).extracting(dto -> shards.shardDoId(dto.getId()))
+            .contains(0, 1, 2);
+
+        for (UsuarioResponseDto criado : criados) {
+            UsuarioResponseDto responseBody = testClient
+                .get()
+                .uri("/api/v1/usuarios/" + criado.getId())
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(UsuarioResponseDto.class)
+                .returnResult().getResponseBody();
+
+            org.assertj.core.api.Assertions.assertThat(responseBody.getUsername()).isEqualTo(criado.getUsername());
+        }
+
+        List<UsuarioResponseDto> todos = testClient
+            .get()
+            .uri("/api/v1/usuarios")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBodyList(UsuarioResponseDto.class)
+            .returnResult().getResponseBody();
+
+        org.assertj.core.api.Assertions.assertThat(todos).extracting(UsuarioResponseDto::getId).isSorted();
+        org.assertj.core.api.Assertions.assertThat(todos).extracting(UsuarioResponseDto::getId)
+            .containsAll(criados.stream().map(UsuarioResponseDto::getId).toList());
+
+        List<Long> paginados = new ArrayList<>();
+        String cursor = null;
+        do {
+            UsuarioPaginaDto pagina = testClient
+                .get()
+                .uri(cursor == null ? "/api/v1/usuarios/pagina?tamanho=7" : "/api/v1/usuarios/pagina?tamanho=7&cursor=" + cursor)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(UsuarioPaginaDto.class)
+                .returnResult().getResponseBody();
+            org.assertj.core.api.Assertions.assertThat(pagina.getConteudo().size()).isLessThanOrEqualTo(7);
+            pagina.getConteudo().forEach(dto -> paginados.add(dto.getId()));
+            cursor = pagina.getProximoCursor();
+        } while (cursor != null);
+
+        org.assertj.core.api.Assertions.assertThat(paginados).isEqualTo(todos.stream().map(UsuarioResponseDto::getId).toList());
+    }
+
+    @Test
+    public void createUsuario_ComUsernameRepetido_RetornarStatus409(){
+        testClient
+            .post()
+            .uri("/api/v1/usuarios")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(new UsuarioCreateDto("unico@email.com", "123456"))
+            .exchange()
+            .expectStatus().isCreated();
+
+        testClient
+            .post()
+            .uri("/api/v1/usuarios")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(new UsuarioCreateDto("unico@email.com", "123456"))
+            .exchange()
+            .expectStatus().isEqualTo(409);
+    }
+
+    // Esvazia o último shard e depois volta a distribuir os baldes pelos três; os usuários seguem legíveis
+    // e graváveis nos dois momentos
+    @Test
+    public void rebalancear_EsvaziarUltimoShardEVoltar_ManterUsuariosAcessiveis(){
+        List<UsuarioResponseDto> criados = criarLote("rebalanceado", 30);
+
+        List<Map<String, Object>> distribuicao = rebalancear("{\"shards\": 2}");
+        org.assertj.core.api.Assertions.assertThat(distribuicao.get(2))
+            .containsEntry("baldes", 0)
+            .containsEntry("usuarios", 0);
+        org.assertj.core.api.Assertions.assertThat(shardsDe(criados)).containsOnly(0, 1);
+        conferirLeitura(criados);
+
+        distribuicao = rebalancear("{}");
+        org.assertj.core.api.Assertions.assertThat(distribuicao).extracting(shard -> (Integer) shard.get("baldes"))
+            .containsExactly(342, 341, 341);
+        org.assertj.core.api.Assertions.assertThat(shardsDe(criados)).contains(2);
+        conferirLeitura(criados);
+
+        UsuarioResponseDto movido = criados.stream()
+            .filter(dto -> shards.shardDoId(dto.getId()) == 2)
+            .findFirst().orElseThrow();
+        testClient
+            .patch()
+            .uri("/api/v1/usuarios/" + movido.getId())
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(new UsuarioSenhaDto("123456", "654321", "654321"))
+            .exchange()
+            .expectStatus().isNoContent();
+    }
+
+    // Com a tabela do shard 2 fora do lugar só o grupo dele falha: os dos outros shards continuam criados e os
+    // usernames do grupo que falhou ficam livres para um novo cadastro
+    @Test
+    public void createUsuariosEmLote_ComUmShardFalhando_RetornarStatus200ComFalhasDoShard() throws Exception {
+        List<UsuarioCreateDto> novos = new ArrayList<>();
+        for (int i = 0; i < 30; i++) {
+            novos.add(new UsuarioCreateDto("parcial" + i + "@email.com", "123456"));
+        }
+        UsuarioLoteResponseDto responseBody;
+        try (Connection conexao = DriverManager.getConnection("jdbc:h2:mem:demopark-shard2", "sa", "")) {
+            conexao.createStatement().execute("ALTER TABLE usuarios RENAME TO usuarios_fora");
+            try {
+                responseBody = testClient
+                    .post()
+                    .uri("/api/v1/usuarios/lote")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .bodyValue(novos)
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody(UsuarioLoteResponseDto.class)
+                    .returnResult().getResponseBody();
+            } finally {
+                conexao.createStatement().execute("ALTER TABLE usuarios_fora RENAME TO usuarios");
+            }
+        }
+
+        org.assertj.core.api.Assertions.assertThat(responseBody.getCriados()).isNotEmpty();
+        org.assertj.core.api.Assertions.assertThat(shardsDe(responseBody.getCriados())).doesNotContain(2);
+        org.assertj.core.api.Assertions.assertThat(responseBody.getErros()).isNotEmpty();
+        org.assertj.core.api.Assertions.assertThat(responseBody.getCriados().size() + responseBody.getErros().size()).isEqualTo(30);
+
+        UsuarioLoteErroDto falha = responseBody.getErros().get(0);
+        org.assertj.core.api.Assertions.assertThat(falha.getUsername()).isEqualTo(novos.get(falha.getIndice()).getUsername());
+        testClient
+            .post()
+            .uri("/api/v1/usuarios")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(new UsuarioCreateDto(falha.getUsername(), "123456"))
+            .exchange()
+            .expectStatus().isCreated();
+    }
+
+    @Test
+    public void rebalancear_PelaPortaDaAplicacao_RetornarStatus404(){
+        testClient
+            .post()
+            .uri("/actuator/shards")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue("{\"shards\": 1}")
+            .exchange()
+            .expectStatus().isNotFound();
+    }
+
+    private List<UsuarioResponseDto> criarLote(String prefixo, int quantidade) {
+        List<UsuarioCreateDto> novos = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            novos.add(new UsuarioCreateDto(prefixo + i + "@email.com", "123456"));
+        }
+        UsuarioLoteResponseDto responseBody = testClient
+            .post()
+            .uri("/api/v1/usuarios/lote")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(novos)
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody(UsuarioLoteResponseDto.class)
+            .returnResult().getResponseBody();
+
+        org.assertj.core.api.Assertions.assertThat(responseBody.getErros()).isEmpty();
+        List<UsuarioResponseDto> criados = new ArrayList<>(responseBody.getCriados());
+        criados.sort(Comparator.comparing(UsuarioResponseDto::getId));
+        return criados;
+    }
+
+    private List<Map<String, Object>> rebalancear(String corpo) {
+        Map<String, Object> resultado = WebTestClient.bindToServer().baseUrl("http://localhost:" + portaGerencia).build()
+            .post()
+            .uri("/actuator/shards")
+            .contentType(MediaType.APPLICATION_JSON)
+            .bodyValue(corpo)
+            .exchange()
+            .expectStatus().isOk()
+            .expectBody(new ParameterizedTypeReference<Map<String, Object>>() {})
+            .returnResult().getResponseBody();
+
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> distribuicao = (List<Map<String, Object>>) resultado.get("distribuicao");
+        return distribuicao;
+    }
+
+    private List<Integer> shardsDe(List<UsuarioResponseDto> usuarios) {
+        return usuarios.stream().map(dto -> shards.shardDoId(dto.getId())).toList();
+    }
+
+    private void conferirLeitura(List<UsuarioResponseDto> criados) {
+        List<UsuarioResponseDto> todos = testClient
+            .get()
+            .uri("/api/v1/usuarios")
+            .exchange()
+            .expectStatus().isOk()
+            .expectBodyList(UsuarioResponseDto.class)
+            .returnResult().getResponseBody();
+
+        org.assertj.core.api.Assertions.assertThat(todos).extracting(UsuarioResponseDto::getId).doesNotHaveDuplicates().isSorted();
+        org.assertj.core.api.Assertions.assertThat(todos).extracting(UsuarioResponseDto::getId)
+            .containsAll(criados.stream().map(UsuarioResponseDto::getId).toList());
+        for (UsuarioResponseDto criado : criados) {
+            testClient.get().uri("/api/v1/usuarios/" + criado.getId()).exchange().expectStatus().isOk();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.mballem.demoparkapi.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+import com.mballem.demoparkapi.exception.EntityNotFoundException;
+import com.mballem.demoparkapi.web.exception.ErrorMessage;
+
+// Vazão do caminho de erro de um 404: lançar a exceção a partir de uma pilha com a profundidade
+// informada, capturá-la e montar o ErrorMessage. A exceção legada reproduz a anterior, com captura de pilha
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ErroApiBenchmark {
+
+    @Param({"10", "100"})
+    int profundidade;
+
+    MockHttpServletRequest request;
+
+    @Setup
+    public void setup() {
+        request = new MockHttpServletRequest("GET", "/api/v1/usuarios/999");
+    }
+
+    @Benchmark
+    public ErrorMessage excecaoComPilha() {
+        try {
+            lancar(profundidade, true);
+        } catch (RuntimeException ex) {
+            return new ErrorMessage(request, HttpStatus.NOT_FOUND, ex.getMessage());
+        }
+        return null;
+    }
+
+    @Benchmark
+    public ErrorMessage excecaoSemPilha() {
+        try {
+            lancar(profundidade, false);
+        } catch (RuntimeException ex) {
+            return new ErrorMessage(request, HttpStatus.NOT_FOUND, ex.getMessage());
+        }
+        return null;
+    }
+
+    private static void lancar(int profundidade, boolean legada) {
+        if (profundidade > 0) {
+            lancar(profundidade - 1, legada);
+            return;
+        }
+        String mensagem = String.format("Usuário id=%s não encontrado", 999);
+        throw legada ? new EntityNotFoundLegada(mensagem) : new EntityNotFoundException(mensagem);
+    }
+
+    // Reprodução da EntityNotFoundException anterior, mantida apenas como linha de base
+    private static class EntityNotFoundLegada extends RuntimeException {
+        EntityNotFoundLegada(String message) {
+            super(message);
+        }
+    }
+}
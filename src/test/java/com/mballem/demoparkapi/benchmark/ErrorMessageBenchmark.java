@@ -0,0 +1,46 @@
+package com.mballem.demoparkapi.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.BindingResult;
+
+import com.mballem.demoparkapi.web.dto.UsuarioCreateDto;
+import com.mballem.demoparkapi.web.exception.ErrorMessage;
+
+// Montagem do ErrorMessage devolvido nas respostas 422 a partir do BindingResult da validação
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class ErrorMessageBenchmark {
+
+    MockHttpServletRequest request;
+    BindingResult result;
+
+    @Setup
+    public void setup() {
+        request = new MockHttpServletRequest("POST", "/api/v1/usuarios");
+        result = new BeanPropertyBindingResult(new UsuarioCreateDto("tody@", "12345"), "usuarioCreateDto");
+        result.rejectValue("username", "Email", "formato do e-mail está invalido");
+        result.rejectValue("password", "Size", "tamanho deve ser entre 6 e 6");
+    }
+
+    @Benchmark
+    public ErrorMessage semErros() {
+        return new ErrorMessage(request, HttpStatus.NOT_FOUND, "Campos inválidos");
+    }
+
+    @Benchmark
+    public ErrorMessage comBindingResult() {
+        return new ErrorMessage(request, HttpStatus.UNPROCESSABLE_ENTITY, "Campos inválidos", result);
+    }
+}
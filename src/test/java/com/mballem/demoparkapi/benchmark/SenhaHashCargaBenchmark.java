@@ -0,0 +1,85 @@
+package com.mballem.demoparkapi.benchmark;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.mballem.demoparkapi.DemoParkApiApplication;
+
+// Latência (p99 no relatório SampleTime) do GET /api/v1/usuarios/{id} sozinho e enquanto outras threads
+// cadastram usuários sem parar, ou seja, com o pool de hash de senhas saturado
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SenhaHashCargaBenchmark {
+
+    private final AtomicLong sequencia = new AtomicLong();
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    ConfigurableApplicationContext context;
+    String baseUrl;
+    HttpRequest buscar;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        context = new SpringApplicationBuilder(DemoParkApiApplication.class)
+            .run("--server.port=0", "--spring.jpa.show-sql=false", "--demopark.senha.bcrypt.custo=10",
+                "--spring.datasource.url=jdbc:h2:mem:hash-benchmark;DB_CLOSE_ON_EXIT=FALSE");
+        baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort() + "/api/v1/usuarios";
+        HttpResponse<String> criado = client.send(criar("leitura@email.com"), HttpResponse.BodyHandlers.ofString());
+        String id = criado.body().replaceAll(".*\"id\":(\\d+).*", "$1");
+        buscar = HttpRequest.newBuilder(URI.create(baseUrl + "/" + id)).GET().build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @Group("somenteLeitura")
+    @GroupThreads(2)
+    public int buscarSemCarga() throws Exception {
+        return client.send(buscar, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    @Benchmark
+    @Group("comHash")
+    @GroupThreads(2)
+    public int buscarComCarga() throws Exception {
+        return client.send(buscar, HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    // Respostas 503 (pool de hash cheio) também contam: mostram a contenção sendo recusada em vez de enfileirada
+    @Benchmark
+    @Group("comHash")
+    @GroupThreads(8)
+    public int cadastrar() throws Exception {
+        return client.send(criar("user" + sequencia.incrementAndGet() + "@email.com"), HttpResponse.BodyHandlers.discarding()).statusCode();
+    }
+
+    private HttpRequest criar(String username) {
+        return HttpRequest.newBuilder(URI.create(baseUrl))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString("{\"username\":\"" + username + "\",\"password\":\"123456\"}"))
+            .build();
+    }
+}
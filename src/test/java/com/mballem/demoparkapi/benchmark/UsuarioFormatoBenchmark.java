@@ -0,0 +1,102 @@
+package com.mballem.demoparkapi.benchmark;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.protobuf.ProtobufMapper;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchema;
+import com.mballem.demoparkapi.web.converter.JacksonProtobufHttpMessageConverter;
+import com.mballem.demoparkapi.web.dto.UsuarioResponseDto;
+
+// Custo e tamanho de cada formato negociado no GET /api/v1/usuarios com 10 mil usuários. Os bytes no fio
+// (puro e com gzip, como o Tomcat mandaria acima do limite de compressão) saem no console no início de cada formato
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class UsuarioFormatoBenchmark {
+
+    @Param({"json", "cbor", "smile", "protobuf"})
+    String formato;
+
+    @Param({"10000"})
+    int quantidade;
+
+    Object corpo;
+    ObjectWriter writer;
+    ObjectReader reader;
+    byte[] serializado;
+
+    @Setup
+    public void setup() throws IOException {
+        List<UsuarioResponseDto> usuarios = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            usuarios.add(new UsuarioResponseDto((long) i, "user" + i + "@email.com", "CLIENTE"));
+        }
+        corpo = usuarios;
+
+        if (formato.equals("protobuf")) {
+            // Mesma mensagem do conversor: a lista embrulhada em Lista, com o schema gerado a partir do DTO
+            ProtobufMapper mapper = new ProtobufMapper();
+            JavaType tipo = mapper.getTypeFactory()
+                .constructParametricType(JacksonProtobufHttpMessageConverter.Lista.class, UsuarioResponseDto.class);
+            ProtobufSchema schema = mapper.generateSchemaFor(tipo);
+            writer = mapper.writerFor(tipo).with(schema);
+            reader = mapper.readerFor(tipo).with(schema);
+            corpo = new JacksonProtobufHttpMessageConverter.Lista<>(usuarios);
+        } else {
+            ObjectMapper mapper = switch (formato) {
+                case "cbor" -> Jackson2ObjectMapperBuilder.cbor().build();
+                case "smile" -> Jackson2ObjectMapperBuilder.smile().build();
+                default -> Jackson2ObjectMapperBuilder.json().build();
+            };
+            JavaType tipo = mapper.getTypeFactory().constructCollectionType(List.class, UsuarioResponseDto.class);
+            writer = mapper.writerFor(tipo);
+            reader = mapper.readerFor(tipo);
+        }
+
+        serializado = writer.writeValueAsBytes(corpo);
+        System.out.printf("%n%s: %d bytes, %d bytes com gzip%n", formato, serializado.length, gzip(serializado).length);
+    }
+
+    @Benchmark
+    public byte[] serializar() throws IOException {
+        return writer.writeValueAsBytes(corpo);
+    }
+
+    // Serialização mais a compressão que o servidor faz antes de mandar a resposta
+    @Benchmark
+    public byte[] serializarComGzip() throws IOException {
+        return gzip(writer.writeValueAsBytes(corpo));
+    }
+
+    @Benchmark
+    public Object desserializar() throws IOException {
+        return reader.readValue(serializado);
+    }
+
+    private static byte[] gzip(byte[] dados) throws IOException {
+        ByteArrayOutputStream saida = new ByteArrayOutputStream(dados.length / 4);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(saida)) {
+            gzip.write(dados);
+        }
+        return saida.toByteArray();
+    }
+}
@@ -0,0 +1,46 @@
+package com.mballem.demoparkapi.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.mballem.demoparkapi.web.dto.UsuarioResponseDto;
+
+// Serialização Jackson da lista devolvida pelo GET /api/v1/usuarios, com o ObjectMapper montado como no Spring Boot
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UsuarioJsonBenchmark {
+
+    @Param({"1", "100", "10000"})
+    int quantidade;
+
+    List<UsuarioResponseDto> usuarios;
+    ObjectWriter writer;
+
+    @Setup
+    public void setup() {
+        writer = Jackson2ObjectMapperBuilder.json().build().writerFor(List.class);
+        usuarios = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            usuarios.add(new UsuarioResponseDto((long) i, "user" + i + "@email.com", "CLIENTE"));
+        }
+    }
+
+    @Benchmark
+    public byte[] serializarLista() throws JsonProcessingException {
+        return writer.writeValueAsBytes(usuarios);
+    }
+}
@@ -0,0 +1,76 @@
+package com.mballem.demoparkapi.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.mballem.demoparkapi.DemoParkApiApplication;
+import com.mballem.demoparkapi.entity.Usuario;
+import com.mballem.demoparkapi.service.UsuarioService;
+
+// Vazão de cadastro: um salvar por usuário (caminho do POST /api/v1/usuarios) contra o salvarLote, no H2 embarcado
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class UsuarioLoteBenchmark {
+
+    private static final int USUARIOS_POR_OPERACAO = 1000;
+
+    private final AtomicLong sequencia = new AtomicLong();
+
+    ConfigurableApplicationContext context;
+    UsuarioService usuarioService;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = new SpringApplicationBuilder(DemoParkApiApplication.class)
+            .web(WebApplicationType.NONE)
+            .run("--spring.jpa.show-sql=false", "--spring.datasource.url=jdbc:h2:mem:lote-benchmark;DB_CLOSE_ON_EXIT=FALSE");
+        usuarioService = context.getBean(UsuarioService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(USUARIOS_POR_OPERACAO)
+    public void porRequisicao() {
+        for (Usuario usuario : novosUsuarios()) {
+            usuarioService.salvar(usuario);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(USUARIOS_POR_OPERACAO)
+    public Object emLote() {
+        return usuarioService.salvarLote(novosUsuarios());
+    }
+
+    private List<Usuario> novosUsuarios() {
+        List<Usuario> usuarios = new ArrayList<>(USUARIOS_POR_OPERACAO);
+        for (int i = 0; i < USUARIOS_POR_OPERACAO; i++) {
+            Usuario usuario = new Usuario();
+            usuario.setUsername("user" + sequencia.incrementAndGet() + "@email.com");
+            usuario.setPassword("123456");
+            usuarios.add(usuario);
+        }
+        return usuarios;
+    }
+}
@@ -0,0 +1,70 @@
+package com.mballem.demoparkapi.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import org.modelmapper.ModelMapper;
+import org.modelmapper.PropertyMap;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.mballem.demoparkapi.entity.Usuario;
+import com.mballem.demoparkapi.web.dto.UsuarioResponseDto;
+import com.mballem.demoparkapi.web.dto.mapper.UsuarioMapper;
+
+// Compara o custo por objeto do mapeamento antigo (um ModelMapper novo por usuário) com o UsuarioMapper atual
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class UsuarioMapperBenchmark {
+
+    @Param({"1", "1000"})
+    int quantidade;
+
+    List<Usuario> usuarios;
+
+    @Setup
+    public void setup() {
+        usuarios = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            Usuario usuario = new Usuario();
+            usuario.setId((long) i);
+            usuario.setUsername("user" + i + "@email.com");
+            usuario.setPassword("123456");
+            usuario.setRole(i % 2 == 0 ? Usuario.Role.ROLE_CLIENTE : Usuario.Role.ROLE_ADMIN);
+            usuarios.add(usuario);
+        }
+    }
+
+    @Benchmark
+    public List<UsuarioResponseDto> modelMapperPorChamada() {
+        return usuarios.stream().map(UsuarioMapperBenchmark::toDtoLegado).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<UsuarioResponseDto> mapperPrecompilado() {
+        return UsuarioMapper.toListDto(usuarios);
+    }
+
+    // Reprodução do UsuarioMapper.toDto anterior, mantida apenas como linha de base
+    private static UsuarioResponseDto toDtoLegado(Usuario usuario) {
+        String role = usuario.getRole().name().substring("ROLE_".length());
+        PropertyMap<Usuario, UsuarioResponseDto> props = new PropertyMap<Usuario, UsuarioResponseDto>() {
+            @Override
+            protected void configure() {
+                map().setRole(role);
+            }
+        };
+        ModelMapper mapper = new ModelMapper();
+        mapper.addMappings(props);
+        return mapper.map(usuario, UsuarioResponseDto.class);
+    }
+}
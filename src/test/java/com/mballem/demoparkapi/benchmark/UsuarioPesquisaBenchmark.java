@@ -0,0 +1,121 @@
+package com.mballem.demoparkapi.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.mballem.demoparkapi.DemoParkApiApplication;
+import com.mballem.demoparkapi.repository.FiltroPesquisa;
+import com.mballem.demoparkapi.repository.UsuarioPesquisaRepository;
+import com.mballem.demoparkapi.repository.UsuarioResumo;
+import com.mballem.demoparkapi.service.IndiceUsernames;
+import com.mballem.demoparkapi.service.UsuarioService;
+
+// Uma página de pesquisa (21 usuários) por prefixo e por domínio + prefixo: consulta indexada no banco contra o
+// índice em memória, e a lista completa filtrada no cliente (o caminho anterior) como referência. Os usuários
+// entram por JDBC, sem bcrypt, para a carga de um milhão caber no setup
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UsuarioPesquisaBenchmark {
+
+    private static final int DOMINIOS = 50;
+    private static final int TAMANHO_PAGINA = 21;
+
+    @Param({"10000", "100000", "1000000"})
+    int quantidade;
+
+    ConfigurableApplicationContext context;
+    UsuarioService usuarioService;
+    UsuarioPesquisaRepository usuarioPesquisaRepository;
+    IndiceUsernames indiceUsernames;
+    String[] prefixos;
+    int proximo;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = new SpringApplicationBuilder(DemoParkApiApplication.class)
+            .web(WebApplicationType.NONE)
+            .run("--spring.jpa.show-sql=false", "--demopark.usuarios.pesquisa.indice-memoria.habilitado=true",
+                "--spring.datasource.url=jdbc:h2:mem:pesquisa-benchmark;DB_CLOSE_ON_EXIT=FALSE");
+        usuarioService = context.getBean(UsuarioService.class);
+        usuarioPesquisaRepository = context.getBean(UsuarioPesquisaRepository.class);
+        indiceUsernames = context.getBean(IndiceUsernames.class);
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        List<Object[]> lote = new ArrayList<>(10_000);
+        for (int i = 0; i < quantidade; i++) {
+            lote.add(new Object[] {(long) i + 1, "user" + i + "@dominio" + (i % DOMINIOS) + ".com", "123456", "ROLE_CLIENTE"});
+            if (lote.size() == 10_000 || i == quantidade - 1) {
+                jdbcTemplate.batchUpdate("insert into usuarios (id, username, password, role, data_criacao, versao) "
+                    + "values (?, ?, ?, ?, current_timestamp, 0)", lote);
+                lote.clear();
+            }
+        }
+        indiceUsernames.recarregar();
+        // Prefixos de até 7 caracteres espalhados pela tabela, como no meio de uma digitação, para cada chamada
+        // cair em outra faixa
+        prefixos = new String[64];
+        for (int i = 0; i < prefixos.length; i++) {
+            String username = "user" + (long) i * quantidade / prefixos.length;
+            prefixos[i] = username.substring(0, Math.min(7, username.length()));
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<UsuarioResumo> prefixoBanco() {
+        return usuarioPesquisaRepository.pesquisar(porPrefixo(), null, TAMANHO_PAGINA);
+    }
+
+    @Benchmark
+    public List<UsuarioResumo> prefixoMemoria() {
+        return indiceUsernames.pesquisar(porPrefixo(), null, TAMANHO_PAGINA);
+    }
+
+    @Benchmark
+    public List<UsuarioResumo> dominioBanco() {
+        return usuarioPesquisaRepository.pesquisar(porDominio(), null, TAMANHO_PAGINA);
+    }
+
+    @Benchmark
+    public List<UsuarioResumo> dominioMemoria() {
+        return indiceUsernames.pesquisar(porDominio(), null, TAMANHO_PAGINA);
+    }
+
+    @Benchmark
+    public List<UsuarioResumo> listaCompletaFiltrada() {
+        String prefixo = prefixos[proximo++ & (prefixos.length - 1)];
+        return usuarioService.buscarTodos().stream()
+            .filter(usuario -> usuario.username().startsWith(prefixo))
+            .limit(TAMANHO_PAGINA)
+            .toList();
+    }
+
+    private FiltroPesquisa porPrefixo() {
+        return new FiltroPesquisa(prefixos[proximo++ & (prefixos.length - 1)], null, null, null, null);
+    }
+
+    private FiltroPesquisa porDominio() {
+        int indice = proximo++ & (prefixos.length - 1);
+        return new FiltroPesquisa(prefixos[indice], "dominio" + (indice % DOMINIOS) + ".com", null, null, null);
+    }
+}
@@ -0,0 +1,78 @@
+package com.mballem.demoparkapi.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.mballem.demoparkapi.DemoParkApiApplication;
+import com.mballem.demoparkapi.entity.Usuario;
+import com.mballem.demoparkapi.repository.UsuarioRepository;
+import com.mballem.demoparkapi.service.UsuarioService;
+import com.mballem.demoparkapi.web.dto.UsuarioResponseDto;
+import com.mballem.demoparkapi.web.dto.mapper.UsuarioMapper;
+
+// Listagem completa até o DTO de resposta: entidades gerenciadas (caminho anterior do buscarTodos) contra a
+// projeção por construtor. Rodar com -prof gc para comparar a alocação por operação
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class UsuarioProjecaoBenchmark {
+
+    @Param({"1000", "10000"})
+    int quantidade;
+
+    ConfigurableApplicationContext context;
+    UsuarioService usuarioService;
+    UsuarioRepository usuarioRepository;
+    TransactionTemplate somenteLeitura;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = new SpringApplicationBuilder(DemoParkApiApplication.class)
+            .web(WebApplicationType.NONE)
+            .run("--spring.jpa.show-sql=false", "--demopark.senha.bcrypt.custo=4",
+                "--spring.datasource.url=jdbc:h2:mem:projecao-benchmark;DB_CLOSE_ON_EXIT=FALSE");
+        usuarioService = context.getBean(UsuarioService.class);
+        usuarioRepository = context.getBean(UsuarioRepository.class);
+        somenteLeitura = new TransactionTemplate(context.getBean(TransactionTemplate.class).getTransactionManager());
+        somenteLeitura.setReadOnly(true);
+        List<Usuario> usuarios = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            Usuario usuario = new Usuario();
+            usuario.setUsername("user" + i + "@email.com");
+            usuario.setPassword("123456");
+            usuarios.add(usuario);
+        }
+        usuarioService.salvarLote(usuarios);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<UsuarioResponseDto> entidades() {
+        return somenteLeitura.execute(status -> UsuarioMapper.toListDto(usuarioRepository.findAll()));
+    }
+
+    @Benchmark
+    public List<UsuarioResponseDto> projecao() {
+        return UsuarioMapper.toResumoListDto(usuarioService.buscarTodos());
+    }
+}
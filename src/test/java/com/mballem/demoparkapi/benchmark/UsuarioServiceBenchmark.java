@@ -0,0 +1,87 @@
+package com.mballem.demoparkapi.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import com.mballem.demoparkapi.DemoParkApiApplication;
+import com.mballem.demoparkapi.entity.Usuario;
+import com.mballem.demoparkapi.repository.UsuarioDetalhe;
+import com.mballem.demoparkapi.repository.UsuarioResumo;
+import com.mballem.demoparkapi.service.UsuarioCache;
+import com.mballem.demoparkapi.service.UsuarioService;
+
+// Chamadas de leitura do UsuarioService contra o H2 embarcado, com a tabela populada antes da medição. A busca por id
+// tira o usuário do UsuarioCache a cada chamada para chegar ao banco; buscarPorIdEmCache mede o acerto no cache
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class UsuarioServiceBenchmark {
+
+    @Param({"1000"})
+    int quantidade;
+
+    ConfigurableApplicationContext context;
+    UsuarioService usuarioService;
+    UsuarioCache usuarioCache;
+    Long primeiroId;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        context = new SpringApplicationBuilder(DemoParkApiApplication.class)
+            .web(WebApplicationType.NONE)
+            .run("--spring.jpa.show-sql=false", "--demopark.senha.bcrypt.custo=4",
+                "--spring.datasource.url=jdbc:h2:mem:service-benchmark;DB_CLOSE_ON_EXIT=FALSE");
+        usuarioService = context.getBean(UsuarioService.class);
+        usuarioCache = context.getBean(UsuarioCache.class);
+        List<Usuario> usuarios = new ArrayList<>(quantidade);
+        for (int i = 0; i < quantidade; i++) {
+            Usuario usuario = new Usuario();
+            usuario.setUsername("user" + i + "@email.com");
+            usuario.setPassword("123456");
+            usuarios.add(usuario);
+        }
+        primeiroId = usuarioService.salvarLote(usuarios).getCriados().get(0).getId();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    // A invalidação é uma remoção no mapa do Caffeine, desprezível diante da consulta
+    @Benchmark
+    public UsuarioDetalhe buscarPorId() {
+        usuarioCache.invalidar(primeiroId);
+        return usuarioService.buscarPorId(primeiroId);
+    }
+
+    @Benchmark
+    public UsuarioDetalhe buscarPorIdEmCache() {
+        return usuarioService.buscarPorId(primeiroId);
+    }
+
+    @Benchmark
+    public List<UsuarioResumo> buscarPagina() {
+        return usuarioService.buscarPagina(primeiroId, 20);
+    }
+
+    @Benchmark
+    public List<UsuarioResumo> buscarTodos() {
+        return usuarioService.buscarTodos();
+    }
+}
@@ -0,0 +1,56 @@
+package com.mballem.demoparkapi.benchmark;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import com.mballem.demoparkapi.web.dto.UsuarioCreateDto;
+
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+
+// Bean Validation do UsuarioCreateDto, incluindo a regex do @Email, para entradas válidas e inválidas
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class UsuarioValidacaoBenchmark {
+
+    ValidatorFactory factory;
+    Validator validator;
+    UsuarioCreateDto valido;
+    UsuarioCreateDto emailInvalido;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        factory = Validation.buildDefaultValidatorFactory();
+        validator = factory.getValidator();
+        valido = new UsuarioCreateDto("tody@email.com", "123456");
+        emailInvalido = new UsuarioCreateDto("tody@email", "12345");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        factory.close();
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<UsuarioCreateDto>> validarDtoValido() {
+        return validator.validate(valido);
+    }
+
+    @Benchmark
+    public Set<ConstraintViolation<UsuarioCreateDto>> validarDtoInvalido() {
+        return validator.validate(emailInvalido);
+    }
+}
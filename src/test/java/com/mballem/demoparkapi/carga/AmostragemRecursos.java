@@ -0,0 +1,73 @@
+package com.mballem.demoparkapi.carga;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Picos de requisições em voo no cliente, threads do servidor web e conexões de banco em uso, amostrados
+// durante a medição para comparar quantas conexões de cliente cada thread do servidor sustenta em cada pilha
+class AmostragemRecursos implements AutoCloseable {
+
+    private final AtomicInteger emVoo = new AtomicInteger();
+    private final ScheduledExecutorService agendador = Executors.newSingleThreadScheduledExecutor();
+    private final String prefixoThreads;
+    private final Gauge conexoesBanco;
+
+    private volatile int picoEmVoo;
+    private volatile int picoThreads;
+    private volatile double picoConexoesBanco;
+
+    // Tomcat nomeia as threads de trabalho http-nio-<porta>-exec-N; o Netty usa os event loops reactor-http-*
+    AmostragemRecursos(String pilha, MeterRegistry registry) {
+        boolean reativo = "reativo".equals(pilha);
+        this.prefixoThreads = reativo ? "reactor-http-" : "http-nio-";
+        this.conexoesBanco = registry.find(reativo ? "r2dbc.pool.acquired" : "hikaricp.connections.active").gauge();
+    }
+
+    // Começa junto com a medição, a cada 100 ms
+    void iniciar(long atrasoNanos) {
+        agendador.scheduleAtFixedRate(this::amostrar, atrasoNanos, TimeUnit.MILLISECONDS.toNanos(100), TimeUnit.NANOSECONDS);
+    }
+
+    void enviada() {
+        emVoo.incrementAndGet();
+    }
+
+    void concluida() {
+        emVoo.decrementAndGet();
+    }
+
+    private void amostrar() {
+        picoEmVoo = Math.max(picoEmVoo, emVoo.get());
+        int threads = 0;
+        for (Thread thread : Thread.getAllStackTraces().keySet()) {
+            if (thread.getName().startsWith(prefixoThreads)) {
+                threads++;
+            }
+        }
+        picoThreads = Math.max(picoThreads, threads);
+        if (conexoesBanco != null) {
+            picoConexoesBanco = Math.max(picoConexoesBanco, conexoesBanco.value());
+        }
+    }
+
+    Map<String, Object> relatorio() {
+        Map<String, Object> relatorio = new LinkedHashMap<>();
+        relatorio.put("picoRequisicoesEmVoo", picoEmVoo);
+        relatorio.put("picoThreadsServidor", picoThreads);
+        relatorio.put("picoConexoesBanco", conexoesBanco == null ? null : (long) picoConexoesBanco);
+        relatorio.put("conexoesClientePorThread", picoThreads == 0 ? 0 : (double) picoEmVoo / picoThreads);
+        return relatorio;
+    }
+
+    @Override
+    public void close() {
+        agendador.shutdownNow();
+    }
+}
@@ -0,0 +1,64 @@
+package com.mballem.demoparkapi.carga;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+// Latências (HdrHistogram) e contagem de status de um endpoint; seguro para gravação concorrente
+class MetricasEndpoint {
+
+    private final Recorder recorder = new Recorder(TimeUnit.MINUTES.toNanos(1), 3);
+    private final Map<Integer, LongAdder> status = new ConcurrentHashMap<>();
+    private final LongAdder falhas = new LongAdder();
+
+    void registrar(int codigo, long latenciaNanos) {
+        recorder.recordValue(Math.min(latenciaNanos, TimeUnit.MINUTES.toNanos(1)));
+        status.computeIfAbsent(codigo, c -> new LongAdder()).increment();
+    }
+
+    // Erro de transporte (conexão recusada, timeout): não há status HTTP
+    void registrarFalha(long latenciaNanos) {
+        recorder.recordValue(Math.min(latenciaNanos, TimeUnit.MINUTES.toNanos(1)));
+        falhas.increment();
+    }
+
+    Map<String, Object> relatorio(double segundos) {
+        Histogram histograma = recorder.getIntervalHistogram();
+        long total = histograma.getTotalCount();
+        long erros = falhas.sum();
+        Map<String, Long> porStatus = new LinkedHashMap<>();
+        for (Map.Entry<Integer, LongAdder> entrada : new TreeMap<>(status).entrySet()) {
+            porStatus.put(String.valueOf(entrada.getKey()), entrada.getValue().sum());
+            if (entrada.getKey() >= 400) {
+                erros += entrada.getValue().sum();
+            }
+        }
+
+        Map<String, Object> latencia = new LinkedHashMap<>();
+        latencia.put("media", ms(histograma.getMean()));
+        latencia.put("p50", ms(histograma.getValueAtPercentile(50)));
+        latencia.put("p90", ms(histograma.getValueAtPercentile(90)));
+        latencia.put("p99", ms(histograma.getValueAtPercentile(99)));
+        latencia.put("p999", ms(histograma.getValueAtPercentile(99.9)));
+        latencia.put("max", ms(histograma.getMaxValue()));
+
+        Map<String, Object> relatorio = new LinkedHashMap<>();
+        relatorio.put("requisicoes", total);
+        relatorio.put("erros", erros);
+        relatorio.put("falhasDeConexao", falhas.sum());
+        relatorio.put("vazaoPorSegundo", segundos > 0 ? total / segundos : 0);
+        relatorio.put("status", porStatus);
+        relatorio.put("latenciaMs", latencia);
+        return relatorio;
+    }
+
+    private static double ms(double nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+}
@@ -0,0 +1,280 @@
+package com.mballem.demoparkapi.carga;
+
+import java.io.File;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.mballem.demoparkapi.DemoParkApiApplication;
+import com.mballem.demoparkapi.entity.Usuario;
+import com.mballem.demoparkapi.repository.UsuarioRepository;
+
+/**
+ * Teste de carga ponta a ponta (Tomcat -> UsuarioController -> UsuarioService -> JPA) com H2 embarcado;
+ * com --pilha=reativo a mesma carga vai para Netty -> UsuarioControllerReativo -> UsuarioServiceReativo -> R2DBC.
+ *
+ * Sobe a aplicação em porta aleatória, cadastra N usuários e dispara uma mistura configurável de
+ * criar/buscar/listar/senha. No modelo fechado, cada uma das C threads espera a resposta antes de enviar
+ * a próxima requisição; no modelo aberto as requisições saem na taxa pedida independente das respostas e
+ * a latência é medida a partir do horário planejado de envio, sem omissão coordenada. Durante a medição são
+ * amostrados os picos de requisições em voo, threads do servidor e conexões de banco em uso.
+ *
+ * Executar com: mvn -Pcarga test -Dcarga.args="--modelo=aberto --taxa=300 --duracao=60"
+ * O relatório JSON (por padrão em target/carga/relatorio.json) pode ser comparado entre duas builds.
+ */
+public class TesteCarga {
+
+    private static final String SENHA = "123456";
+
+    private final Map<String, String> opcoes;
+    private final Map<String, MetricasEndpoint> metricas = new LinkedHashMap<>();
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final AtomicLong sequencia = new AtomicLong();
+
+    private AmostragemRecursos recursos;
+    private String baseUrl;
+    private List<Long> ids;
+    private String[] operacoes;
+    private int[] pesosAcumulados;
+
+    TesteCarga(Map<String, String> opcoes) {
+        this.opcoes = opcoes;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opcoes = new LinkedHashMap<>();
+        opcoes.put("usuarios", "1000");
+        opcoes.put("duracao", "30");
+        opcoes.put("aquecimento", "5");
+        opcoes.put("modelo", "fechado");
+        opcoes.put("concorrencia", "16");
+        opcoes.put("taxa", "200");
+        opcoes.put("mix", "criar=10,buscar=60,listar=20,senha=10");
+        opcoes.put("custo-bcrypt", "10");
+        opcoes.put("pilha", "servlet");
+        opcoes.put("saida", "target/carga/relatorio.json");
+        for (String arg : args) {
+            String[] partes = arg.replaceFirst("^--", "").split("=", 2);
+            opcoes.put(partes[0], partes.length > 1 ? partes[1] : "true");
+        }
+        new TesteCarga(opcoes).executar();
+    }
+
+    void executar() throws Exception {
+        prepararMix(opcoes.get("mix"));
+        try (ConfigurableApplicationContext context = iniciarAplicacao()) {
+            semear(context, inteiro("usuarios"));
+
+            long aquecimento = TimeUnit.SECONDS.toNanos(inteiro("aquecimento"));
+            long duracao = TimeUnit.SECONDS.toNanos(inteiro("duracao"));
+            long inicio = System.nanoTime();
+            long inicioMedicao = inicio + aquecimento;
+            long fim = inicioMedicao + duracao;
+            recursos = new AmostragemRecursos(opcoes.get("pilha"), context.getBean(MeterRegistry.class));
+            recursos.iniciar(Math.max(0, inicioMedicao - System.nanoTime()));
+            if ("aberto".equals(opcoes.get("modelo"))) {
+                executarModeloAberto(inicio, inicioMedicao, fim);
+            } else {
+                executarModeloFechado(inicioMedicao, fim);
+            }
+            recursos.close();
+            gravarRelatorio(duracao / 1e9);
+        }
+    }
+
+    private ConfigurableApplicationContext iniciarAplicacao() {
+        // O restart do devtools reinvocaria este main com os argumentos do Spring no lugar dos do teste
+        System.setProperty("spring.devtools.restart.enabled", "false");
+        List<String> argumentos = new ArrayList<>(List.of("--server.port=0", "--spring.jpa.show-sql=false",
+            "--spring.datasource.url=jdbc:h2:mem:carga;DB_CLOSE_ON_EXIT=FALSE;DB_CLOSE_DELAY=-1",
+            "--demopark.senha.bcrypt.custo=" + opcoes.get("custo-bcrypt")));
+        // Na pilha reativa a semente continua pelo JPA e o schema pelo Flyway; o R2DBC abre o mesmo banco em memória
+        if ("reativo".equals(opcoes.get("pilha"))) {
+            argumentos.add("--spring.profiles.active=reativo");
+            argumentos.add("--spring.r2dbc.url=r2dbc:h2:mem:///carga?options=DB_CLOSE_DELAY=-1");
+            argumentos.add("--spring.r2dbc.username=sa");
+        }
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(DemoParkApiApplication.class)
+            .run(argumentos.toArray(new String[0]));
+        baseUrl = "http://localhost:" + ((WebServerApplicationContext) context).getWebServer().getPort() + "/api/v1/usuarios";
+        return context;
+    }
+
+    // Grava direto pelo repositório com um único hash reaproveitado: cadastrar N usuários pela API levaria N hashes bcrypt
+    private void semear(ConfigurableApplicationContext context, int quantidade) {
+        UsuarioRepository repository = context.getBean(UsuarioRepository.class);
+        TransactionTemplate transactionTemplate = context.getBean(TransactionTemplate.class);
+        String hash = new BCryptPasswordEncoder(inteiro("custo-bcrypt")).encode(SENHA);
+        ids = new ArrayList<>(quantidade);
+        for (int inicio = 0; inicio < quantidade; inicio += 1000) {
+            List<Usuario> fatia = new ArrayList<>();
+            for (int i = inicio; i < Math.min(inicio + 1000, quantidade); i++) {
+                Usuario usuario = new Usuario();
+                usuario.setUsername("semente" + i + "@email.com");
+                usuario.setPassword(hash);
+                fatia.add(usuario);
+            }
+            transactionTemplate.executeWithoutResult(status -> repository.saveAll(fatia).forEach(u -> ids.add(u.getId())));
+        }
+    }
+
+    private void executarModeloFechado(long inicioMedicao, long fim) throws InterruptedException {
+        int concorrencia = inteiro("concorrencia");
+        ExecutorService threads = Executors.newFixedThreadPool(concorrencia);
+        for (int i = 0; i < concorrencia; i++) {
+            threads.submit(() -> {
+                while (System.nanoTime() < fim) {
+                    String operacao = sortearOperacao();
+                    long envio = System.nanoTime();
+                    recursos.enviada();
+                    try {
+                        int status = client.send(requisicao(operacao), HttpResponse.BodyHandlers.discarding()).statusCode();
+                        if (envio >= inicioMedicao) {
+                            metricas.get(operacao).registrar(status, System.nanoTime() - envio);
+                        }
+                    } catch (Exception ex) {
+                        if (envio >= inicioMedicao) {
+                            metricas.get(operacao).registrarFalha(System.nanoTime() - envio);
+                        }
+                    } finally {
+                        recursos.concluida();
+                    }
+                }
+            });
+        }
+        threads.shutdown();
+        threads.awaitTermination(fim - System.nanoTime() + TimeUnit.MINUTES.toNanos(1), TimeUnit.NANOSECONDS);
+    }
+
+    private void executarModeloAberto(long inicio, long inicioMedicao, long fim) throws InterruptedException {
+        long intervalo = TimeUnit.SECONDS.toNanos(1) / inteiro("taxa");
+        // Limite de requisições pendentes para o próprio gerador não esgotar a memória se a aplicação parar de responder
+        Semaphore pendentes = new Semaphore(10_000);
+        for (long planejado = inicio; planejado < fim; planejado += intervalo) {
+            long espera = planejado - System.nanoTime();
+            if (espera > 0) {
+                LockSupport.parkNanos(espera);
+            }
+            String operacao = sortearOperacao();
+            boolean medir = planejado >= inicioMedicao;
+            long envioPlanejado = planejado;
+            if (!pendentes.tryAcquire()) {
+                if (medir) {
+                    metricas.get(operacao).registrarFalha(System.nanoTime() - envioPlanejado);
+                }
+                continue;
+            }
+            recursos.enviada();
+            client.sendAsync(requisicao(operacao), HttpResponse.BodyHandlers.discarding()).whenComplete((resposta, erro) -> {
+                recursos.concluida();
+                pendentes.release();
+                if (!medir) {
+                    return;
+                }
+                if (erro != null) {
+                    metricas.get(operacao).registrarFalha(System.nanoTime() - envioPlanejado);
+                } else {
+                    metricas.get(operacao).registrar(resposta.statusCode(), System.nanoTime() - envioPlanejado);
+                }
+            });
+        }
+        pendentes.tryAcquire(10_000, 1, TimeUnit.MINUTES);
+    }
+
+    private HttpRequest requisicao(String operacao) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Long id = ids.isEmpty() ? 0L : ids.get(random.nextInt(ids.size()));
+        switch (operacao) {
+            case "criar":
+                return json(HttpRequest.newBuilder(URI.create(baseUrl)), "POST",
+                    "{\"username\":\"carga" + sequencia.incrementAndGet() + "@email.com\",\"password\":\"" + SENHA + "\"}");
+            case "buscar":
+                return HttpRequest.newBuilder(URI.create(baseUrl + "/" + id)).GET().build();
+            case "listar":
+                String cursor = Base64.getUrlEncoder().withoutPadding().encodeToString(String.valueOf(id).getBytes(StandardCharsets.UTF_8));
+                return HttpRequest.newBuilder(URI.create(baseUrl + "/pagina?tamanho=20&cursor=" + cursor)).GET().build();
+            case "senha":
+                return json(HttpRequest.newBuilder(URI.create(baseUrl + "/" + id)), "PATCH",
+                    "{\"senhaAtual\":\"" + SENHA + "\",\"novaSenha\":\"" + SENHA + "\",\"confirmaSenha\":\"" + SENHA + "\"}");
+            default:
+                throw new IllegalArgumentException("Operação desconhecida: " + operacao);
+        }
+    }
+
+    private static HttpRequest json(HttpRequest.Builder builder, String metodo, String corpo) {
+        return builder.header("Content-Type", "application/json")
+            .method(metodo, HttpRequest.BodyPublishers.ofString(corpo))
+            .build();
+    }
+
+    private void prepararMix(String mix) {
+        String[] itens = mix.split(",");
+        operacoes = new String[itens.length];
+        pesosAcumulados = new int[itens.length];
+        int acumulado = 0;
+        for (int i = 0; i < itens.length; i++) {
+            String[] partes = itens[i].trim().split("=");
+            operacoes[i] = partes[0];
+            acumulado += Integer.parseInt(partes[1]);
+            pesosAcumulados[i] = acumulado;
+            metricas.put(partes[0], new MetricasEndpoint());
+        }
+    }
+
+    private String sortearOperacao() {
+        int sorteio = ThreadLocalRandom.current().nextInt(pesosAcumulados[pesosAcumulados.length - 1]);
+        for (int i = 0; i < pesosAcumulados.length; i++) {
+            if (sorteio < pesosAcumulados[i]) {
+                return operacoes[i];
+            }
+        }
+        return operacoes[operacoes.length - 1];
+    }
+
+    private void gravarRelatorio(double segundos) throws Exception {
+        Map<String, Object> endpoints = new LinkedHashMap<>();
+        metricas.forEach((operacao, metrica) -> endpoints.put(operacao, metrica.relatorio(segundos)));
+
+        Map<String, Object> relatorio = new LinkedHashMap<>();
+        relatorio.put("executadoEm", Instant.now().toString());
+        relatorio.put("duracaoSegundos", segundos);
+        relatorio.put("configuracao", opcoes);
+        relatorio.put("endpoints", endpoints);
+        relatorio.put("recursos", recursos.relatorio());
+
+        File saida = new File(opcoes.get("saida"));
+        saida.getAbsoluteFile().getParentFile().mkdirs();
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.writerWithDefaultPrettyPrinter().writeValue(saida, relatorio);
+        System.out.println(mapper.writerWithDefaultPrettyPrinter().writeValueAsString(endpoints));
+        System.out.println(mapper.writerWithDefaultPrettyPrinter().writeValueAsString(recursos.relatorio()));
+        System.out.println("Relatório gravado em " + saida.getAbsolutePath());
+    }
+
+    private int inteiro(String opcao) {
+        return Integer.parseInt(opcoes.get(opcao));
+    }
+}
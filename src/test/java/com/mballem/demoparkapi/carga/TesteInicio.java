@@ -0,0 +1,190 @@
+package com.mballem.demoparkapi.carga;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Tempo de subida e tempo até a primeira requisição atendida, em processos novos da JVM, para os artefatos
+ * do build de produção (mvn -Pproducao package) comparados com a subida anterior a ele.
+ *
+ * Modos: legado (jar executável, ddl-auto=update no lugar do Flyway e springdoc criado na subida), aot (jar
+ * fino com -Dspring.aot.enabled e o perfil producao) e aot-cds (o mesmo com o arquivo AppCDS do build).
+ * Cada execução sobe a aplicação com H2 em memória numa porta livre e mede, a partir do início do processo,
+ * o "Started ... in" do log, o "process running for" informado pela própria JVM e a primeira resposta 200 de
+ * GET /api/v1/usuarios.
+ *
+ * Executar com: mvn -Pproducao package && mvn -Pinicio test -Dinicio.args="--execucoes=10"
+ * O relatório JSON (por padrão em target/carga/inicio.json) traz mediana e mínimo de cada modo.
+ */
+public class TesteInicio {
+
+    private static final Pattern STARTED = Pattern.compile("Started \\w+ in ([\\d.]+) seconds \\(process running for ([\\d.]+)\\)");
+
+    private final Map<String, String> opcoes;
+    private final HttpClient client = HttpClient.newBuilder()
+        .version(HttpClient.Version.HTTP_1_1)
+        .connectTimeout(Duration.ofMillis(200))
+        .build();
+
+    TesteInicio(Map<String, String> opcoes) {
+        this.opcoes = opcoes;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opcoes = new LinkedHashMap<>();
+        opcoes.put("execucoes", "5");
+        opcoes.put("modos", "legado,aot,aot-cds");
+        opcoes.put("artefato", "target/demo-park-api-0.0.1-SNAPSHOT");
+        opcoes.put("cds", "target/demo-park-api.jsa");
+        opcoes.put("timeout", "120");
+        opcoes.put("saida", "target/carga/inicio.json");
+        for (String arg : args) {
+            String[] partes = arg.replaceFirst("^--", "").split("=", 2);
+            opcoes.put(partes[0], partes.length > 1 ? partes[1] : "true");
+        }
+        new TesteInicio(opcoes).executar();
+    }
+
+    void executar() throws Exception {
+        Map<String, Object> modos = new LinkedHashMap<>();
+        for (String modo : opcoes.get("modos").split(",")) {
+            List<Map<String, Double>> execucoes = new ArrayList<>();
+            // A primeira subida de cada modo aquece o cache de páginas do sistema operacional e não entra na conta
+            medir(modo);
+            for (int i = 0; i < Integer.parseInt(opcoes.get("execucoes")); i++) {
+                execucoes.add(medir(modo));
+            }
+            modos.put(modo, resumir(execucoes));
+        }
+        gravarRelatorio(modos);
+    }
+
+    private List<String> comando(String modo, int porta) {
+        String artefato = opcoes.get("artefato");
+        List<String> comando = new ArrayList<>(List.of("java"));
+        switch (modo) {
+            case "legado" -> comando.addAll(List.of("-jar", artefato + "-exec.jar",
+                "--spring.flyway.enabled=false", "--spring.jpa.hibernate.ddl-auto=update"));
+            case "aot" -> comando.addAll(List.of("-Dspring.aot.enabled=true", "-jar", artefato + ".jar",
+                "--spring.profiles.active=producao"));
+            case "aot-cds" -> comando.addAll(List.of("-XX:SharedArchiveFile=" + opcoes.get("cds"), "-Xlog:cds=off",
+                "-Dspring.aot.enabled=true", "-jar", artefato + ".jar", "--spring.profiles.active=producao"));
+            default -> throw new IllegalArgumentException("Modo desconhecido: " + modo);
+        }
+        comando.addAll(List.of("--server.port=" + porta, "--spring.datasource.url=jdbc:h2:mem:inicio",
+            "--spring.datasource.username=sa", "--spring.datasource.driverClassName=org.h2.Driver"));
+        return comando;
+    }
+
+    private Map<String, Double> medir(String modo) throws Exception {
+        int porta = portaLivre();
+        HttpRequest primeira = HttpRequest.newBuilder(URI.create("http://localhost:" + porta + "/api/v1/usuarios"))
+            .timeout(Duration.ofSeconds(5))
+            .build();
+        long inicio = System.nanoTime();
+        Process processo = new ProcessBuilder(comando(modo, porta)).redirectErrorStream(true).start();
+        CompletableFuture<double[]> started = new CompletableFuture<>();
+        Thread leitor = new Thread(() -> lerSaida(processo, inicio, started), "inicio-saida");
+        leitor.setDaemon(true);
+        leitor.start();
+        try {
+            long limite = inicio + TimeUnit.SECONDS.toNanos(Long.parseLong(opcoes.get("timeout")));
+            long primeiraRequisicao = -1;
+            while (primeiraRequisicao < 0) {
+                if (System.nanoTime() > limite || !processo.isAlive()) {
+                    throw new IllegalStateException("A aplicação não respondeu no modo " + modo);
+                }
+                try {
+                    if (client.send(primeira, HttpResponse.BodyHandlers.discarding()).statusCode() == 200) {
+                        primeiraRequisicao = System.nanoTime() - inicio;
+                    }
+                } catch (IOException ex) {
+                    Thread.sleep(5);
+                }
+            }
+            double[] log = started.get(5, TimeUnit.SECONDS);
+            Map<String, Double> medicao = new LinkedHashMap<>();
+            medicao.put("startedMs", log[0]);
+            medicao.put("startedInformadoMs", log[1]);
+            medicao.put("processoInformadoMs", log[2]);
+            medicao.put("primeiraRequisicaoMs", primeiraRequisicao / 1e6);
+            System.out.printf("%s: %s%n", modo, medicao);
+            return medicao;
+        } finally {
+            processo.destroy();
+            if (!processo.waitFor(10, TimeUnit.SECONDS)) {
+                processo.destroyForcibly();
+            }
+        }
+    }
+
+    private static void lerSaida(Process processo, long inicio, CompletableFuture<double[]> started) {
+        try (BufferedReader leitor = new BufferedReader(new InputStreamReader(processo.getInputStream(), StandardCharsets.UTF_8))) {
+            String linha;
+            while ((linha = leitor.readLine()) != null) {
+                Matcher matcher = STARTED.matcher(linha);
+                if (!started.isDone() && matcher.find()) {
+                    started.complete(new double[] {(System.nanoTime() - inicio) / 1e6,
+                        Double.parseDouble(matcher.group(1)) * 1000, Double.parseDouble(matcher.group(2)) * 1000});
+                }
+            }
+        } catch (IOException ex) {
+            started.completeExceptionally(ex);
+        }
+    }
+
+    private static Map<String, Object> resumir(List<Map<String, Double>> execucoes) {
+        Map<String, Object> resumo = new LinkedHashMap<>();
+        for (String medida : execucoes.get(0).keySet()) {
+            double[] valores = execucoes.stream().mapToDouble(execucao -> execucao.get(medida)).sorted().toArray();
+            Map<String, Double> estatisticas = new LinkedHashMap<>();
+            estatisticas.put("mediana", valores[valores.length / 2]);
+            estatisticas.put("minimo", valores[0]);
+            estatisticas.put("maximo", valores[valores.length - 1]);
+            resumo.put(medida, estatisticas);
+        }
+        resumo.put("execucoes", execucoes.size());
+        return resumo;
+    }
+
+    private static int portaLivre() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    private void gravarRelatorio(Map<String, Object> modos) throws Exception {
+        Map<String, Object> relatorio = new LinkedHashMap<>();
+        relatorio.put("executadoEm", Instant.now().toString());
+        relatorio.put("configuracao", opcoes);
+        relatorio.put("processadores", Runtime.getRuntime().availableProcessors());
+        relatorio.put("modos", modos);
+
+        File saida = new File(opcoes.get("saida"));
+        saida.getAbsoluteFile().getParentFile().mkdirs();
+        ObjectMapper mapper = new ObjectMapper();
+        mapper.writerWithDefaultPrettyPrinter().writeValue(saida, relatorio);
+        System.out.println(mapper.writerWithDefaultPrettyPrinter().writeValueAsString(modos));
+        System.out.println("Relatório gravado em " + saida.getAbsolutePath());
+    }
+}
@@ -0,0 +1,2 @@
+-- Usuário gravado antes da subida do UsuarioFiltroUsernameIT, para o filtro de usernames carregar no aquecimento
+insert into usuarios (id, username, password, role, versao) values (900, 'semente@email.com', '$2a$04$QPX2.fLk02PSUOm5f.sbLuMHb1AtrRPV5bGO/7lg/2.wB4voJgG2S', 'ROLE_CLIENTE', 0);
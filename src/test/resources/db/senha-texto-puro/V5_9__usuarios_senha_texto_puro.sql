@@ -0,0 +1,6 @@
+-- Usuários gravados com a senha em texto puro, como antes do PasswordHasher, para a migração V6 converter na subida
+-- do UsuarioSenhaMigracaoIT
+insert into usuarios (id, username, password, role, versao) values (950, 'texto-puro@email.com', '123456', 'ROLE_CLIENTE', 0);
+insert into usuarios (id, username, password, role, versao) values (951, 'texto-puro-2@email.com', '654321', 'ROLE_CLIENTE', 0);
+insert into usuarios (id, username, password, role, versao) values (952, 'ja-hash@email.com', '$2a$04$QPX2.fLk02PSUOm5f.sbLuMHb1AtrRPV5bGO/7lg/2.wB4voJgG2S', 'ROLE_CLIENTE', 0);
+insert into usuarios (id, username, password, role, versao) values (953, 'gravado-depois@email.com', '$2a$04$QPX2.fLk02PSUOm5f.sbLuMHb1AtrRPV5bGO/7lg/2.wB4voJgG2S', 'ROLE_CLIENTE', 0);
@@ -0,0 +1,2 @@
+create table if not exists usuarios (id bigint not null primary key, username varchar(100) not null unique, password varchar(200) not null, role varchar(25) not null, data_criacao timestamp, data_modificacao timestamp, criado_por varchar(255), modificado_por varchar(255), versao bigint not null);
+merge into usuarios (id, username, password, role, versao) key (id) values (900, 'replica@email.com', '$2a$04$QPX2.fLk02PSUOm5f.sbLuMHb1AtrRPV5bGO/7lg/2.wB4voJgG2S', 'ROLE_CLIENTE', 0);
@@ -1,3 +1,3 @@
-insert into usuarios (id, username, password, role) values (100, 'ana@email.com', '123456', 'ROLE_ADMIN');
-insert into usuarios (id, username, password, role) values (101, 'bia@email.com', '123456', 'ROLE_CLIENTE');
-insert into usuarios (id, username, password, role) values (102, 'bob@email.com', '123456', 'ROLE_CLIENTE');
\ No newline at end of file
+insert into usuarios (id, username, password, role, versao) values (100, 'ana@email.com', '$2a$04$QPX2.fLk02PSUOm5f.sbLuMHb1AtrRPV5bGO/7lg/2.wB4voJgG2S', 'ROLE_ADMIN', 0);
+insert into usuarios (id, username, password, role, versao) values (101, 'bia@email.com', '$2a$04$QPX2.fLk02PSUOm5f.sbLuMHb1AtrRPV5bGO/7lg/2.wB4voJgG2S', 'ROLE_CLIENTE', 0);
+insert into usuarios (id, username, password, role, versao) values (102, 'bob@email.com', '$2a$04$QPX2.fLk02PSUOm5f.sbLuMHb1AtrRPV5bGO/7lg/2.wB4voJgG2S', 'ROLE_CLIENTE', 0);
\ No newline at end of file
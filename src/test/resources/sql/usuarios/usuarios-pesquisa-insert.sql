@@ -0,0 +1,6 @@
+insert into usuarios (id, username, password, role, data_criacao, versao) values (200, 'ana@email.com', '$2a$04$QPX2.fLk02PSUOm5f.sbLuMHb1AtrRPV5bGO/7lg/2.wB4voJgG2S', 'ROLE_ADMIN', '2024-01-10 10:00:00', 0);
+insert into usuarios (id, username, password, role, data_criacao, versao) values (201, 'anabela@gmail.com', '$2a$04$QPX2.fLk02PSUOm5f.sbLuMHb1AtrRPV5bGO/7lg/2.wB4voJgG2S', 'ROLE_CLIENTE', '2024-02-10 10:00:00', 0);
+insert into usuarios (id, username, password, role, data_criacao, versao) values (202, 'andre@email.com', '$2a$04$QPX2.fLk02PSUOm5f.sbLuMHb1AtrRPV5bGO/7lg/2.wB4voJgG2S', 'ROLE_CLIENTE', '2024-03-10 10:00:00', 0);
+insert into usuarios (id, username, password, role, data_criacao, versao) values (203, 'bia@gmail.com', '$2a$04$QPX2.fLk02PSUOm5f.sbLuMHb1AtrRPV5bGO/7lg/2.wB4voJgG2S', 'ROLE_CLIENTE', '2024-03-15 10:00:00', 0);
+insert into usuarios (id, username, password, role, data_criacao, versao) values (204, 'bob@email.com', '$2a$04$QPX2.fLk02PSUOm5f.sbLuMHb1AtrRPV5bGO/7lg/2.wB4voJgG2S', 'ROLE_CLIENTE', '2024-04-01 10:00:00', 0);
+insert into usuarios (id, username, password, role, data_criacao, versao) values (205, 'a_b@email.com', '$2a$04$QPX2.fLk02PSUOm5f.sbLuMHb1AtrRPV5bGO/7lg/2.wB4voJgG2S', 'ROLE_CLIENTE', '2024-04-02 10:00:00', 0);